@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Backoff {
+
+  /**
+   * How the time to wait between attempts to acquire the lock changes, starting from {@link Locked#retry()}.
+   */
+  Strategy strategy() default Strategy.FIXED;
+
+  /**
+   * Multiplier applied to the previous wait by the {@link Strategy#EXPONENTIAL} strategy
+   * or to the upper bound of the random wait by the {@link Strategy#DECORRELATED_JITTER} strategy.
+   */
+  double multiplier() default 2;
+
+  /**
+   * The maximum time to wait between two attempts to acquire the lock.
+   * If it is non-positive, waits are only limited by {@link Locked#timeout()}.
+   */
+  Interval maxInterval() default @Interval(value = "0");
+
+  enum Strategy {
+
+    /**
+     * Always wait for {@link Locked#retry()}.
+     */
+    FIXED,
+
+    /**
+     * Wait for {@link Locked#retry()} and multiply the wait by {@link #multiplier()} after every attempt.
+     */
+    EXPONENTIAL,
+
+    /**
+     * Wait for a random time between {@link Locked#retry()} and the previous wait multiplied by {@link #multiplier()}.
+     * Randomized waits prevent many waiters from retrying in synchronized waves.
+     */
+    DECORRELATED_JITTER
+  }
+}
@@ -80,6 +80,12 @@ public @interface Locked {
    */
   Interval retry() default @Interval(value = "50");
 
+  /**
+   * Lock retry back off. How the {@link #retry()} interval changes between attempts to acquire the lock.
+   * By default, every attempt waits for the same {@link #retry()} interval.
+   */
+  Backoff backoff() default @Backoff;
+
   /**
    * Lock refresh interval indicated how often should the lock be refreshed during method execution. If it is non-positive, lock will not
    * be refreshed during the execution and maximum time the lock can be held is defined by the {@link #expiration()} in this case.
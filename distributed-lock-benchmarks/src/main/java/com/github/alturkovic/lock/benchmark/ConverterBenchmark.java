@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.Backoff;
+import com.github.alturkovic.lock.Interval;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
+import com.github.alturkovic.lock.retry.DefaultRetryTemplateConverter;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Conversion of {@link Locked} attributes by {@link BeanFactoryAwareIntervalConverter} and {@link DefaultRetryTemplateConverter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ConverterBenchmark {
+  private BeanFactoryAwareIntervalConverter intervalConverter;
+  private DefaultRetryTemplateConverter retryTemplateConverter;
+  private Locked fixed;
+  private Locked exponential;
+  private Interval literal;
+  private Interval placeholder;
+
+  @Setup
+  public void setUp() throws NoSuchMethodException {
+    final StandardEnvironment environment = new StandardEnvironment();
+    environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Collections.singletonMap("locks.timeout", "5")));
+
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    beanFactory.addEmbeddedValueResolver(environment::resolvePlaceholders);
+
+    intervalConverter = new BeanFactoryAwareIntervalConverter(beanFactory);
+    retryTemplateConverter = new DefaultRetryTemplateConverter(intervalConverter);
+
+    fixed = ConverterBenchmark.class.getDeclaredMethod("fixed").getAnnotation(Locked.class);
+    exponential = ConverterBenchmark.class.getDeclaredMethod("exponential").getAnnotation(Locked.class);
+    literal = fixed.timeout();
+    placeholder = exponential.timeout();
+  }
+
+  @Benchmark
+  public long toMillisLiteral() {
+    return intervalConverter.toMillis(literal);
+  }
+
+  @Benchmark
+  public long toMillisPlaceholder() {
+    return intervalConverter.toMillis(placeholder);
+  }
+
+  @Benchmark
+  public RetryTemplate constructFixed() {
+    return retryTemplateConverter.construct(fixed);
+  }
+
+  @Benchmark
+  public RetryTemplate constructExponential() {
+    return retryTemplateConverter.construct(exponential);
+  }
+
+  @Locked(timeout = @Interval(value = "5", unit = TimeUnit.SECONDS))
+  private void fixed() {
+  }
+
+  @Locked(timeout = @Interval(value = "${locks.timeout}", unit = TimeUnit.SECONDS), backoff = @Backoff(strategy = Backoff.Strategy.EXPONENTIAL))
+  private void exponential() {
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.token.SequenceTokenSupplier;
+import com.github.alturkovic.lock.token.TokenSupplier;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.Data;
+
+/**
+ * {@link Lock} held in memory that simulates a round trip to the lock store on every call.
+ */
+@Data
+public class InMemoryLock implements Lock {
+  private final Map<String, String> store = new ConcurrentHashMap<>();
+  private final TokenSupplier tokenSupplier = new SequenceTokenSupplier();
+  private final long latencyNanos;
+
+  public InMemoryLock(final long latencyMicros) {
+    this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+  }
+
+  @Override
+  public String acquire(final List<String> keys, final String storeId, final long expiration) {
+    roundTrip();
+    final String token = tokenSupplier.get();
+    return store.putIfAbsent(storeId + ":" + keys.getFirst(), token) == null ? token : null;
+  }
+
+  @Override
+  public boolean release(final List<String> keys, final String storeId, final String token) {
+    roundTrip();
+    return store.remove(storeId + ":" + keys.getFirst(), token);
+  }
+
+  @Override
+  public boolean refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    roundTrip();
+    return Objects.equals(store.get(storeId + ":" + keys.getFirst()), token);
+  }
+
+  private void roundTrip() {
+    if (latencyNanos > 0) {
+      LockSupport.parkNanos(latencyNanos);
+    }
+  }
+}
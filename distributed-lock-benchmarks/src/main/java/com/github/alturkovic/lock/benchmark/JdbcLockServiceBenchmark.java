@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
+import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockSingleKeyService;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Latency distribution of acquiring and releasing a JDBC lock in an in-memory H2 database behind a HikariCP pool.
+ * <p>
+ * The database round trip is cheap, so the percentiles mostly reflect the client side cost of the lock service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(4)
+public class JdbcLockServiceBenchmark {
+  private final AtomicInteger threads = new AtomicInteger();
+
+  @Param({"H2", "NONE"})
+  private String dialect;
+
+  private HikariDataSource dataSource;
+  private SimpleJdbcLockSingleKeyService lockService;
+
+  @Setup
+  public void setUp() {
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    dataSource.setMaximumPoolSize(8);
+
+    final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, "NONE".equals(dialect) ? null : StandardJdbcLockDialect.valueOf(dialect));
+  }
+
+  @TearDown
+  public void tearDown() {
+    dataSource.close();
+  }
+
+  @Benchmark
+  public boolean acquireAndRelease(final Caller caller) {
+    final String token = lockService.acquire(caller.key, "locks", caller.token, 10000);
+    return token != null && lockService.release(caller.key, "locks", token);
+  }
+
+  @State(Scope.Thread)
+  public static class Caller {
+    private String key;
+    private String token;
+
+    @Setup
+    public void setUp(final JdbcLockServiceBenchmark benchmark) {
+      key = "key-" + benchmark.threads.incrementAndGet();
+      token = UUID.randomUUID().toString();
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
+import com.github.alturkovic.lock.jdbc.service.JdbcLockTransactionMode;
+import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockSingleKeyService;
+import com.zaxxer.hikari.HikariDataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Acquiring and releasing a JDBC lock in each {@link JdbcLockTransactionMode}, with and without a transaction of the caller,
+ * in an in-memory H2 database behind a HikariCP pool.
+ * <p>
+ * The {@code connections} counter is the number of connections borrowed from the pool during an iteration, including
+ * the one of the caller transaction, and the {@code transactionCalls} counter is the number of {@code setAutoCommit},
+ * {@code setTransactionIsolation}, {@code commit} and {@code rollback} calls made on them, each of which can cost
+ * a round trip to a remote database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(4)
+public class JdbcLockTransactionModeBenchmark {
+  private static final Set<String> TRANSACTION_CALLS = Set.of("setAutoCommit", "setTransactionIsolation", "commit", "rollback");
+  private static final ThreadLocal<Caller> CALLER = new ThreadLocal<>();
+
+  private final AtomicInteger threads = new AtomicInteger();
+
+  @Param({"TRANSACTIONAL", "AUTOCOMMIT"})
+  private JdbcLockTransactionMode mode;
+
+  @Param({"false", "true"})
+  private boolean callerTransaction;
+
+  private HikariDataSource dataSource;
+  private SimpleJdbcLockSingleKeyService lockService;
+  private TransactionTemplate transactionTemplate;
+
+  @Setup
+  public void setUp() {
+    dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    dataSource.setMaximumPoolSize(8);
+
+    final CountingDataSource countingDataSource = new CountingDataSource(dataSource);
+    final JdbcTemplate jdbcTemplate = new JdbcTemplate(countingDataSource);
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+
+    final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(countingDataSource);
+    lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, StandardJdbcLockDialect.H2, mode.transactionOperations(transactionManager));
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @TearDown
+  public void tearDown() {
+    dataSource.close();
+  }
+
+  @Benchmark
+  public boolean acquireAndRelease(final Caller caller) {
+    if (callerTransaction) {
+      return transactionTemplate.execute(status -> lockAndUnlock(caller));
+    }
+    return lockAndUnlock(caller);
+  }
+
+  private boolean lockAndUnlock(final Caller caller) {
+    final String token = lockService.acquire(caller.key, "locks", caller.token, 10000);
+    return token != null && lockService.release(caller.key, "locks", token);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Caller {
+    public long connections;
+    public long transactionCalls;
+
+    private String key;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp(final JdbcLockTransactionModeBenchmark benchmark) {
+      key = "key-" + benchmark.threads.incrementAndGet();
+      token = UUID.randomUUID().toString();
+      CALLER.set(this);
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      connections = 0;
+      transactionCalls = 0;
+    }
+  }
+
+  private static class CountingDataSource extends DelegatingDataSource {
+
+    private CountingDataSource(final HikariDataSource dataSource) {
+      super(dataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      final Connection connection = super.getConnection();
+      final Caller caller = CALLER.get();
+      if (caller == null) {
+        return connection;
+      }
+
+      caller.connections++;
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+        if (TRANSACTION_CALLS.contains(method.getName())) {
+          caller.transactionCalls++;
+        }
+        try {
+          return method.invoke(connection, args);
+        } catch (final InvocationTargetException e) {
+          throw e.getCause();
+        }
+      });
+    }
+  }
+}
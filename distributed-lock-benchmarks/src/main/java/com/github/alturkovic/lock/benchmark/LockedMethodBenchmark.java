@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.advice.LockBeanPostProcessor;
+import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
+import com.github.alturkovic.lock.interval.IntervalConverter;
+import com.github.alturkovic.lock.key.SpelKeyGenerator;
+import com.github.alturkovic.lock.local.NoOpLocalLockGate;
+import com.github.alturkovic.lock.refresh.TimingWheelLockRefreshScheduler;
+import com.github.alturkovic.lock.retry.DefaultRetriableLockFactory;
+import com.github.alturkovic.lock.retry.DefaultRetryTemplateConverter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Overhead the {@link LockBeanPostProcessor} proxy adds to a no-op {@link Locked} method.
+ * <p>
+ * The lock is held in memory without simulated latency, so the score of {@code locked} is the cost of the advice:
+ * key generation, retry template, acquire and release. {@code direct} and {@code proxiedUnlocked} are the baselines
+ * of calling the target directly and through the proxy without the advice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LockedMethodBenchmark {
+  private final AtomicInteger threads = new AtomicInteger();
+
+  private ThreadPoolTaskScheduler taskScheduler;
+  private LockedService target;
+  private LockedService proxy;
+
+  @Setup
+  public void setUp() {
+    taskScheduler = new ThreadPoolTaskScheduler();
+    taskScheduler.afterPropertiesSet();
+
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    final InMemoryLock lock = new InMemoryLock(0);
+    final IntervalConverter intervalConverter = new BeanFactoryAwareIntervalConverter(beanFactory);
+    final LockBeanPostProcessor processor = new LockBeanPostProcessor(new SpelKeyGenerator(new DefaultConversionService()), type -> lock, intervalConverter,
+      new DefaultRetriableLockFactory(new DefaultRetryTemplateConverter(intervalConverter)), new TimingWheelLockRefreshScheduler(taskScheduler), new NoOpLocalLockGate());
+    processor.afterPropertiesSet();
+
+    beanFactory.addBeanPostProcessor(processor);
+    beanFactory.registerBeanDefinition("lockedService", new RootBeanDefinition(LockedService.class, LockedServiceImpl::new));
+    proxy = beanFactory.getBean(LockedService.class);
+    target = new LockedServiceImpl();
+  }
+
+  @TearDown
+  public void tearDown() {
+    taskScheduler.shutdown();
+  }
+
+  @Benchmark
+  public int direct(final Caller caller) {
+    return target.locked(caller.key);
+  }
+
+  @Benchmark
+  public int proxiedUnlocked(final Caller caller) {
+    return proxy.unlocked(caller.key);
+  }
+
+  @Benchmark
+  public int locked(final Caller caller) {
+    return proxy.locked(caller.key);
+  }
+
+  /**
+   * Every benchmark thread locks its own key, so adding threads measures the advice and not contention.
+   */
+  @State(Scope.Thread)
+  public static class Caller {
+    private String key;
+
+    @Setup
+    public void setUp(final LockedMethodBenchmark benchmark) {
+      key = "key-" + benchmark.threads.incrementAndGet();
+    }
+  }
+
+  public interface LockedService {
+    int locked(String key);
+
+    int unlocked(String key);
+  }
+
+  public static class LockedServiceImpl implements LockedService {
+
+    @Override
+    @Locked(expression = "#p0")
+    public int locked(final String key) {
+      return key.length();
+    }
+
+    @Override
+    public int unlocked(final String key) {
+      return key.length();
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.Backoff;
+import com.github.alturkovic.lock.Interval;
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
+import com.github.alturkovic.lock.retry.DefaultRetryTemplateConverter;
+import com.github.alturkovic.lock.retry.RetriableLock;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Many threads contending for the same key, comparing lock retry back off strategies.
+ * <p>
+ * Every operation acquires the lock, holds it for a while and releases it. The average time of an operation
+ * is the acquisition latency under contention and the {@code storeCalls} counter is the number of calls that reached
+ * the simulated lock store during an iteration, most of them failed acquire attempts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+public class RetryBackoffContentionBenchmark {
+  private static final List<String> KEYS = Collections.singletonList("order:1");
+  private static final String STORE_ID = "locks";
+
+  @Param({"FIXED", "EXPONENTIAL", "DECORRELATED_JITTER"})
+  private Backoff.Strategy strategy;
+
+  @Param({"100"})
+  private long storeLatencyMicros;
+
+  @Param({"500"})
+  private long holdMicros;
+
+  private InMemoryLock lock;
+  private RetryTemplate retryTemplate;
+
+  @Setup
+  public void setUp() throws NoSuchMethodException {
+    lock = new InMemoryLock(storeLatencyMicros);
+
+    final String methodName = switch (strategy) {
+      case FIXED -> "fixed";
+      case EXPONENTIAL -> "exponential";
+      case DECORRELATED_JITTER -> "decorrelatedJitter";
+    };
+    final Locked locked = RetryBackoffContentionBenchmark.class.getDeclaredMethod(methodName).getAnnotation(Locked.class);
+    retryTemplate = new DefaultRetryTemplateConverter(new BeanFactoryAwareIntervalConverter(new DefaultListableBeanFactory())).construct(locked);
+  }
+
+  @Benchmark
+  public boolean acquireAndRelease(final Contender contender) {
+    final String token = contender.retriableLock.acquire(KEYS, STORE_ID, 10000);
+    if (token == null) {
+      return false;
+    }
+
+    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(holdMicros));
+    return contender.retriableLock.release(KEYS, STORE_ID, token);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Contender {
+    public long storeCalls;
+
+    private Lock retriableLock;
+
+    @Setup(Level.Trial)
+    public void setUp(final RetryBackoffContentionBenchmark benchmark) {
+      retriableLock = new RetriableLock(new CountingLock(benchmark.lock), benchmark.retryTemplate);
+    }
+
+    private class CountingLock implements Lock {
+      private final Lock delegate;
+
+      private CountingLock(final Lock delegate) {
+        this.delegate = delegate;
+      }
+
+      @Override
+      public String acquire(final List<String> keys, final String storeId, final long expiration) {
+        storeCalls++;
+        return delegate.acquire(keys, storeId, expiration);
+      }
+
+      @Override
+      public boolean release(final List<String> keys, final String storeId, final String token) {
+        storeCalls++;
+        return delegate.release(keys, storeId, token);
+      }
+
+      @Override
+      public boolean refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+        storeCalls++;
+        return delegate.refresh(keys, storeId, token, expiration);
+      }
+    }
+  }
+
+  @Locked(retry = @Interval("5"), timeout = @Interval(value = "10", unit = TimeUnit.SECONDS))
+  private void fixed() {
+  }
+
+  @Locked(retry = @Interval("5"), timeout = @Interval(value = "10", unit = TimeUnit.SECONDS),
+    backoff = @Backoff(strategy = Backoff.Strategy.EXPONENTIAL, maxInterval = @Interval("100")))
+  private void exponential() {
+  }
+
+  @Locked(retry = @Interval("5"), timeout = @Interval(value = "10", unit = TimeUnit.SECONDS),
+    backoff = @Backoff(strategy = Backoff.Strategy.DECORRELATED_JITTER, maxInterval = @Interval("100")))
+  private void decorrelatedJitter() {
+  }
+}
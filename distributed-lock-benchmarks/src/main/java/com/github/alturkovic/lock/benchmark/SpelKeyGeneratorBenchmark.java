@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.key.SpelKeyGenerator;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+/**
+ * Key resolution of the default {@link SpelKeyGenerator} for typical lock expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class SpelKeyGeneratorBenchmark {
+
+  @Param({"#executionPath", "#p0", "#id", "'order:' + #p0 + ':' + #p1", "#p2", "#p3.name"})
+  private String expression;
+
+  private SpelKeyGenerator keyGenerator;
+  private Object target;
+  private Method method;
+  private Object[] args;
+
+  @Setup
+  public void setUp() throws NoSuchMethodException {
+    keyGenerator = new SpelKeyGenerator(new DefaultConversionService());
+    target = new Target();
+    method = Target.class.getMethod("execute", String.class, int.class, List.class, Customer.class);
+    args = new Object[]{"42", 7, Arrays.asList("a", "b", "c"), new Customer("alice")};
+  }
+
+  @Benchmark
+  public List<String> resolveKeys() {
+    return keyGenerator.resolveKeys("lock:", expression, target, method, args);
+  }
+
+  public static class Target {
+
+    @SuppressWarnings("unused")
+    public void execute(final String id, final int version, final List<String> items, final Customer customer) {
+    }
+  }
+
+  public record Customer(String name) {
+
+    public String getName() {
+      return name;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.benchmark;
+
+import com.github.alturkovic.lock.Interval;
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.configuration.DistributedLockConfiguration;
+import com.github.alturkovic.lock.refresh.TimingWheelLockRefreshScheduler;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Thousands of virtual threads waiting for a small set of {@link Locked} keys with virtual threads enabled.
+ * <p>
+ * Every waiter retries until it acquires its key, holds it long enough for the lease to be refreshed and releases it.
+ * The platform thread count is sampled while the waiters run and should stay flat regardless of the number of waiters,
+ * since retries, store round trips and refreshes all park virtual threads. Run with {@code -Djdk.tracePinnedThreads=full}
+ * to print a stack trace whenever a waiter pins its carrier thread.
+ * <p>
+ * Accepts the number of waiters, keys, the hold time in milliseconds and the simulated store latency in microseconds
+ * as arguments, for an example {@code 10000 100 20 1000}.
+ * Set {@code -Dcom.github.alturkovic.lock.virtual-threads.enabled=false} to compare with the default refresh scheduler.
+ */
+public class VirtualThreadWaitersLoadTest {
+
+  public static void main(final String[] args) throws InterruptedException {
+    final int waiters = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    final int keys = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    final long holdMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+    final long storeLatencyMicros = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.getEnvironment().getPropertySources().addLast(new MapPropertySource("load-test", Map.of("com.github.alturkovic.lock.virtual-threads.enabled", "true")));
+      context.register(DistributedLockConfiguration.class);
+      context.registerBean(Lock.class, () -> new InMemoryLock(storeLatencyMicros));
+      context.registerBean(LockedService.class, () -> new LockedServiceImpl(holdMillis));
+      context.refresh();
+
+      final LockedService service = context.getBean(LockedService.class);
+      final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      final int platformThreadsBefore = threadMXBean.getThreadCount();
+
+      final AtomicInteger acquired = new AtomicInteger();
+      final AtomicInteger failed = new AtomicInteger();
+      final List<Thread> threads = new ArrayList<>(waiters);
+      final long start = System.nanoTime();
+      for (int i = 0; i < waiters; i++) {
+        final String key = "key-" + (i % keys);
+        threads.add(Thread.ofVirtual().name("waiter-", i).start(() -> {
+          try {
+            service.hold(key);
+            acquired.incrementAndGet();
+          } catch (final RuntimeException e) {
+            failed.incrementAndGet();
+          }
+        }));
+      }
+
+      int peakPlatformThreads = platformThreadsBefore;
+      for (final Thread thread : threads) {
+        while (!thread.join(Duration.ofMillis(10))) {
+          peakPlatformThreads = Math.max(peakPlatformThreads, threadMXBean.getThreadCount());
+        }
+      }
+      final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      System.out.printf("virtual threads enabled:  %s%n", context.getEnvironment().getProperty("com.github.alturkovic.lock.virtual-threads.enabled"));
+      System.out.printf("waiters / keys / hold:    %d / %d / %d ms, store latency %d us%n", waiters, keys, holdMillis, storeLatencyMicros);
+      System.out.printf("acquired / failed:        %d / %d in %d ms%n", acquired.get(), failed.get(), elapsedMillis);
+      System.out.printf("platform threads:         %d before, %d peak%n", platformThreadsBefore, peakPlatformThreads);
+      System.out.printf("max renewal lag:          %d ms%n", context.getBean(TimingWheelLockRefreshScheduler.class).getMaxRenewalLag().toMillis());
+    }
+  }
+
+  public interface LockedService {
+    void hold(String key);
+  }
+
+  public static class LockedServiceImpl implements LockedService {
+    private final long holdNanos;
+
+    public LockedServiceImpl(final long holdMillis) {
+      this.holdNanos = TimeUnit.MILLISECONDS.toNanos(holdMillis);
+    }
+
+    @Override
+    @Locked(expression = "#p0", refresh = @Interval("10"),
+      retry = @Interval("50"), timeout = @Interval(value = "5", unit = TimeUnit.MINUTES))
+    public void hold(final String key) {
+      LockSupport.parkNanos(holdNanos);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock;
+
+import java.util.List;
+
+/**
+ * A {@link Lock} that can tell waiters when keys are released, so that they can retry acquiring the lock immediately
+ * instead of waiting for the whole retry interval.
+ */
+public interface AwaitableLock extends Lock {
+
+  /**
+   * Block until any of the given keys is released or the timeout elapses, whichever comes first.
+   * Notifications are best effort, implementations are allowed to simply wait for the whole timeout.
+   *
+   * @param keys    keys to wait for
+   * @param storeId lock store id the keys are held in (table, collection, ...)
+   * @param timeout maximum time to wait, in millis
+   * @return {@code true} if woken up by a release, {@code false} if the timeout elapsed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean awaitRelease(List<String> keys, String storeId, long timeout) throws InterruptedException;
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Data;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link ReactiveLock} view of a blocking {@link Lock}, calling the store on a {@link Scheduler} meant for blocking work
+ * so that subscribers never block. Threads are only taken for the duration of a single store call.
+ * <p>
+ * A token acquired after the subscriber cancelled is released again, so cancelling never leaves the keys locked until they expire.
+ */
+@Data
+public class BlockingReactiveLock implements ReactiveLock {
+  private final Lock lock;
+  private final Scheduler scheduler;
+
+  public BlockingReactiveLock(final Lock lock) {
+    this(lock, Schedulers.boundedElastic());
+  }
+
+  public BlockingReactiveLock(final Lock lock, final Scheduler scheduler) {
+    this.lock = lock;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public Mono<String> acquire(final List<String> keys, final String storeId, final long expiration) {
+    return Mono.create(sink -> {
+      // either the acquired token is emitted or the subscriber cancelled first and the token is released again
+      final AtomicBoolean completed = new AtomicBoolean();
+      sink.onCancel(() -> completed.set(true));
+
+      scheduler.schedule(() -> {
+        try {
+          final String token = lock.acquire(keys, storeId, expiration);
+          if (completed.compareAndSet(false, true)) {
+            sink.success(token);
+          } else if (StringUtils.hasText(token)) {
+            lock.release(keys, storeId, token);
+          }
+        } catch (final RuntimeException e) {
+          sink.error(e);
+        }
+      });
+    });
+  }
+
+  @Override
+  public Mono<Boolean> release(final List<String> keys, final String storeId, final String token) {
+    return Mono.fromCallable(() -> lock.release(keys, storeId, token)).subscribeOn(scheduler);
+  }
+
+  @Override
+  public Mono<Boolean> refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    return Mono.fromCallable(() -> lock.refresh(keys, storeId, token, expiration)).subscribeOn(scheduler);
+  }
+}
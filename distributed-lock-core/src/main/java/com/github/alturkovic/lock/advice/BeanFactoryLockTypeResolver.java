@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.advice;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.ReactiveLock;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.BeanFactory;
+
+/**
+ * {@link LockTypeResolver} resolving locks from the beans of the given {@link BeanFactory}.
+ * <p>
+ * Reactive locks are resolved from the {@link ReactiveLock} beans declaring the {@link ReactiveLock#getLockType() lock type}.
+ */
+@AllArgsConstructor
+public class BeanFactoryLockTypeResolver implements LockTypeResolver {
+  private final BeanFactory beanFactory;
+
+  @Override
+  public Lock get(final Class<? extends Lock> type) {
+    return beanFactory.getBean(type);
+  }
+
+  @Override
+  public ReactiveLock getReactive(final Class<? extends Lock> type) {
+    return beanFactory.getBeanProvider(ReactiveLock.class).orderedStream()
+      .filter(reactiveLock -> type.equals(reactiveLock.getLockType()))
+      .findFirst()
+      .orElse(null);
+  }
+}
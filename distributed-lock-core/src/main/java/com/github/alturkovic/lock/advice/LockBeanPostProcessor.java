@@ -27,6 +27,8 @@ package com.github.alturkovic.lock.advice;
 import com.github.alturkovic.lock.Locked;
 import com.github.alturkovic.lock.interval.IntervalConverter;
 import com.github.alturkovic.lock.key.KeyGenerator;
+import com.github.alturkovic.lock.local.LocalLockGate;
+import com.github.alturkovic.lock.refresh.LockRefreshScheduler;
 import com.github.alturkovic.lock.retry.RetriableLockFactory;
 import lombok.AllArgsConstructor;
 import org.aopalliance.intercept.Interceptor;
@@ -34,7 +36,6 @@ import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
 import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.scheduling.TaskScheduler;
 
 /**
  * {@link org.springframework.beans.factory.config.BeanPostProcessor} for beans with {@link Locked} methods.
@@ -45,12 +46,13 @@ public class LockBeanPostProcessor extends AbstractAdvisingBeanPostProcessor imp
   private final LockTypeResolver lockTypeResolver;
   private final IntervalConverter intervalConverter;
   private final RetriableLockFactory retriableLockFactory;
-  private final TaskScheduler taskScheduler;
+  private final LockRefreshScheduler lockRefreshScheduler;
+  private final LocalLockGate localLockGate;
 
   @Override
   public void afterPropertiesSet() {
     final AnnotationMatchingPointcut pointcut = new AnnotationMatchingPointcut(null, Locked.class, true);
-    final Interceptor interceptor = new LockMethodInterceptor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, taskScheduler);
+    final Interceptor interceptor = new LockMethodInterceptor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, lockRefreshScheduler, localLockGate);
 
     this.advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
   }
@@ -24,43 +24,91 @@
 
 package com.github.alturkovic.lock.advice;
 
+import com.github.alturkovic.lock.Lease;
 import com.github.alturkovic.lock.Lock;
 import com.github.alturkovic.lock.Locked;
 import com.github.alturkovic.lock.exception.DistributedLockException;
 import com.github.alturkovic.lock.interval.IntervalConverter;
 import com.github.alturkovic.lock.key.KeyGenerator;
+import com.github.alturkovic.lock.local.LocalLockGate;
+import com.github.alturkovic.lock.refresh.LockRefreshScheduler;
+import com.github.alturkovic.lock.refresh.RefreshHandle;
+import com.github.alturkovic.lock.retry.DefaultReactiveRetriableLockFactory;
+import com.github.alturkovic.lock.retry.RetriableLock;
 import com.github.alturkovic.lock.retry.RetriableLockFactory;
 import java.lang.reflect.Method;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ScheduledFuture;
-import lombok.AllArgsConstructor;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.core.annotation.AnnotatedElementUtils;
-import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
+/**
+ * Locks {@link Locked} methods for the duration of their execution.
+ * <p>
+ * Methods returning a {@link CompletionStage} keep the lock until the stage completes. Methods returning a reactive type
+ * known to the {@link ReactiveAdapterRegistry} are locked separately for every subscription, see {@link ReactiveLockSupport}.
+ * Reentrancy and the {@link LocalLockGate} are bound to threads, so they do not apply to reactive methods.
+ */
 @Slf4j
-@AllArgsConstructor
 public class LockMethodInterceptor implements MethodInterceptor {
+  private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Flux", LockMethodInterceptor.class.getClassLoader());
+
+  private final Map<AnnotatedElementKey, LockPlan> planCache = new ConcurrentHashMap<>();
+  private final ThreadLockHolds lockHolds = new ThreadLockHolds();
+
   private final KeyGenerator keyGenerator;
   private final LockTypeResolver lockTypeResolver;
   private final IntervalConverter intervalConverter;
   private final RetriableLockFactory retriableLockFactory;
-  private final TaskScheduler taskScheduler;
+  private final LockRefreshScheduler lockRefreshScheduler;
+  private final LocalLockGate localLockGate;
+  private final ReactiveLockSupport reactiveLockSupport;
+
+  public LockMethodInterceptor(final KeyGenerator keyGenerator,
+                               final LockTypeResolver lockTypeResolver,
+                               final IntervalConverter intervalConverter,
+                               final RetriableLockFactory retriableLockFactory,
+                               final LockRefreshScheduler lockRefreshScheduler,
+                               final LocalLockGate localLockGate) {
+    this.keyGenerator = keyGenerator;
+    this.lockTypeResolver = lockTypeResolver;
+    this.intervalConverter = intervalConverter;
+    this.retriableLockFactory = retriableLockFactory;
+    this.lockRefreshScheduler = lockRefreshScheduler;
+    this.localLockGate = localLockGate;
+    this.reactiveLockSupport = REACTOR_PRESENT
+      ? new ReactiveLockSupport(ReactiveAdapterRegistry.getSharedInstance(), lockTypeResolver, new DefaultReactiveRetriableLockFactory(intervalConverter), lockRefreshScheduler)
+      : null;
+  }
 
   @Override
   public Object invoke(final MethodInvocation invocation) throws Throwable {
     final LockContext context = new LockContext(invocation);
+    if (context.getPlan().getReactiveAdapter() != null) {
+      return reactiveLockSupport.invoke(invocation, context.getPlan(), context.getKeys());
+    }
+
     try {
-      return executeLockedMethod(invocation, context);
+      final Object result = executeLockedMethod(invocation, context);
+      if (result instanceof CompletionStage<?> stage && StringUtils.hasText(context.getToken())) {
+        return releaseOnCompletion(stage, context);
+      }
+      return result;
     } catch (DistributedLockException e) {
-      if (context.getLocked() != null && !context.getLocked().throwing()) {
+      if (!context.getLocked().throwing()) {
         log.warn("Cannot obtain lock for keys {} in store {}", context.getKeys(), context.getLocked().storeId(), e);
         return null;
       }
@@ -71,10 +119,17 @@ public class LockMethodInterceptor implements MethodInterceptor {
   }
 
   private Object executeLockedMethod(final MethodInvocation invocation, final LockContext context) throws Throwable {
-    final long expiration = intervalConverter.toMillis(context.getLocked().expiration());
+    if (lockHolds.reenter(context.getLock(), context.getLocked().storeId(), context.getKeys())) {
+      context.setReentered(true);
+      log.debug("Reentered lock for keys {} in store {} already held by the current thread", context.getKeys(), context.getLocked().storeId());
+      return invocation.proceed();
+    }
+
+    final long gateStart = System.nanoTime();
+    enterLocalGate(context);
+
     try {
-      Lock lock = retriableLockFactory.generate(context.getLock(), context.getLocked());
-      String token = lock.acquire(context.getKeys(), context.getLocked().storeId(), expiration);
+      final String token = acquire(context, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - gateStart));
       if (!StringUtils.hasText(token)) {
         throw new IllegalStateException("No token acquired");
       }
@@ -84,27 +139,90 @@ public class LockMethodInterceptor implements MethodInterceptor {
     }
 
     log.debug("Acquired lock for keys {} with token {} in store {}", context.getKeys(), context.getToken(), context.getLocked().storeId());
+    lockHolds.hold(context.getLock(), context.getLocked().storeId(), context.getKeys());
 
-    scheduleLockRefresh(context, expiration);
+    scheduleLockRefresh(context);
     return invocation.proceed();
   }
 
-  private void scheduleLockRefresh(final LockContext context, final long expiration) {
-    final long refresh = intervalConverter.toMillis(context.getLocked().refresh());
+  private String acquire(final LockContext context, final long waitedInGate) {
+    final LockPlan plan = context.getPlan();
+    if (plan.getTimeout() > 0 && plan.getRetriableLock() instanceof RetriableLock retriableLock) {
+      // the time spent waiting for the local turn counts towards the timeout
+      return retriableLock.acquire(context.getKeys(), context.getLocked().storeId(), plan.getExpiration(), plan.getTimeout() - waitedInGate);
+    }
+
+    return plan.getRetriableLock().acquire(context.getKeys(), context.getLocked().storeId(), plan.getExpiration());
+  }
+
+  private void enterLocalGate(final LockContext context) {
+    final LocalLockGate.Permit permit;
+    try {
+      permit = localLockGate.enter(context.getKeys(), context.getLocked().storeId(), context.getPlan().getTimeout());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DistributedLockException(String.format("Interrupted while waiting for local turn to lock with expression: %s", context.getLocked().expression()), e);
+    }
+
+    if (permit == null) {
+      throw new DistributedLockException(String.format("Unable to get local turn to lock with expression: %s", context.getLocked().expression()));
+    }
+    context.setPermit(permit);
+  }
+
+  private void scheduleLockRefresh(final LockContext context) {
+    final long refresh = context.getPlan().getRefresh();
     if (refresh > 0) {
-      Instant startTime = Instant.now().plusMillis(refresh);
-      context.setScheduledFuture(taskScheduler.scheduleAtFixedRate(constructRefreshRunnable(context, expiration), startTime, Duration.ofMillis(refresh)));
+      final Lease lease = new Lease(context.getKeys(), context.getLocked().storeId(), context.getToken(), context.getPlan().getExpiration());
+      context.setRefreshHandle(lockRefreshScheduler.schedule(context.getLock(), lease, refresh));
     }
   }
 
-  private Runnable constructRefreshRunnable(final LockContext context, final long expiration) {
-    return () -> context.getLock().refresh(context.getKeys(), context.getLocked().storeId(), context.getToken(), expiration);
+  private Object releaseOnCompletion(final CompletionStage<?> stage, final LockContext context) {
+    // the release is attached before handing it over, so the lock is still released after execution if attaching fails
+    final CompletionStage<?> released = stage.whenComplete((result, error) -> releaseLock(context));
+    context.setReleasedOnCompletion(true);
+
+    final Class<?> returnType = context.getPlan().getMethod().getReturnType();
+    if (returnType == CompletionStage.class) {
+      // callers observe completion only after the lock is released
+      return released;
+    }
+    if (returnType != CompletableFuture.class) {
+      return stage;
+    }
+
+    // callers observe completion only after the lock is released, cancelling it cancels the method's future instead
+    final CompletableFuture<?> future = stage.toCompletableFuture();
+    final CompletableFuture<?> completion = released.toCompletableFuture().thenApply(result -> result);
+    completion.whenComplete((result, error) -> {
+      if (completion.isCancelled()) {
+        future.cancel(true);
+      }
+    });
+    return completion;
   }
 
   private void cleanAfterExecution(final LockContext context) {
-    final ScheduledFuture<?> scheduledFuture = context.getScheduledFuture();
-    if (scheduledFuture != null && !scheduledFuture.isCancelled() && !scheduledFuture.isDone()) {
-      scheduledFuture.cancel(true);
+    if (context.isReentered()) {
+      // the outermost method holding the lock will release it
+      lockHolds.exit(context.getLock(), context.getLocked().storeId(), context.getKeys());
+      return;
+    }
+
+    if (StringUtils.hasText(context.getToken())) {
+      lockHolds.exit(context.getLock(), context.getLocked().storeId(), context.getKeys());
+    }
+
+    if (!context.isReleasedOnCompletion()) {
+      releaseLock(context);
+    }
+  }
+
+  private void releaseLock(final LockContext context) {
+    final RefreshHandle refreshHandle = context.getRefreshHandle();
+    if (refreshHandle != null) {
+      refreshHandle.cancel();
     }
 
     if (StringUtils.hasText(context.getToken()) && !context.getLocked().manuallyReleased()) {
@@ -117,42 +235,75 @@ public class LockMethodInterceptor implements MethodInterceptor {
         log.error("Couldn't release lock for keys {} with token {} in store {}", context.getKeys(), context.getToken(), context.getLocked().storeId());
       }
     }
+
+    // let the next local thread contend only after the remote lock is released
+    final LocalLockGate.Permit permit = context.getPermit();
+    if (permit != null) {
+      permit.release();
+    }
+  }
+
+  private LockPlan resolvePlan(final MethodInvocation invocation) {
+    final Class<?> targetClass = invocation.getThis().getClass();
+    final AnnotatedElementKey planKey = new AnnotatedElementKey(invocation.getMethod(), targetClass);
+
+    // plain reads never lock, computeIfAbsent may synchronize on the map and pin virtual threads
+    final LockPlan plan = planCache.get(planKey);
+    return plan != null ? plan : planCache.computeIfAbsent(planKey, key -> createPlan(invocation.getMethod(), targetClass));
+  }
+
+  private LockPlan createPlan(final Method invokedMethod, final Class<?> targetClass) {
+    final Method method = AopUtils.getMostSpecificMethod(invokedMethod, targetClass);
+    final Locked locked = AnnotatedElementUtils.findMergedAnnotation(method, Locked.class);
+
+    if (!StringUtils.hasText(locked.expression())) {
+      throw new DistributedLockException(String.format("Missing expression: %s on method %s", locked, method));
+    }
+
+    final Lock lock = lockTypeResolver.get(locked.type());
+    if (lock == null) {
+      throw new DistributedLockException(String.format("Lock type %s not configured", locked.type().getName()));
+    }
+
+    final ReactiveAdapter reactiveAdapter = reactiveLockSupport != null ? reactiveLockSupport.getAdapter(method.getReturnType()) : null;
+    return new LockPlan(method, locked, lock, retriableLockFactory.generate(lock, locked),
+      intervalConverter.toMillis(locked.expiration()),
+      intervalConverter.toMillis(locked.refresh()),
+      intervalConverter.toMillis(locked.timeout()),
+      intervalConverter.toMillis(locked.retry()),
+      reactiveAdapter,
+      reactiveAdapter != null ? reactiveLockSupport.generate(lock, locked) : null);
   }
 
   @Data
   private class LockContext {
-    private final Method method;
-    private final Locked locked;
-    private final Lock lock;
+    private final LockPlan plan;
     private final List<String> keys;
 
+    private boolean reentered;
+    private LocalLockGate.Permit permit;
     private String token;
-    private ScheduledFuture<?> scheduledFuture;
+    private RefreshHandle refreshHandle;
+    private boolean releasedOnCompletion;
 
     public LockContext(final MethodInvocation invocation) {
-      method = AopUtils.getMostSpecificMethod(invocation.getMethod(), invocation.getThis().getClass());
-      locked = AnnotatedElementUtils.findMergedAnnotation(method, Locked.class);
-      lock = lockTypeResolver.get(locked.type());
-      keys = resolveKeys(invocation, method, locked);
-
-      validateConstructedContext();
+      plan = resolvePlan(invocation);
+      keys = resolveKeys(invocation, plan);
     }
 
-    private List<String> resolveKeys(final MethodInvocation invocation, final Method method, final Locked locked) {
-      try {
-        return keyGenerator.resolveKeys(locked.prefix(), locked.expression(), invocation.getThis(), method, invocation.getArguments());
-      } catch (final RuntimeException e) {
-        throw new DistributedLockException(String.format("Cannot resolve keys to lock: %s on method %s", locked, method), e);
-      }
+    public Locked getLocked() {
+      return plan.getLocked();
     }
 
-    private void validateConstructedContext() {
-      if (!StringUtils.hasText(locked.expression())) {
-        throw new DistributedLockException(String.format("Missing expression: %s on method %s", locked, method));
-      }
+    public Lock getLock() {
+      return plan.getLock();
+    }
 
-      if (lock == null) {
-        throw new DistributedLockException(String.format("Lock type %s not configured", locked.type().getName()));
+    private List<String> resolveKeys(final MethodInvocation invocation, final LockPlan plan) {
+      try {
+        return keyGenerator.resolveKeys(plan.getLocked().prefix(), plan.getLocked().expression(), invocation.getThis(), plan.getMethod(), invocation.getArguments());
+      } catch (final RuntimeException e) {
+        throw new DistributedLockException(String.format("Cannot resolve keys to lock: %s on method %s", plan.getLocked(), plan.getMethod()), e);
       }
     }
   }
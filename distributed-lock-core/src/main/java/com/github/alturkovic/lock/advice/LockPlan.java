@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.advice;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.ReactiveLock;
+import java.lang.reflect.Method;
+import lombok.Data;
+import org.springframework.core.ReactiveAdapter;
+
+/**
+ * Immutable, pre-resolved description of how a {@link Locked} method should be locked.
+ * Built once per method and target class so that invocations only have to resolve keys and talk to the store.
+ */
+@Data
+public class LockPlan {
+
+  /**
+   * The most specific method carrying the {@link Locked} annotation.
+   */
+  private final Method method;
+
+  /**
+   * Merged {@link Locked} annotation of the {@link #method}.
+   */
+  private final Locked locked;
+
+  /**
+   * Lock resolved for the {@link Locked#type()}, used for refreshing and releasing.
+   */
+  private final Lock lock;
+
+  /**
+   * {@link #lock} prepared with the retry strategy described by {@link #locked}, used for acquiring.
+   */
+  private final Lock retriableLock;
+
+  private final long expiration;
+  private final long refresh;
+  private final long timeout;
+  private final long retry;
+
+  /**
+   * Adapter of the reactive type returned by the {@link #method}, {@code null} if the method does not return a publisher.
+   */
+  private final ReactiveAdapter reactiveAdapter;
+
+  /**
+   * {@link #lock} prepared with the retry strategy described by {@link #locked}, used for acquiring when the
+   * {@link #method} returns a publisher, {@code null} otherwise.
+   */
+  private final ReactiveLock reactiveLock;
+}
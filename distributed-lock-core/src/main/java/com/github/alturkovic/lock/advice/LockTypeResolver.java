@@ -25,6 +25,7 @@
 package com.github.alturkovic.lock.advice;
 
 import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.ReactiveLock;
 
 /**
  * A resolver which can resolve {@link Lock} beans of a specific class.
@@ -39,4 +40,14 @@ public interface LockTypeResolver {
    * @return lock of the given {@code type}
    */
   Lock get(Class<? extends Lock> type);
+
+  /**
+   * Get a non-blocking {@link ReactiveLock} storing keys the same way as the {@link Lock} of the given {@code type}.
+   *
+   * @param type type of the lock
+   * @return reactive lock of the given {@code type} or {@code null} if the lock can only be used by blocking
+   */
+  default ReactiveLock getReactive(final Class<? extends Lock> type) {
+    return null;
+  }
 }
@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.advice;
+
+import com.github.alturkovic.lock.BlockingReactiveLock;
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.ReactiveLock;
+import com.github.alturkovic.lock.exception.DistributedLockException;
+import com.github.alturkovic.lock.refresh.LockRefreshScheduler;
+import com.github.alturkovic.lock.refresh.RefreshHandle;
+import com.github.alturkovic.lock.retry.ReactiveRetriableLockFactory;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Locks methods returning reactive types for as long as the returned publisher is active.
+ * <p>
+ * Nothing is locked until the publisher is subscribed. Every subscription acquires the lock, waiting between retries
+ * without holding a thread, invokes the method and releases the lock on completion, error or cancellation. The lock is
+ * refreshed only until then. Locks implementing {@link ReactiveLock} and reactive locks {@link LockTypeResolver#getReactive resolved}
+ * for the lock type are used directly, other locks are adapted by a {@link BlockingReactiveLock}.
+ * <p>
+ * Kept apart from {@link LockMethodInterceptor} so that Reactor is only loaded when it is on the classpath.
+ */
+@Slf4j
+@AllArgsConstructor
+class ReactiveLockSupport {
+  private final ReactiveAdapterRegistry reactiveAdapterRegistry;
+  private final LockTypeResolver lockTypeResolver;
+  private final ReactiveRetriableLockFactory reactiveRetriableLockFactory;
+  private final LockRefreshScheduler lockRefreshScheduler;
+
+  /**
+   * @return adapter of the reactive type returned by the method or {@code null} if it does not return a publisher
+   */
+  ReactiveAdapter getAdapter(final Class<?> returnType) {
+    if (CompletionStage.class.isAssignableFrom(returnType)) {
+      // futures are already running when returned, so they are locked eagerly by the interceptor
+      return null;
+    }
+    return reactiveAdapterRegistry.getAdapter(returnType);
+  }
+
+  ReactiveLock generate(final Lock lock, final Locked locked) {
+    return reactiveRetriableLockFactory.generate(resolve(lock, locked), locked);
+  }
+
+  private ReactiveLock resolve(final Lock lock, final Locked locked) {
+    if (lock instanceof ReactiveLock reactiveLock) {
+      return reactiveLock;
+    }
+
+    final ReactiveLock reactiveLock = lockTypeResolver.getReactive(locked.type());
+    // blocking locks run on a bounded elastic thread for every acquire and release
+    return reactiveLock != null ? reactiveLock : new BlockingReactiveLock(lock);
+  }
+
+  Object invoke(final MethodInvocation invocation, final LockPlan plan, final List<String> keys) {
+    final ReactiveAdapter adapter = plan.getReactiveAdapter();
+    final MethodInvocation template = invocation instanceof ProxyMethodInvocation proxyInvocation ? proxyInvocation.invocableClone() : invocation;
+
+    if (adapter.isMultiValue()) {
+      return adapter.fromPublisher(Flux.usingWhen(acquire(plan, keys),
+        hold -> proceed(template, adapter),
+        this::release,
+        (hold, error) -> release(hold),
+        this::release));
+    }
+
+    // a single value publisher must only complete once the lock is released, not cancel the lock when the value arrives
+    return adapter.fromPublisher(Mono.usingWhen(acquire(plan, keys),
+      hold -> Mono.from(proceed(template, adapter)),
+      this::release,
+      (hold, error) -> release(hold),
+      this::release));
+  }
+
+  private Mono<LockHold> acquire(final LockPlan plan, final List<String> keys) {
+    final Locked locked = plan.getLocked();
+    return plan.getReactiveLock().acquire(keys, locked.storeId(), plan.getExpiration())
+      .onErrorMap(e -> new DistributedLockException(String.format("Unable to acquire lock with expression: %s", locked.expression()), e))
+      .switchIfEmpty(Mono.error(() -> new DistributedLockException(String.format("Unable to acquire lock with expression: %s", locked.expression()), new IllegalStateException("No token acquired"))))
+      .map(token -> {
+        log.debug("Acquired lock for keys {} with token {} in store {}", keys, token, locked.storeId());
+        return new LockHold(plan, keys, token, scheduleLockRefresh(plan, keys, token));
+      })
+      .onErrorResume(DistributedLockException.class, e -> {
+        if (locked.throwing()) {
+          return Mono.error(e);
+        }
+        log.warn("Cannot obtain lock for keys {} in store {}", keys, locked.storeId(), e);
+        return Mono.empty();
+      });
+  }
+
+  private RefreshHandle scheduleLockRefresh(final LockPlan plan, final List<String> keys, final String token) {
+    if (plan.getRefresh() <= 0) {
+      return null;
+    }
+
+    final Lease lease = new Lease(keys, plan.getLocked().storeId(), token, plan.getExpiration());
+    return lockRefreshScheduler.schedule(plan.getLock(), lease, plan.getRefresh());
+  }
+
+  private Publisher<?> proceed(final MethodInvocation template, final ReactiveAdapter adapter) {
+    // every subscription runs the method again, so each one needs its own invocation
+    final MethodInvocation invocation = template instanceof ProxyMethodInvocation proxyInvocation ? proxyInvocation.invocableClone() : template;
+    try {
+      final Object result = invocation.proceed();
+      return result == null ? Flux.empty() : adapter.toPublisher(result);
+    } catch (final Throwable e) {
+      return Flux.error(e);
+    }
+  }
+
+  private Mono<Void> release(final LockHold hold) {
+    if (hold.getRefreshHandle() != null) {
+      hold.getRefreshHandle().cancel();
+    }
+
+    final LockPlan plan = hold.getPlan();
+    final String storeId = plan.getLocked().storeId();
+    if (plan.getLocked().manuallyReleased()) {
+      return Mono.empty();
+    }
+
+    return plan.getReactiveLock().release(hold.getKeys(), storeId, hold.getToken())
+      .doOnNext(released -> {
+        if (released) {
+          log.debug("Released lock for keys {} with token {} in store {}", hold.getKeys(), hold.getToken(), storeId);
+        } else {
+          log.error("Couldn't release lock for keys {} with token {} in store {}", hold.getKeys(), hold.getToken(), storeId);
+        }
+      })
+      .then();
+  }
+
+  @Data
+  private static class LockHold {
+    private final LockPlan plan;
+    private final List<String> keys;
+    private final String token;
+    private final RefreshHandle refreshHandle;
+  }
+}
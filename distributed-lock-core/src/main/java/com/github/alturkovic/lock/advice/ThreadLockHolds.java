@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.advice;
+
+import com.github.alturkovic.lock.Lock;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+
+/**
+ * Keys held by the current thread, used to let nested {@link com.github.alturkovic.lock.Locked} methods reenter
+ * locks already held by an outer method on the same thread without contacting the lock store.
+ * <p>
+ * Every held (store id, key) pair is counted per lock instance, the outermost method acquires and releases
+ * the remote lock while nested methods only adjust the counts.
+ */
+class ThreadLockHolds {
+  private final ThreadLocal<Map<Lock, Map<HoldKey, Integer>>> holds = new ThreadLocal<>();
+
+  /**
+   * Reenter the given keys if all of them are already held by the current thread.
+   *
+   * @return {@code true} if the keys were reentered and must be exited afterwards, {@code false} if they have to be acquired
+   */
+  boolean reenter(final Lock lock, final String storeId, final List<String> keys) {
+    final Map<Lock, Map<HoldKey, Integer>> held = holds.get();
+    final Map<HoldKey, Integer> counts = held == null ? null : held.get(lock);
+    if (counts == null || keys.stream().anyMatch(key -> !counts.containsKey(new HoldKey(storeId, key)))) {
+      return false;
+    }
+
+    keys.forEach(key -> counts.merge(new HoldKey(storeId, key), 1, Integer::sum));
+    return true;
+  }
+
+  /**
+   * Mark the given keys, just acquired by the current thread, as held.
+   */
+  void hold(final Lock lock, final String storeId, final List<String> keys) {
+    Map<Lock, Map<HoldKey, Integer>> held = holds.get();
+    if (held == null) {
+      // lock implementations are not guaranteed to have identity based equality
+      held = new IdentityHashMap<>();
+      holds.set(held);
+    }
+
+    final Map<HoldKey, Integer> counts = held.computeIfAbsent(lock, l -> new HashMap<>());
+    keys.forEach(key -> counts.merge(new HoldKey(storeId, key), 1, Integer::sum));
+  }
+
+  /**
+   * Exit the given keys once, forgetting the ones that are no longer held by the current thread.
+   */
+  void exit(final Lock lock, final String storeId, final List<String> keys) {
+    final Map<Lock, Map<HoldKey, Integer>> held = holds.get();
+    final Map<HoldKey, Integer> counts = held == null ? null : held.get(lock);
+    if (counts == null) {
+      return;
+    }
+
+    keys.forEach(key -> counts.computeIfPresent(new HoldKey(storeId, key), (holdKey, count) -> count == 1 ? null : count - 1));
+    if (counts.isEmpty()) {
+      held.remove(lock);
+    }
+    if (held.isEmpty()) {
+      // do not keep the map around on pooled threads
+      holds.remove();
+    }
+  }
+
+  @Data
+  private static class HoldKey {
+    private final String storeId;
+    private final String key;
+  }
+}
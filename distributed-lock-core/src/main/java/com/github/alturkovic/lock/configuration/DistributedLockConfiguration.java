@@ -24,15 +24,30 @@
 
 package com.github.alturkovic.lock.configuration;
 
+import com.github.alturkovic.lock.advice.BeanFactoryLockTypeResolver;
 import com.github.alturkovic.lock.advice.LockBeanPostProcessor;
 import com.github.alturkovic.lock.advice.LockTypeResolver;
 import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
 import com.github.alturkovic.lock.interval.IntervalConverter;
 import com.github.alturkovic.lock.key.KeyGenerator;
 import com.github.alturkovic.lock.key.SpelKeyGenerator;
+import com.github.alturkovic.lock.local.KeyedLocalLockGate;
+import com.github.alturkovic.lock.local.LocalLockGate;
+import com.github.alturkovic.lock.local.NoOpLocalLockGate;
+import com.github.alturkovic.lock.refresh.LockRefreshScheduler;
+import com.github.alturkovic.lock.refresh.TimingWheelLockRefreshScheduler;
 import com.github.alturkovic.lock.retry.DefaultRetriableLockFactory;
 import com.github.alturkovic.lock.retry.DefaultRetryTemplateConverter;
 import com.github.alturkovic.lock.retry.RetriableLockFactory;
+import com.github.alturkovic.lock.store.LockStoreInitializer;
+import com.github.alturkovic.lock.store.LockStoreProvisioner;
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import com.github.alturkovic.lock.token.SequenceTokenSupplier;
+import com.github.alturkovic.lock.token.TokenSupplier;
+import com.github.alturkovic.lock.token.UuidTokenSupplier;
+import java.util.concurrent.ThreadFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -55,8 +70,9 @@ public class DistributedLockConfiguration {
                                                             @Lazy final LockTypeResolver lockTypeResolver,
                                                             @Lazy final IntervalConverter intervalConverter,
                                                             @Lazy final RetriableLockFactory retriableLockFactory,
-                                                            @Lazy @Autowired(required = false) final TaskScheduler distributedLockTaskScheduler) {
-    final LockBeanPostProcessor processor = new LockBeanPostProcessor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, distributedLockTaskScheduler);
+                                                            @Lazy final LockRefreshScheduler lockRefreshScheduler,
+                                                            @Lazy final LocalLockGate localLockGate) {
+    final LockBeanPostProcessor processor = new LockBeanPostProcessor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, lockRefreshScheduler, localLockGate);
     processor.setBeforeExistingAdvisors(true);
     return processor;
   }
@@ -73,6 +89,51 @@ public class DistributedLockConfiguration {
     return new DefaultRetriableLockFactory(new DefaultRetryTemplateConverter(intervalConverter));
   }
 
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.virtual-threads", name = "enabled", havingValue = "false", matchIfMissing = true)
+  public LockRefreshScheduler lockRefreshScheduler(@Lazy @Autowired(required = false) final TaskScheduler distributedLockTaskScheduler) {
+    return new TimingWheelLockRefreshScheduler(distributedLockTaskScheduler);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.virtual-threads", name = "enabled", havingValue = "true")
+  public LockRefreshScheduler virtualThreadLockRefreshScheduler(@Lazy @Autowired(required = false) final TaskScheduler distributedLockTaskScheduler) {
+    // the wheel only dispatches refreshes, every refresh waits for the store on its own virtual thread
+    final ThreadFactory refreshThreadFactory = Thread.ofVirtual().name("distributed-lock-refresh-", 0).factory();
+    return new TimingWheelLockRefreshScheduler(distributedLockTaskScheduler, task -> refreshThreadFactory.newThread(task).start(),
+      TimingWheelLockRefreshScheduler.DEFAULT_TICK_DURATION, TimingWheelLockRefreshScheduler.DEFAULT_WHEEL_SIZE, TimingWheelLockRefreshScheduler.DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.local-gate", name = "enabled", havingValue = "true")
+  public LocalLockGate keyedLocalLockGate() {
+    return new KeyedLocalLockGate();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.local-gate", name = "enabled", havingValue = "false", matchIfMissing = true)
+  public LocalLockGate noOpLocalLockGate() {
+    return new NoOpLocalLockGate();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.token", name = "type", havingValue = "sequence", matchIfMissing = true)
+  public TokenSupplier sequenceTokenSupplier() {
+    return new SequenceTokenSupplier();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.token", name = "type", havingValue = "uuid")
+  public TokenSupplier uuidTokenSupplier() {
+    return new UuidTokenSupplier();
+  }
+
   @Bean
   @ConditionalOnMissingBean
   public KeyGenerator spelKeyGenerator(@Lazy @Autowired(required = false) final ConversionService conversionService) {
@@ -85,7 +146,43 @@ public class DistributedLockConfiguration {
   @Bean
   @ConditionalOnMissingBean
   public LockTypeResolver lockTypeResolver(@Lazy final ConfigurableBeanFactory configurableBeanFactory) {
-    return configurableBeanFactory::getBean;
+    return new BeanFactoryLockTypeResolver(configurableBeanFactory);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public LockStoreInitializer lockStoreInitializer(final ListableBeanFactory listableBeanFactory,
+                                                   @Lazy final LockTypeResolver lockTypeResolver,
+                                                   final ObjectProvider<LockStoreProvisioner> lockStoreProvisioners) {
+    return new LockStoreInitializer(listableBeanFactory, lockTypeResolver, lockStoreProvisioners.orderedStream().toList());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.store", name = "provisioning", havingValue = "none")
+  public LockStoreProvisioning noneLockStoreProvisioning() {
+    return LockStoreProvisioning.NONE;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.store", name = "provisioning", havingValue = "warn", matchIfMissing = true)
+  public LockStoreProvisioning warnLockStoreProvisioning() {
+    return LockStoreProvisioning.WARN;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.store", name = "provisioning", havingValue = "validate")
+  public LockStoreProvisioning validateLockStoreProvisioning() {
+    return LockStoreProvisioning.VALIDATE;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.store", name = "provisioning", havingValue = "create")
+  public LockStoreProvisioning createLockStoreProvisioning() {
+    return LockStoreProvisioning.CREATE;
   }
 
   @Bean
@@ -28,4 +28,8 @@ public class EvaluationConvertException extends DistributedLockException {
   public EvaluationConvertException(final String msg) {
     super(msg);
   }
+
+  public EvaluationConvertException(final String msg, final Throwable e) {
+    super(msg, e);
+  }
 }
@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.key;
+
+import com.github.alturkovic.lock.exception.EvaluationConvertException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link KeyExpression} reading a property of an argument, like {@code #p0.id}, through its public getter, record
+ * component accessor or public field.
+ * <p>
+ * Arguments of types without a publicly accessible property are evaluated by the {@code fallback} expression.
+ */
+@RequiredArgsConstructor
+class ArgumentPropertyKeyExpression implements KeyExpression {
+  private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private final Map<Class<?>, Optional<MethodHandle>> accessors = new ConcurrentHashMap<>();
+
+  private final int index;
+  private final String property;
+  private final KeyExpression fallback;
+
+  @Override
+  public Object evaluate(final Object object, final Object[] args) {
+    final Object argument = args[index];
+    if (argument == null) {
+      return fallback.evaluate(object, args);
+    }
+
+    // plain reads never lock, computeIfAbsent may synchronize on the map and pin virtual threads
+    Optional<MethodHandle> accessor = accessors.get(argument.getClass());
+    if (accessor == null) {
+      accessor = accessors.computeIfAbsent(argument.getClass(), this::findAccessor);
+    }
+    if (accessor.isEmpty()) {
+      return fallback.evaluate(object, args);
+    }
+
+    try {
+      return accessor.get().invokeExact(argument);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new EvaluationConvertException("Cannot read property " + property + " of " + argument.getClass().getName(), e);
+    }
+  }
+
+  private Optional<MethodHandle> findAccessor(final Class<?> type) {
+    try {
+      final Method getter = findGetter(type);
+      if (getter != null) {
+        return Optional.of(MethodHandles.publicLookup().unreflect(getter).asType(ACCESSOR_TYPE));
+      }
+
+      final Field field = type.getField(property);
+      if (Modifier.isStatic(field.getModifiers())) {
+        return Optional.empty();
+      }
+      return Optional.of(MethodHandles.publicLookup().unreflectGetter(field).asType(ACCESSOR_TYPE));
+    } catch (final NoSuchFieldException | IllegalAccessException e) {
+      return Optional.empty();
+    }
+  }
+
+  private Method findGetter(final Class<?> type) {
+    final String capitalized = StringUtils.capitalize(property);
+    final Method getter = findMethod(type, "get" + capitalized);
+    if (getter != null) {
+      return getter;
+    }
+
+    final Method booleanGetter = findMethod(type, "is" + capitalized);
+    if (booleanGetter != null && (booleanGetter.getReturnType() == boolean.class || booleanGetter.getReturnType() == Boolean.class)) {
+      return booleanGetter;
+    }
+
+    return type.isRecord() ? findMethod(type, property) : null;
+  }
+
+  private static Method findMethod(final Class<?> type, final String name) {
+    try {
+      final Method method = type.getMethod(name);
+      return Modifier.isStatic(method.getModifiers()) || method.getReturnType() == void.class ? null : method;
+    } catch (final NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
@@ -26,13 +26,15 @@ package com.github.alturkovic.lock.key;
 
 import com.github.alturkovic.lock.exception.EvaluationConvertException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.context.expression.AnnotatedElementKey;
@@ -42,29 +44,62 @@ import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+/**
+ * {@link KeyGenerator} evaluating SpEL expressions.
+ * <p>
+ * Expressions are prepared once per method and target class. The default {@code #executionPath} and simple argument
+ * expressions like {@code #p0}, {@code #name} or {@code #p0.id} are resolved directly from the arguments without SpEL,
+ * all other expressions are evaluated by SpEL in the given {@link SpelCompilerMode}.
+ */
 @Data
 @EqualsAndHashCode(callSuper = false)
 public class SpelKeyGenerator extends CachedExpressionEvaluator implements KeyGenerator {
+  private static final String EXECUTION_PATH = "executionPath";
+  private static final Pattern SIMPLE_EXPRESSION = Pattern.compile("#(\\w+)(?:\\.(\\w+))?");
+
   private final Map<ExpressionKey, Expression> conditionCache = new ConcurrentHashMap<>();
+  private final Map<KeyExpressionKey, KeyExpression> keyExpressionCache = new ConcurrentHashMap<>();
   private final ConversionService conversionService;
 
+  public SpelKeyGenerator(final ConversionService conversionService) {
+    this(conversionService, SpelCompilerMode.MIXED);
+  }
+
+  public SpelKeyGenerator(final ConversionService conversionService, final SpelCompilerMode compilerMode) {
+    super(new SpelExpressionParser(new SpelParserConfiguration(compilerMode, null)));
+    this.conversionService = conversionService;
+  }
+
   @Override
   public List<String> resolveKeys(final String lockKeyPrefix, final String expression, final Object object, final Method method, final Object[] args) {
     final Object expressionValue = evaluateExpression(expression, object, method, args);
     final List<String> keys = convertResultToList(expressionValue);
 
-    if (keys.stream().anyMatch(Objects::isNull)) {
-      throw new EvaluationConvertException("null keys are not supported: " + keys);
+    for (final String key : keys) {
+      if (key == null) {
+        throw new EvaluationConvertException("null keys are not supported: " + keys);
+      }
     }
 
     if (!StringUtils.hasText(lockKeyPrefix)) {
       return keys;
     }
 
-    return keys.stream().map(key -> lockKeyPrefix + key).collect(Collectors.toList());
+    if (keys.size() == 1) {
+      return Collections.singletonList(lockKeyPrefix + keys.getFirst());
+    }
+
+    final List<String> prefixedKeys = new ArrayList<>(keys.size());
+    for (final String key : keys) {
+      prefixedKeys.add(lockKeyPrefix + key);
+    }
+    return prefixedKeys;
   }
 
   protected List<String> convertResultToList(final Object expressionValue) {
@@ -85,11 +120,13 @@ public class SpelKeyGenerator extends CachedExpressionEvaluator implements KeyGe
   }
 
   private Object evaluateExpression(final String expression, final Object object, final Method method, final Object[] args) {
-    final EvaluationContext context = new MethodBasedEvaluationContext(object, method, args, super.getParameterNameDiscoverer());
-    context.setVariable("executionPath", object.getClass().getCanonicalName() + "." + method.getName());
-
-    final Expression evaluatedExpression = getExpression(this.conditionCache, new AnnotatedElementKey(method, object.getClass()), expression);
-    final Object expressionValue = evaluatedExpression.getValue(context);
+    final KeyExpressionKey key = new KeyExpressionKey(method, object.getClass(), expression);
+    // plain reads never lock, computeIfAbsent may synchronize on the map and pin virtual threads
+    KeyExpression keyExpression = keyExpressionCache.get(key);
+    if (keyExpression == null) {
+      keyExpression = keyExpressionCache.computeIfAbsent(key, this::createKeyExpression);
+    }
+    final Object expressionValue = keyExpression.evaluate(object, args);
     if (expressionValue == null) {
       throw new EvaluationConvertException("Expression evaluated in a null");
     }
@@ -97,6 +134,60 @@ public class SpelKeyGenerator extends CachedExpressionEvaluator implements KeyGe
     return expressionValue;
   }
 
+  private KeyExpression createKeyExpression(final KeyExpressionKey key) {
+    final Method method = key.getMethod();
+    final String executionPath = key.getTargetClass().getCanonicalName() + "." + method.getName();
+    final KeyExpression spelExpression = createSpelExpression(key, executionPath);
+
+    final Matcher matcher = SIMPLE_EXPRESSION.matcher(key.getExpression().strip());
+    if (!matcher.matches() || method.isVarArgs()) {
+      return spelExpression;
+    }
+
+    final String variable = matcher.group(1);
+    final String property = matcher.group(2);
+    if (EXECUTION_PATH.equals(variable)) {
+      return property == null ? (object, args) -> executionPath : spelExpression;
+    }
+
+    final Integer argumentIndex = resolveArgumentIndexes(method).get(variable);
+    if (argumentIndex == null) {
+      return spelExpression;
+    }
+
+    final int index = argumentIndex;
+    if (property == null) {
+      return (object, args) -> index < args.length ? args[index] : null;
+    }
+    return new ArgumentPropertyKeyExpression(index, property, spelExpression);
+  }
+
+  private KeyExpression createSpelExpression(final KeyExpressionKey key, final String executionPath) {
+    final Expression expression = getExpression(this.conditionCache, new AnnotatedElementKey(key.getMethod(), key.getTargetClass()), key.getExpression());
+    return (object, args) -> {
+      final EvaluationContext context = new MethodBasedEvaluationContext(object, key.getMethod(), args, super.getParameterNameDiscoverer());
+      context.setVariable(EXECUTION_PATH, executionPath);
+      return expression.getValue(context);
+    };
+  }
+
+  /**
+   * Argument variables in the same order {@link MethodBasedEvaluationContext} registers them, so conflicting names
+   * resolve to the same argument as in SpEL.
+   */
+  private Map<String, Integer> resolveArgumentIndexes(final Method method) {
+    final Map<String, Integer> indexes = new HashMap<>();
+    final String[] parameterNames = super.getParameterNameDiscoverer().getParameterNames(method);
+    for (int i = 0; i < method.getParameterCount(); i++) {
+      indexes.put("a" + i, i);
+      indexes.put("p" + i, i);
+      if (parameterNames != null && parameterNames[i] != null) {
+        indexes.put(parameterNames[i], i);
+      }
+    }
+    return indexes;
+  }
+
   private List<String> iterableToList(final Object expressionValue) {
     final TypeDescriptor genericCollection = TypeDescriptor.collection(Collection.class, TypeDescriptor.valueOf(Object.class));
     return toList(expressionValue, genericCollection);
@@ -112,4 +203,11 @@ public class SpelKeyGenerator extends CachedExpressionEvaluator implements KeyGe
     //noinspection unchecked
     return (List<String>) conversionService.convert(expressionValue, from, listTypeDescriptor);
   }
+
+  @Data
+  private static class KeyExpressionKey {
+    private final Method method;
+    private final Class<?> targetClass;
+    private final String expression;
+  }
 }
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.local;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link LocalLockGate} with a fair gate per (store id, key) pair, threads waiting for the same key take turns
+ * in the order they arrived.
+ * <p>
+ * Keys are entered in their natural order so that threads entering overlapping keys cannot deadlock.
+ * Gates are created on demand and removed once no thread holds or waits for them.
+ */
+public class KeyedLocalLockGate implements LocalLockGate {
+  private final Map<GateKey, Gate> gates = new ConcurrentHashMap<>();
+
+  @Override
+  public Permit enter(final List<String> keys, final String storeId, final long timeout) throws InterruptedException {
+    final List<GateKey> gateKeys = keys.stream().sorted().distinct().map(key -> new GateKey(storeId, key)).toList();
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+    final List<Gate> entered = new ArrayList<>(gateKeys.size());
+    try {
+      for (final GateKey gateKey : gateKeys) {
+        final Gate gate = retain(gateKey);
+
+        final boolean acquired;
+        try {
+          acquired = timeout <= 0
+            ? gate.semaphore.tryAcquire()
+            : gate.semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+          unretain(gate);
+          throw e;
+        }
+
+        if (!acquired) {
+          unretain(gate);
+          leave(entered);
+          return null;
+        }
+
+        entered.add(gate);
+      }
+    } catch (final InterruptedException | RuntimeException e) {
+      leave(entered);
+      throw e;
+    }
+
+    final AtomicBoolean released = new AtomicBoolean();
+    return () -> {
+      if (released.compareAndSet(false, true)) {
+        leave(entered);
+      }
+    };
+  }
+
+  /**
+   * @return number of gates currently held or waited for
+   */
+  public int getGateCount() {
+    return gates.size();
+  }
+
+  private Gate retain(final GateKey gateKey) {
+    while (true) {
+      final Gate gate = gates.get(gateKey);
+      if (gate == null) {
+        final Gate created = new Gate(gateKey);
+        final Gate existing = gates.putIfAbsent(gateKey, created);
+        if (existing == null) {
+          return created;
+        }
+        if (existing.retain()) {
+          return existing;
+        }
+        gates.remove(gateKey, existing);
+      } else if (gate.retain()) {
+        return gate;
+      } else {
+        // the last reference was just dropped, so the gate is removed and replaced by a new one
+        gates.remove(gateKey, gate);
+      }
+    }
+  }
+
+  private void unretain(final Gate gate) {
+    if (gate.references.decrementAndGet() == 0) {
+      gates.remove(gate.key, gate);
+    }
+  }
+
+  private void leave(final List<Gate> entered) {
+    for (final Gate gate : entered) {
+      gate.semaphore.release();
+      unretain(gate);
+    }
+  }
+
+  @Data
+  private static class GateKey {
+    private final String storeId;
+    private final String key;
+  }
+
+  @RequiredArgsConstructor
+  private static class Gate {
+    private final GateKey key;
+    private final Semaphore semaphore = new Semaphore(1, true);
+
+    // a gate is never retained again once no thread references it, so it can be removed without holding the map entry
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private boolean retain() {
+      int current;
+      do {
+        current = references.get();
+        if (current == 0) {
+          return false;
+        }
+      } while (!references.compareAndSet(current, current + 1));
+      return true;
+    }
+  }
+}
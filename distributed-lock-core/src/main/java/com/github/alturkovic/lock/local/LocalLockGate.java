@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.local;
+
+import java.util.List;
+
+/**
+ * Gate in front of the remote lock store that lets only one thread per JVM contend for the same keys remotely.
+ * Other threads wait for their turn locally instead of repeatedly trying to acquire the remote lock.
+ */
+public interface LocalLockGate {
+
+  /**
+   * Wait until the calling thread is the only one in this JVM passing through the gate for the given keys.
+   *
+   * @param keys    keys to enter the gate for
+   * @param storeId lock store id the keys are held in (table, collection, ...)
+   * @param timeout how long to wait for the turn, in millis, non-positive values do not wait at all
+   * @return permit that must be released once the remote lock is released or {@code null} if the turn did not come in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  Permit enter(List<String> keys, String storeId, long timeout) throws InterruptedException;
+
+  /**
+   * Turn to hold the gate, passed on to the next waiting thread when released.
+   */
+  interface Permit {
+
+    /**
+     * Leave the gate, releasing an already released permit does nothing.
+     */
+    void release();
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.refresh;
+
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.Lock;
+
+/**
+ * Scheduler which periodically refreshes held leases so that long-running tasks can keep their locks.
+ */
+public interface LockRefreshScheduler {
+
+  /**
+   * Start refreshing the given {@code lease} every {@code refresh} millis until the returned handle is cancelled.
+   *
+   * @param lock    lock that acquired the lease
+   * @param lease   lease to refresh
+   * @param refresh how often to refresh the lease, in millis
+   * @return handle used to stop refreshing the lease
+   */
+  RefreshHandle schedule(Lock lock, Lease lease, long refresh);
+}
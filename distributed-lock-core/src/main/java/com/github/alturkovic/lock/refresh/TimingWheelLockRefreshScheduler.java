@@ -0,0 +1,394 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.refresh;
+
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.Lock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * {@link LockRefreshScheduler} backed by a hashed timing wheel.
+ *
+ * All held leases share a single periodic task on the given {@link TaskScheduler} that advances the wheel every tick and
+ * fires the refreshes of all leases that fell into the expired bucket. Registering and cancelling a lease is O(1) and never
+ * touches the underlying scheduler, cancelled leases are dropped lazily when the wheel reaches their bucket.
+ *
+ * Leases that are due in the same tick and held by the same {@link BatchRefreshingLock} in the same store are refreshed together
+ * in a single call, in batches of at most {@code maxBatchSize} leases.
+ */
+@Slf4j
+public class TimingWheelLockRefreshScheduler implements LockRefreshScheduler, DisposableBean {
+  public static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+  public static final int DEFAULT_WHEEL_SIZE = 512;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+  public static final int DEFAULT_REFRESH_THREADS = 4;
+  public static final int DEFAULT_REFRESH_QUEUE_CAPACITY = 1024;
+
+  private final TaskScheduler taskScheduler;
+  private final Executor executor;
+  private final ExecutorService ownedExecutor;
+  private final long tickNanos;
+  private final int mask;
+  private final int maxBatchSize;
+
+  private final Queue<Entry>[] wheel;
+  private final Queue<Entry> registrations = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private final AtomicLong lastRenewalLag = new AtomicLong();
+  private final AtomicLong maxRenewalLag = new AtomicLong();
+
+  private final ReentrantLock startLock = new ReentrantLock();
+  private volatile ScheduledFuture<?> ticker;
+  private volatile long startTime;
+  private long currentTick;
+
+  /**
+   * Create a wheel that runs the refreshes on its own bounded pool of {@value #DEFAULT_REFRESH_THREADS} threads,
+   * so a slow store call never delays the thread that advances the wheel. The pool is shut down with the wheel.
+   *
+   * @param taskScheduler scheduler used to advance the wheel
+   */
+  public TimingWheelLockRefreshScheduler(final TaskScheduler taskScheduler) {
+    this(taskScheduler, createRefreshExecutor(), DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE, DEFAULT_MAX_BATCH_SIZE, true);
+  }
+
+  /**
+   * @param taskScheduler scheduler used to advance the wheel
+   * @param executor      executor used to run the refreshes
+   * @param tickDuration  duration of a single tick, refreshes can be late for at most this duration
+   * @param wheelSize     number of buckets in the wheel, rounded up to a power of two
+   * @param maxBatchSize  maximum number of leases refreshed by a single {@link BatchRefreshingLock#refresh(String, List)} call
+   */
+  public TimingWheelLockRefreshScheduler(final TaskScheduler taskScheduler, final Executor executor, final Duration tickDuration, final int wheelSize, final int maxBatchSize) {
+    this(taskScheduler, executor, tickDuration, wheelSize, maxBatchSize, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  private TimingWheelLockRefreshScheduler(final TaskScheduler taskScheduler, final Executor executor, final Duration tickDuration, final int wheelSize, final int maxBatchSize,
+                                          final boolean ownsExecutor) {
+    Assert.isTrue(!tickDuration.isNegative() && !tickDuration.isZero(), "Tick duration must be positive");
+    Assert.isTrue(wheelSize > 0 && wheelSize <= 1 << 30, "Wheel size must be positive and at most 2^30");
+    Assert.isTrue(maxBatchSize > 0, "Max batch size must be positive");
+
+    this.taskScheduler = taskScheduler;
+    this.executor = executor;
+    this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+    this.tickNanos = tickDuration.toNanos();
+    this.maxBatchSize = maxBatchSize;
+
+    final int normalizedWheelSize = normalizeWheelSize(wheelSize);
+    this.mask = normalizedWheelSize - 1;
+    this.wheel = new Queue[normalizedWheelSize];
+    for (int i = 0; i < normalizedWheelSize; i++) {
+      wheel[i] = new ArrayDeque<>();
+    }
+  }
+
+  @Override
+  public RefreshHandle schedule(final Lock lock, final Lease lease, final long refresh) {
+    Assert.isTrue(refresh > 0, "Refresh interval must be positive");
+    ensureStarted();
+
+    final long period = Duration.ofMillis(refresh).toNanos();
+    final Entry entry = new Entry(lock, lease, period, System.nanoTime() - startTime + period);
+    queueDepth.incrementAndGet();
+    registrations.add(entry);
+    return entry;
+  }
+
+  /**
+   * @return number of leases that are currently being refreshed
+   */
+  public int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /**
+   * @return how late the most recent refresh started compared to when it was due
+   */
+  public Duration getLastRenewalLag() {
+    return Duration.ofNanos(lastRenewalLag.get());
+  }
+
+  /**
+   * @return how late the latest refresh so far started compared to when it was due
+   */
+  public Duration getMaxRenewalLag() {
+    return Duration.ofNanos(maxRenewalLag.get());
+  }
+
+  @Override
+  public void destroy() {
+    final ScheduledFuture<?> scheduledTicker = this.ticker;
+    if (scheduledTicker != null) {
+      scheduledTicker.cancel(false);
+    }
+
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+
+  private void ensureStarted() {
+    if (ticker != null) {
+      return;
+    }
+
+    startLock.lock();
+    try {
+      if (ticker == null) {
+        startTime = System.nanoTime();
+        ticker = taskScheduler.scheduleAtFixedRate(this::tick, Duration.ofNanos(tickNanos));
+      }
+    } finally {
+      startLock.unlock();
+    }
+  }
+
+  // executions of a fixed-rate task never overlap so the wheel itself is confined to a single thread at a time
+  private void tick() {
+    try {
+      final long elapsed = System.nanoTime() - startTime;
+      transferRegistrations();
+
+      final List<Entry> due = new ArrayList<>();
+      final long targetTick = elapsed / tickNanos;
+      while (currentTick <= targetTick) {
+        expireBucket(wheel[(int) (currentTick & mask)], due);
+        currentTick++;
+      }
+
+      fire(due);
+      for (final Entry entry : due) {
+        entry.deadline = Math.max(entry.deadline + entry.period, elapsed + tickNanos);
+        place(entry);
+      }
+    } catch (final RuntimeException e) {
+      // an exception would stop all future ticks, so it must never escape the ticker
+      log.error("Unexpected error while advancing the lock refresh wheel", e);
+    }
+  }
+
+  private void transferRegistrations() {
+    Entry entry;
+    while ((entry = registrations.poll()) != null) {
+      if (!entry.isCancelled()) {
+        place(entry);
+      }
+    }
+  }
+
+  private void place(final Entry entry) {
+    final long deadlineTick = Math.max((entry.deadline + tickNanos - 1) / tickNanos, currentTick);
+    entry.remainingRounds = (deadlineTick - currentTick) / wheel.length;
+    wheel[(int) (deadlineTick & mask)].add(entry);
+  }
+
+  private void expireBucket(final Queue<Entry> bucket, final List<Entry> due) {
+    final Iterator<Entry> iterator = bucket.iterator();
+    while (iterator.hasNext()) {
+      final Entry entry = iterator.next();
+      if (entry.isCancelled()) {
+        iterator.remove();
+      } else if (entry.remainingRounds > 0) {
+        entry.remainingRounds--;
+      } else {
+        iterator.remove();
+        due.add(entry);
+      }
+    }
+  }
+
+  private void fire(final List<Entry> due) {
+    final Map<Lock, Map<String, List<Entry>>> batches = new LinkedHashMap<>();
+    for (final Entry entry : due) {
+      if (!entry.running.compareAndSet(false, true)) {
+        log.debug("Skipping refresh of {} since the previous refresh is still running", entry.lease);
+        continue;
+      }
+
+      batches.computeIfAbsent(entry.lock, lock -> new LinkedHashMap<>())
+        .computeIfAbsent(entry.lease.getStoreId(), storeId -> new ArrayList<>())
+        .add(entry);
+    }
+
+    batches.forEach((lock, batchesByStore) -> batchesByStore.forEach((storeId, entries) -> {
+      if (entries.size() > 1 && lock instanceof BatchRefreshingLock batchRefreshingLock) {
+        for (int from = 0; from < entries.size(); from += maxBatchSize) {
+          final List<Entry> batch = entries.subList(from, Math.min(from + maxBatchSize, entries.size()));
+          submit(batch, () -> renew(batchRefreshingLock, storeId, batch));
+        }
+      } else {
+        entries.forEach(entry -> submit(Collections.singletonList(entry), () -> renew(entry)));
+      }
+    }));
+  }
+
+  private void submit(final List<Entry> entries, final Runnable renewal) {
+    final long deadline = entries.stream().mapToLong(entry -> entry.deadline).min().orElseThrow();
+    try {
+      executor.execute(() -> {
+        try {
+          recordLag(System.nanoTime() - startTime - deadline);
+          renewal.run();
+        } finally {
+          entries.forEach(entry -> entry.running.set(false));
+        }
+      });
+    } catch (final RuntimeException e) {
+      entries.forEach(entry -> entry.running.set(false));
+      log.error("Cannot submit refresh of {} leases", entries.size(), e);
+    }
+  }
+
+  private void renew(final Entry entry) {
+    if (entry.isCancelled()) {
+      return;
+    }
+
+    final Lease lease = entry.lease;
+    try {
+      final boolean refreshed = entry.lock.refresh(lease.getKeys(), lease.getStoreId(), lease.getToken(), lease.getExpiration());
+      if (!refreshed && !entry.isCancelled()) {
+        entry.lose();
+      }
+    } catch (final RuntimeException e) {
+      // the lease might still be held, keep refreshing it and hope the problem is transient
+      log.error("Failed to refresh {}", lease, e);
+    }
+  }
+
+  private void renew(final BatchRefreshingLock lock, final String storeId, final List<Entry> batch) {
+    final List<Entry> active = batch.stream().filter(entry -> !entry.isCancelled()).toList();
+    if (active.isEmpty()) {
+      return;
+    }
+
+    try {
+      final Set<Lease> lost = new HashSet<>(lock.refresh(storeId, active.stream().map(entry -> entry.lease).toList()));
+      log.debug("Refreshed {} leases in store {}, lost {}", active.size(), storeId, lost.size());
+      active.stream()
+        .filter(entry -> lost.contains(entry.lease) && !entry.isCancelled())
+        .forEach(Entry::lose);
+    } catch (final RuntimeException e) {
+      // the leases might still be held, keep refreshing them and hope the problem is transient
+      log.error("Failed to refresh {} leases in store {}", active.size(), storeId, e);
+    }
+  }
+
+  private static ExecutorService createRefreshExecutor() {
+    final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("distributed-lock-refresh-");
+    threadFactory.setDaemon(true);
+
+    // a full queue rejects the refresh, the lease is retried on its next period instead of piling up behind a stuck store
+    final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(DEFAULT_REFRESH_THREADS, DEFAULT_REFRESH_THREADS, 60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(DEFAULT_REFRESH_QUEUE_CAPACITY), threadFactory);
+    refreshExecutor.allowCoreThreadTimeOut(true);
+    return refreshExecutor;
+  }
+
+  private static int normalizeWheelSize(final int wheelSize) {
+    int normalized = 1;
+    while (normalized < wheelSize) {
+      normalized <<= 1;
+    }
+    return normalized;
+  }
+
+  private void recordLag(final long lag) {
+    final long positiveLag = Math.max(lag, 0);
+    lastRenewalLag.set(positiveLag);
+    maxRenewalLag.accumulateAndGet(positiveLag, Math::max);
+  }
+
+  private class Entry implements RefreshHandle {
+    private final Lock lock;
+    private final Lease lease;
+    private final long period;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean lost;
+    private long deadline;
+    private long remainingRounds;
+
+    private Entry(final Lock lock, final Lease lease, final long period, final long deadline) {
+      this.lock = lock;
+      this.lease = lease;
+      this.period = period;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled.compareAndSet(false, true)) {
+        queueDepth.decrementAndGet();
+      }
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled.get();
+    }
+
+    @Override
+    public boolean isLost() {
+      return lost;
+    }
+
+    private void lose() {
+      lost = true;
+      log.warn("Lost {}, it will no longer be refreshed", lease);
+      cancel();
+    }
+  }
+}
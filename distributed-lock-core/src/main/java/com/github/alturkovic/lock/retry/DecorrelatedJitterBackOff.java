@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import lombok.Data;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+/**
+ * {@link BackOff} counterpart of {@link DecorrelatedJitterBackOffPolicy} that only computes the periods to wait,
+ * leaving the waiting itself to the caller.
+ */
+@Data
+public class DecorrelatedJitterBackOff implements BackOff {
+  private long initialInterval = 100;
+  private double multiplier = 3;
+  private long maxInterval = 30000;
+
+  @Override
+  public BackOffExecution start() {
+    return new BackOffExecution() {
+      private long previousPeriod = initialInterval;
+
+      @Override
+      public long nextBackOff() {
+        previousPeriod = DecorrelatedJitterBackOffPolicy.nextPeriod(initialInterval, multiplier, maxInterval, previousPeriod);
+        return previousPeriod;
+      }
+    };
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Data;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+
+/**
+ * {@link BackOffPolicy} that waits for a random period between the {@link #initialInterval} and the previous period
+ * multiplied by the {@link #multiplier}, capped by the {@link #maxInterval}. Unlike exponential back off, waiters
+ * that started retrying at the same time quickly drift apart instead of retrying in synchronized waves.
+ */
+@Data
+public class DecorrelatedJitterBackOffPolicy implements BackOffPolicy {
+  private long initialInterval = 100;
+  private double multiplier = 3;
+  private long maxInterval = 30000;
+  private Sleeper sleeper = new ThreadWaitSleeper();
+
+  @Override
+  public BackOffContext start(final RetryContext context) {
+    return new DecorrelatedJitterBackOffContext(initialInterval);
+  }
+
+  @Override
+  public void backOff(final BackOffContext backOffContext) {
+    final DecorrelatedJitterBackOffContext context = (DecorrelatedJitterBackOffContext) backOffContext;
+    final long period = nextPeriod(initialInterval, multiplier, maxInterval, context.getPreviousPeriod());
+    context.setPreviousPeriod(period);
+
+    try {
+      sleeper.sleep(period);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BackOffInterruptedException("Thread interrupted while sleeping", e);
+    }
+  }
+
+  static long nextPeriod(final long initialInterval, final double multiplier, final long maxInterval, final long previousPeriod) {
+    final long upperBound = (long) Math.min(maxInterval, previousPeriod * multiplier);
+    if (upperBound <= initialInterval) {
+      return Math.min(initialInterval, maxInterval);
+    }
+    return ThreadLocalRandom.current().nextLong(initialInterval, upperBound + 1);
+  }
+
+  @Data
+  private static class DecorrelatedJitterBackOffContext implements BackOffContext {
+    private long previousPeriod;
+
+    private DecorrelatedJitterBackOffContext(final long previousPeriod) {
+      this.previousPeriod = previousPeriod;
+    }
+  }
+}
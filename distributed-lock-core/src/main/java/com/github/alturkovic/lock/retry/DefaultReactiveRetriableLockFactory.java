@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import com.github.alturkovic.lock.Backoff;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.ReactiveLock;
+import com.github.alturkovic.lock.interval.IntervalConverter;
+import lombok.Data;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Resolves the same retry strategy from {@link Locked} as {@link DefaultRetryTemplateConverter}, but as a {@link BackOff}
+ * whose delays are scheduled by {@link ReactiveRetriableLock} instead of sleeping.
+ */
+@Data
+public class DefaultReactiveRetriableLockFactory implements ReactiveRetriableLockFactory {
+  private final IntervalConverter intervalConverter;
+
+  @Override
+  public ReactiveLock generate(final ReactiveLock lock, final Locked locked) {
+    final long timeout = intervalConverter.toMillis(locked.timeout());
+    final long retry = intervalConverter.toMillis(locked.retry());
+    if (timeout <= 0 || retry <= 0) {
+      return lock;
+    }
+
+    return new ReactiveRetriableLock(lock, resolveBackOff(locked, retry), timeout);
+  }
+
+  private BackOff resolveBackOff(final Locked locked, final long retry) {
+    final Backoff backoff = locked.backoff();
+    return switch (backoff.strategy()) {
+      case FIXED -> new FixedBackOff(retry, FixedBackOff.UNLIMITED_ATTEMPTS);
+      case EXPONENTIAL -> resolveExponentialBackOff(retry, backoff.multiplier(), resolveMaxInterval(locked));
+      case DECORRELATED_JITTER -> resolveDecorrelatedJitterBackOff(retry, backoff.multiplier(), resolveMaxInterval(locked));
+    };
+  }
+
+  private BackOff resolveExponentialBackOff(final long retry, final double multiplier, final long maxInterval) {
+    final ExponentialBackOff exponentialBackOff = new ExponentialBackOff(retry, multiplier);
+    exponentialBackOff.setMaxInterval(maxInterval);
+    return exponentialBackOff;
+  }
+
+  private BackOff resolveDecorrelatedJitterBackOff(final long retry, final double multiplier, final long maxInterval) {
+    final DecorrelatedJitterBackOff decorrelatedJitterBackOff = new DecorrelatedJitterBackOff();
+    decorrelatedJitterBackOff.setInitialInterval(retry);
+    decorrelatedJitterBackOff.setMultiplier(multiplier);
+    decorrelatedJitterBackOff.setMaxInterval(maxInterval);
+    return decorrelatedJitterBackOff;
+  }
+
+  private long resolveMaxInterval(final Locked locked) {
+    final long maxInterval = intervalConverter.toMillis(locked.backoff().maxInterval());
+    return maxInterval > 0 ? maxInterval : intervalConverter.toMillis(locked.timeout());
+  }
+}
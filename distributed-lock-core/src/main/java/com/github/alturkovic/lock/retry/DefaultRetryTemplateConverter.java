@@ -24,6 +24,7 @@
 
 package com.github.alturkovic.lock.retry;
 
+import com.github.alturkovic.lock.Backoff;
 import com.github.alturkovic.lock.Locked;
 import com.github.alturkovic.lock.exception.LockNotAvailableException;
 import com.github.alturkovic.lock.interval.IntervalConverter;
@@ -31,6 +32,7 @@ import java.util.Collections;
 import lombok.Data;
 import org.springframework.retry.RetryPolicy;
 import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.CompositeRetryPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
@@ -93,8 +95,41 @@ public class DefaultRetryTemplateConverter implements RetryTemplateConverter {
       return null;
     }
 
+    final Backoff backoff = locked.backoff();
+    return switch (backoff.strategy()) {
+      case FIXED -> resolveFixedBackOffPolicy(retry);
+      case EXPONENTIAL -> resolveExponentialBackOffPolicy(retry, backoff.multiplier(), resolveMaxInterval(locked));
+      case DECORRELATED_JITTER -> resolveDecorrelatedJitterBackOffPolicy(retry, backoff.multiplier(), resolveMaxInterval(locked));
+    };
+  }
+
+  private BackOffPolicy resolveFixedBackOffPolicy(final long retry) {
     final FixedBackOffPolicy fixedBackOffPolicy = new FixedBackOffPolicy();
     fixedBackOffPolicy.setBackOffPeriod(retry);
+    fixedBackOffPolicy.setSleeper(new ReleaseAwareSleeper());
     return fixedBackOffPolicy;
   }
+
+  private BackOffPolicy resolveExponentialBackOffPolicy(final long retry, final double multiplier, final long maxInterval) {
+    final ExponentialBackOffPolicy exponentialBackOffPolicy = new ExponentialBackOffPolicy();
+    exponentialBackOffPolicy.setInitialInterval(retry);
+    exponentialBackOffPolicy.setMultiplier(multiplier);
+    exponentialBackOffPolicy.setMaxInterval(maxInterval);
+    exponentialBackOffPolicy.setSleeper(new ReleaseAwareSleeper());
+    return exponentialBackOffPolicy;
+  }
+
+  private BackOffPolicy resolveDecorrelatedJitterBackOffPolicy(final long retry, final double multiplier, final long maxInterval) {
+    final DecorrelatedJitterBackOffPolicy decorrelatedJitterBackOffPolicy = new DecorrelatedJitterBackOffPolicy();
+    decorrelatedJitterBackOffPolicy.setInitialInterval(retry);
+    decorrelatedJitterBackOffPolicy.setMultiplier(multiplier);
+    decorrelatedJitterBackOffPolicy.setMaxInterval(maxInterval);
+    decorrelatedJitterBackOffPolicy.setSleeper(new ReleaseAwareSleeper());
+    return decorrelatedJitterBackOffPolicy;
+  }
+
+  private long resolveMaxInterval(final Locked locked) {
+    final long maxInterval = intervalConverter.toMillis(locked.backoff().maxInterval());
+    return maxInterval > 0 ? maxInterval : intervalConverter.toMillis(locked.timeout());
+  }
 }
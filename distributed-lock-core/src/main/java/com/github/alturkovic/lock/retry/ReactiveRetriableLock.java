@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import com.github.alturkovic.lock.ReactiveLock;
+import java.time.Duration;
+import java.util.List;
+import lombok.Data;
+import org.springframework.util.StringUtils;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link ReactiveLock} wrapper for retrying {@link #acquire} method calls until the {@link #timeout} elapses.
+ * <p>
+ * Unlike {@link RetriableLock}, waiting between attempts does not block a thread. Every delay produced by the
+ * {@link #backOff} is scheduled with {@link Mono#delay}, so pending acquisitions only hold a timer until their next attempt.
+ */
+@Data
+public class ReactiveRetriableLock implements ReactiveLock {
+  private final ReactiveLock lock;
+  private final BackOff backOff;
+
+  /**
+   * How long to keep retrying, in millis.
+   */
+  private final long timeout;
+
+  @Override
+  public Mono<String> acquire(final List<String> keys, final String storeId, final long expiration) {
+    return Mono.defer(() -> {
+      final BackOffExecution execution = backOff.start();
+      final long deadline = System.currentTimeMillis() + timeout;
+
+      return Mono.defer(() -> lock.acquire(keys, storeId, expiration))
+        .filter(StringUtils::hasText)
+        .repeatWhenEmpty(attempts -> attempts
+          .map(attempt -> nextDelay(execution, deadline))
+          .takeWhile(delay -> delay >= 0)
+          .concatMap(delay -> Mono.delay(Duration.ofMillis(delay))));
+    });
+  }
+
+  private static long nextDelay(final BackOffExecution execution, final long deadline) {
+    final long remaining = deadline - System.currentTimeMillis();
+    final long delay = execution.nextBackOff();
+    if (remaining <= 0 || delay == BackOffExecution.STOP) {
+      return -1;
+    }
+
+    return Math.min(delay, remaining);
+  }
+
+  @Override
+  public Mono<Boolean> release(final List<String> keys, final String storeId, final String token) {
+    return lock.release(keys, storeId, token);
+  }
+
+  @Override
+  public Mono<Boolean> refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    return lock.refresh(keys, storeId, token, expiration);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import com.github.alturkovic.lock.AwaitableLock;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.support.RetrySynchronizationManager;
+
+/**
+ * A {@link Sleeper} that backs off until the awaited lock is released, as registered by {@link RetriableLock} for
+ * {@link AwaitableLock} instances, or until the back off period elapses. Sleeps for the whole back off period otherwise.
+ */
+public class ReleaseAwareSleeper implements Sleeper {
+  static final String AWAIT_RELEASE_ATTRIBUTE = ReleaseAwareSleeper.class.getName() + ".awaitRelease";
+
+  private final Sleeper fallback = new ThreadWaitSleeper();
+
+  @Override
+  public void sleep(final long backOffPeriod) throws InterruptedException {
+    final RetryContext context = RetrySynchronizationManager.getContext();
+    if (context != null && context.getAttribute(AWAIT_RELEASE_ATTRIBUTE) instanceof Sleeper releaseAwaiter) {
+      releaseAwaiter.sleep(backOffPeriod);
+    } else {
+      fallback.sleep(backOffPeriod);
+    }
+  }
+}
@@ -24,16 +24,22 @@
 
 package com.github.alturkovic.lock.retry;
 
+import com.github.alturkovic.lock.AwaitableLock;
 import com.github.alturkovic.lock.Lock;
 import com.github.alturkovic.lock.exception.LockNotAvailableException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import lombok.Data;
+import org.springframework.retry.backoff.Sleeper;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.util.StringUtils;
 
 /**
  * A {@link Lock} wrapper for retrying {@link #acquire} method calls. This wrapper will retry the acquire method
  * only as specified by the provided {@link RetryTemplate}.
+ * <p>
+ * When wrapping an {@link AwaitableLock}, back off is cut short once the lock is released if the template
+ * backs off using a {@link ReleaseAwareSleeper}.
  */
 @Data
 public class RetriableLock implements Lock {
@@ -42,11 +48,32 @@ public class RetriableLock implements Lock {
 
   @Override
   public String acquire(final List<String> keys, final String storeId, final long expiration) {
+    return acquire(keys, storeId, expiration, Long.MAX_VALUE);
+  }
+
+  /**
+   * Acquire the lock like {@link #acquire(List, String, long)}, but stop retrying once {@code timeout} elapsed
+   * even if the template would still retry. Used when part of the time allowed to lock was already spent elsewhere.
+   *
+   * @param timeout maximum time to keep retrying in millis, at least one attempt is always made
+   * @return token to use for releasing and refreshing the lock or {@code null} if the lock is not available
+   */
+  public String acquire(final List<String> keys, final String storeId, final long expiration, final long timeout) {
+    final long start = System.nanoTime();
+    final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeout, 0));
+
     try {
       return retryTemplate.execute(ctx -> {
+        if (lock instanceof AwaitableLock awaitableLock && !ctx.hasAttribute(ReleaseAwareSleeper.AWAIT_RELEASE_ATTRIBUTE)) {
+          ctx.setAttribute(ReleaseAwareSleeper.AWAIT_RELEASE_ATTRIBUTE, (Sleeper) period -> awaitableLock.awaitRelease(keys, storeId, period));
+        }
+
         final String token = lock.acquire(keys, storeId, expiration);
 
         if (!StringUtils.hasText(token)) {
+          if (System.nanoTime() - start >= timeoutNanos) {
+            ctx.setExhaustedOnly();
+          }
           throw new LockNotAvailableException(String.format("Lock not available for keys: %s in store %s", keys, storeId));
         }
 
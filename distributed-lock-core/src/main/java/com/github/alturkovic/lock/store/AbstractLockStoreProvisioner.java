@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.store;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A base for provisioners that handle the missing indexes of a store as configured by {@link LockStoreProvisioning},
+ * checking every store only once.
+ *
+ * @param <I> type describing an index of the store
+ */
+@Data
+@Slf4j
+public abstract class AbstractLockStoreProvisioner<I> implements LockStoreProvisioner {
+  private final LockStoreProvisioning provisioning;
+
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final Set<String> provisionedStoreIds = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public void provision(final String storeId) {
+    if (provisioning == LockStoreProvisioning.NONE || !provisionedStoreIds.add(storeId)) {
+      return;
+    }
+
+    try {
+      provisionMissingIndexes(storeId);
+    } catch (final RuntimeException e) {
+      // a failed store is checked again on the next attempt
+      provisionedStoreIds.remove(storeId);
+      throw e;
+    }
+  }
+
+  private void provisionMissingIndexes(final String storeId) {
+    final List<I> missingIndexes;
+    try {
+      missingIndexes = findMissingIndexes(storeId);
+    } catch (final RuntimeException e) {
+      if (provisioning != LockStoreProvisioning.WARN) {
+        throw e;
+      }
+      log.warn("Cannot check lock indexes in store {}", storeId, e);
+      return;
+    }
+
+    if (missingIndexes.isEmpty()) {
+      log.debug("Store {} has all lock indexes", storeId);
+      return;
+    }
+
+    switch (provisioning) {
+      case WARN -> log.warn("Store {} is missing lock indexes: {}", storeId, missingIndexes);
+      case VALIDATE -> throw new IllegalStateException(String.format("Store %s is missing lock indexes: %s", storeId, missingIndexes));
+      case CREATE -> missingIndexes.forEach(index -> {
+        log.info("Creating lock index {} in store {}", index, storeId);
+        createIndex(storeId, index);
+      });
+      default -> throw new IllegalStateException("Unexpected provisioning: " + provisioning);
+    }
+  }
+
+  /**
+   * @param storeId store to check
+   * @return indexes the store is missing, empty if it has all of them
+   */
+  protected abstract List<I> findMissingIndexes(String storeId);
+
+  /**
+   * @param storeId store to create the index in
+   * @param index   index to create
+   */
+  protected abstract void createIndex(String storeId, I index);
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.store;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.advice.LockTypeResolver;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Provisions the stores of all {@link Locked} methods once all singletons are instantiated.
+ * <p>
+ * Store ids are collected per {@link Locked#type()} from the methods of all beans and handed to the
+ * {@link LockStoreProvisioner provisioners} supporting the lock of that type.
+ */
+@Slf4j
+@AllArgsConstructor
+public class LockStoreInitializer implements SmartInitializingSingleton {
+  private final ListableBeanFactory beanFactory;
+  private final LockTypeResolver lockTypeResolver;
+  private final List<LockStoreProvisioner> provisioners;
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    findStoreIds().forEach((type, storeIds) -> {
+      final Lock lock;
+      try {
+        lock = lockTypeResolver.get(type);
+      } catch (final BeansException e) {
+        // the interceptor reports the missing lock when the method is called
+        log.debug("Lock type {} not configured, not provisioning stores {}", type.getName(), storeIds, e);
+        return;
+      }
+
+      for (final LockStoreProvisioner provisioner : provisioners) {
+        if (provisioner.supports(lock)) {
+          storeIds.forEach(provisioner::provision);
+        }
+      }
+    });
+  }
+
+  /**
+   * @return store ids of all {@link Locked} methods of the beans, grouped by lock type
+   */
+  public Map<Class<? extends Lock>, Set<String>> findStoreIds() {
+    final Map<Class<? extends Lock>, Set<String>> storeIds = new HashMap<>();
+    for (final String beanName : beanFactory.getBeanDefinitionNames()) {
+      final Class<?> beanType = beanFactory.getType(beanName, false);
+      if (beanType == null) {
+        continue;
+      }
+
+      MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType),
+          (MethodIntrospector.MetadataLookup<Locked>) method -> AnnotatedElementUtils.findMergedAnnotation(method, Locked.class))
+        .values()
+        .forEach(locked -> storeIds.computeIfAbsent(locked.type(), type -> new TreeSet<>()).add(locked.storeId()));
+    }
+    return storeIds;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.token;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link TokenSupplier} generating 128-bit tokens from a random 64-bit node id, chosen once per instance,
+ * and a 64-bit counter, encoded as 22 URL-safe Base64 characters.
+ * <p>
+ * Tokens are unique as long as node ids of instances sharing a lock store do not collide, which is as unlikely
+ * as a collision of random UUIDs. Unlike random UUIDs, generating a token does not touch the shared
+ * {@link SecureRandom} and is not meant to be unpredictable.
+ */
+public class SequenceTokenSupplier implements TokenSupplier {
+  private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+  private static final int TOKEN_LENGTH = 22;
+
+  private final long nodeId;
+  private final AtomicLong counter;
+
+  public SequenceTokenSupplier() {
+    this(new SecureRandom().nextLong(), System.currentTimeMillis());
+  }
+
+  /**
+   * @param nodeId         id unique to this instance
+   * @param initialCounter counter value used for the first token
+   */
+  public SequenceTokenSupplier(final long nodeId, final long initialCounter) {
+    this.nodeId = nodeId;
+    this.counter = new AtomicLong(initialCounter);
+  }
+
+  @Override
+  public String get() {
+    final long sequence = counter.getAndIncrement();
+    final char[] token = new char[TOKEN_LENGTH];
+
+    // 128 bits are encoded as 21 characters of 6 bits and the remaining 2 bits in the last character
+    long high = nodeId;
+    long low = sequence;
+    for (int i = TOKEN_LENGTH - 1; i >= 0; i--) {
+      final int bits = i == TOKEN_LENGTH - 1 ? 2 : 6;
+      token[i] = ALPHABET[(int) (low & ((1 << bits) - 1))];
+      low = (low >>> bits) | (high << (64 - bits));
+      high >>>= bits;
+    }
+    return new String(token);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BlockingReactiveLockTest {
+
+  @Mock
+  private Lock lock;
+
+  @Test
+  public void shouldAcquireOffTheSubscribingThread() {
+    final Thread subscriber = Thread.currentThread();
+    when(lock.acquire(anyList(), anyString(), anyLong()))
+      .thenAnswer(invocation -> Thread.currentThread() == subscriber ? null : "abc");
+
+    final String token = new BlockingReactiveLock(lock).acquire(Collections.singletonList("key"), "defaultStore", 1000L).block();
+    assertThat(token).isEqualTo("abc");
+  }
+
+  @Test
+  public void shouldReleaseTokenAcquiredAfterCancellation() throws InterruptedException {
+    final CountDownLatch acquiring = new CountDownLatch(1);
+    final CountDownLatch cancelled = new CountDownLatch(1);
+    when(lock.acquire(anyList(), anyString(), anyLong())).thenAnswer(invocation -> {
+      acquiring.countDown();
+      cancelled.await(1, TimeUnit.SECONDS);
+      return "abc";
+    });
+
+    final Disposable subscription = new BlockingReactiveLock(lock).acquire(Collections.singletonList("key"), "defaultStore", 1000L).subscribe();
+    acquiring.await(1, TimeUnit.SECONDS);
+    subscription.dispose();
+    cancelled.countDown();
+
+    verify(lock, timeout(1000)).release(Collections.singletonList("key"), "defaultStore", "abc");
+  }
+}
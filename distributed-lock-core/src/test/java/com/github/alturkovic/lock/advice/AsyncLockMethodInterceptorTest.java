@@ -0,0 +1,311 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.advice;
+
+import com.github.alturkovic.lock.Interval;
+import com.github.alturkovic.lock.ReactiveLock;
+import com.github.alturkovic.lock.advice.support.SimpleLock;
+import com.github.alturkovic.lock.advice.support.SimpleLock.LockedKey;
+import com.github.alturkovic.lock.advice.support.SimpleLocked;
+import com.github.alturkovic.lock.exception.DistributedLockException;
+import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
+import com.github.alturkovic.lock.interval.IntervalConverter;
+import com.github.alturkovic.lock.key.SpelKeyGenerator;
+import com.github.alturkovic.lock.local.KeyedLocalLockGate;
+import com.github.alturkovic.lock.refresh.TimingWheelLockRefreshScheduler;
+import com.github.alturkovic.lock.retry.DefaultRetriableLockFactory;
+import com.github.alturkovic.lock.retry.DefaultRetryTemplateConverter;
+import com.github.alturkovic.lock.retry.RetriableLockFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import lombok.Data;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+public class AsyncLockMethodInterceptorTest {
+  private AsyncLockedInterface lockedInterface;
+  private SimpleLock lock;
+  private LockTypeResolver lockTypeResolver;
+
+  @BeforeEach
+  public void setUp() {
+    final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    lock = new SimpleLock();
+
+    lockTypeResolver = Mockito.mock(LockTypeResolver.class);
+    when(lockTypeResolver.get(SimpleLock.class)).thenReturn(lock);
+
+    final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.afterPropertiesSet();
+
+    final SpelKeyGenerator keyGenerator = new SpelKeyGenerator(new DefaultConversionService());
+    final IntervalConverter intervalConverter = new BeanFactoryAwareIntervalConverter(beanFactory);
+    final RetriableLockFactory retriableLockFactory = new DefaultRetriableLockFactory(new DefaultRetryTemplateConverter(intervalConverter));
+
+    final LockBeanPostProcessor processor = new LockBeanPostProcessor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, new TimingWheelLockRefreshScheduler(scheduler), new KeyedLocalLockGate());
+    processor.afterPropertiesSet();
+
+    beanFactory.addBeanPostProcessor(processor);
+    beanFactory.registerBeanDefinition("asyncLockedService", new RootBeanDefinition(AsyncLockedInterface.class, AsyncLockedInterfaceImpl::new));
+    lockedInterface = beanFactory.getBean(AsyncLockedInterface.class);
+  }
+
+  @Test
+  public void shouldNotLockMonoBeforeSubscription() {
+    lockedInterface.mono("hello");
+    assertThat(lock.getLockMap()).isEmpty();
+  }
+
+  @Test
+  public void shouldHoldLockUntilMonoCompletes() {
+    final Boolean releasedDuringExecution = lockedInterface.mono("hello").block();
+    assertThat(releasedDuringExecution).isFalse();
+    assertThat(lockedKey().getKey()).isEqualTo("hello");
+    assertThat(lockedKey().isReleased()).isTrue();
+  }
+
+  @Test
+  public void shouldLockEverySubscription() {
+    final Mono<Boolean> mono = lockedInterface.mono("hello");
+    mono.block();
+    lock.getLockMap().clear();
+    mono.block();
+    assertThat(lock.getLockedKeys("distributed_lock")).containsExactly("hello");
+  }
+
+  @Test
+  public void shouldHoldLockUntilFluxCompletes() {
+    assertThat(lockedInterface.flux("hello").collectList().block()).containsExactly(false, false, false);
+    assertThat(lockedKey().isReleased()).isTrue();
+  }
+
+  @Test
+  public void shouldReleaseLockWhenFluxFails() {
+    assertThatThrownBy(() -> lockedInterface.failingFlux("hello").blockLast()).isInstanceOf(IllegalStateException.class);
+    assertThat(lockedKey().isReleased()).isTrue();
+  }
+
+  @Test
+  public void shouldReleaseLockWhenCancelled() throws InterruptedException {
+    final Disposable subscription = lockedInterface.never("hello").subscribe();
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(lockedKey().isReleased()).isFalse();
+
+    subscription.dispose();
+    TimeUnit.MILLISECONDS.sleep(200);
+    assertThat(lockedKey().isReleased()).isTrue();
+  }
+
+  @Test
+  public void shouldRefreshLockOnlyWhileMonoIsActive() throws InterruptedException {
+    lockedInterface.delayed("hello").block();
+    final long refreshes = lockedKey().getUpdateCounter();
+    assertThat(refreshes).isIn(4L, 5L);
+
+    TimeUnit.MILLISECONDS.sleep(300);
+    assertThat(lockedKey().getUpdateCounter()).isEqualTo(refreshes);
+  }
+
+  @Test
+  public void shouldFailMonoWhenNoTokenIsAcquiredAfterRetries() {
+    assertThatThrownBy(() -> lockedInterface.mono("!noToken").block())
+      .isInstanceOf(DistributedLockException.class);
+  }
+
+  @Test
+  public void shouldCompleteMonoEmptyWhenNoTokenIsAcquiredAndNotThrowing() {
+    assertThat(lockedInterface.notThrown("!noToken").block()).isNull();
+  }
+
+  @Test
+  public void shouldHoldLockUntilFutureCompletes() {
+    final CompletableFuture<Boolean> future = lockedInterface.future("hello");
+    assertThat(lockedKey().isReleased()).isFalse();
+
+    assertThat(future.join()).isFalse();
+    assertThat(lockedKey().isReleased()).isTrue();
+  }
+
+  @Test
+  public void shouldReleaseLockWhenFutureIsCancelled() {
+    final CompletableFuture<Boolean> future = lockedInterface.neverFuture("hello");
+    assertThat(lockedKey().isReleased()).isFalse();
+
+    future.cancel(true);
+    assertThat(lockedKey().isReleased()).isTrue();
+  }
+
+  @Test
+  public void shouldReleaseLockWhenStageWithoutFutureCompletes() {
+    final CompletableFuture<Boolean> stage = new CompletableFuture<>() {
+      @Override
+      public CompletableFuture<Boolean> toCompletableFuture() {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    final CompletionStage<Boolean> completion = lockedInterface.stage(stage);
+    assertThat(lockedKey().isReleased()).isFalse();
+
+    stage.complete(true);
+    assertThat(lockedKey().isReleased()).isTrue();
+    assertThat(completion).isCompletedWithValue(true);
+  }
+
+  @Test
+  public void shouldLockMonoWithNativeReactiveLock() {
+    final RecordingReactiveLock reactiveLock = new RecordingReactiveLock();
+    when(lockTypeResolver.getReactive(SimpleLock.class)).thenReturn(reactiveLock);
+
+    assertThat(lockedInterface.notThrown("hello").block()).isTrue();
+    assertThat(reactiveLock.getOperations()).containsExactly("acquire [hello]", "release [hello]");
+    assertThat(reactiveLock.getThreads()).noneMatch(thread -> thread.startsWith("boundedElastic"));
+    assertThat(lock.getLockMap()).isEmpty();
+  }
+
+  private LockedKey lockedKey() {
+    return lock.getLockMap().get("distributed_lock").getFirst();
+  }
+
+  @Data
+  private static class RecordingReactiveLock implements ReactiveLock {
+    private final List<String> operations = new CopyOnWriteArrayList<>();
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Mono<String> acquire(final List<String> keys, final String storeId, final long expiration) {
+      return Mono.fromCallable(() -> record("acquire " + keys)).thenReturn("abc");
+    }
+
+    @Override
+    public Mono<Boolean> release(final List<String> keys, final String storeId, final String token) {
+      return Mono.fromCallable(() -> record("release " + keys)).thenReturn(true);
+    }
+
+    @Override
+    public Mono<Boolean> refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+      return Mono.fromCallable(() -> record("refresh " + keys)).thenReturn(true);
+    }
+
+    private boolean record(final String operation) {
+      threads.add(Thread.currentThread().getName());
+      return operations.add(operation);
+    }
+  }
+
+  private interface AsyncLockedInterface {
+
+    @SimpleLocked(expression = "#s")
+    Mono<Boolean> mono(String s);
+
+    @SimpleLocked(expression = "#s")
+    Flux<Boolean> flux(String s);
+
+    @SimpleLocked(expression = "#s")
+    Flux<Boolean> failingFlux(String s);
+
+    @SimpleLocked(expression = "#s")
+    Mono<Void> never(String s);
+
+    @SimpleLocked(expression = "#s", refresh = @Interval("100"), expiration = @Interval("200"))
+    Mono<Void> delayed(String s);
+
+    @SimpleLocked(expression = "#s", throwing = false)
+    Mono<Boolean> notThrown(String s);
+
+    @SimpleLocked(expression = "#s")
+    CompletableFuture<Boolean> future(String s);
+
+    @SimpleLocked(expression = "#s")
+    CompletableFuture<Boolean> neverFuture(String s);
+
+    @SimpleLocked(expression = "'stage'")
+    CompletionStage<Boolean> stage(CompletionStage<Boolean> stage);
+  }
+
+  private class AsyncLockedInterfaceImpl implements AsyncLockedInterface {
+
+    @Override
+    public Mono<Boolean> mono(final String s) {
+      return Mono.fromCallable(() -> lockedKey().isReleased());
+    }
+
+    @Override
+    public Flux<Boolean> flux(final String s) {
+      return Flux.range(0, 3).map(i -> lockedKey().isReleased());
+    }
+
+    @Override
+    public Flux<Boolean> failingFlux(final String s) {
+      return Flux.error(new IllegalStateException("Failed"));
+    }
+
+    @Override
+    public Mono<Void> never(final String s) {
+      return Mono.never();
+    }
+
+    @Override
+    public Mono<Void> delayed(final String s) {
+      return Mono.delay(Duration.ofMillis(500)).then();
+    }
+
+    @Override
+    public Mono<Boolean> notThrown(final String s) {
+      return Mono.just(true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> future(final String s) {
+      return CompletableFuture.supplyAsync(() -> lockedKey().isReleased(), CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> neverFuture(final String s) {
+      return new CompletableFuture<>();
+    }
+
+    @Override
+    public CompletionStage<Boolean> stage(final CompletionStage<Boolean> stage) {
+      return stage;
+    }
+  }
+}
@@ -33,9 +33,12 @@ import com.github.alturkovic.lock.exception.DistributedLockException;
 import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
 import com.github.alturkovic.lock.interval.IntervalConverter;
 import com.github.alturkovic.lock.key.SpelKeyGenerator;
+import com.github.alturkovic.lock.local.KeyedLocalLockGate;
+import com.github.alturkovic.lock.refresh.TimingWheelLockRefreshScheduler;
 import com.github.alturkovic.lock.retry.DefaultRetriableLockFactory;
 import com.github.alturkovic.lock.retry.DefaultRetryTemplateConverter;
 import com.github.alturkovic.lock.retry.RetriableLockFactory;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.BeforeEach;
@@ -49,18 +52,22 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class LockBeanPostProcessorTest {
   private LockedInterface lockedInterface;
+  private NestedLockedInterface nestedLockedInterface;
   private SimpleLock lock;
+  private LockTypeResolver lockTypeResolver;
 
   @BeforeEach
   public void setUp() {
     final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
     lock = new SimpleLock();
 
-    final LockTypeResolver lockTypeResolver = Mockito.mock(LockTypeResolver.class);
+    lockTypeResolver = Mockito.mock(LockTypeResolver.class);
     when(lockTypeResolver.get(SimpleLock.class)).thenReturn(lock);
 
     final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
@@ -70,12 +77,14 @@ public class LockBeanPostProcessorTest {
     final IntervalConverter intervalConverter = new BeanFactoryAwareIntervalConverter(beanFactory);
     final RetriableLockFactory retriableLockFactory = new DefaultRetriableLockFactory(new DefaultRetryTemplateConverter(intervalConverter));
 
-    final LockBeanPostProcessor processor = new LockBeanPostProcessor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, scheduler);
+    final LockBeanPostProcessor processor = new LockBeanPostProcessor(keyGenerator, lockTypeResolver, intervalConverter, retriableLockFactory, new TimingWheelLockRefreshScheduler(scheduler), new KeyedLocalLockGate());
     processor.afterPropertiesSet();
 
     beanFactory.addBeanPostProcessor(processor);
     beanFactory.registerBeanDefinition("lockedService", new RootBeanDefinition(LockedInterface.class, LockedInterfaceImpl::new));
+    beanFactory.registerBeanDefinition("nestedLockedService", new RootBeanDefinition(NestedLockedInterface.class, NestedLockedInterfaceImpl::new));
     lockedInterface = beanFactory.getBean(LockedInterface.class);
+    nestedLockedInterface = beanFactory.getBean(NestedLockedInterface.class);
     beanFactory.preInstantiateSingletons();
   }
 
@@ -85,6 +94,14 @@ public class LockBeanPostProcessorTest {
     assertThat(lock.getLockedKeys("distributed_lock")).containsExactly("lock:hello");
   }
 
+  @Test
+  public void shouldResolveLockTypeOnlyOnceForRepeatedInvocations() {
+    lockedInterface.doLocked(1, "hello");
+    lockedInterface.doLocked(2, "world");
+    assertThat(lock.getLockedKeys("distributed_lock")).containsExactly("lock:hello", "lock:world");
+    verify(lockTypeResolver, times(1)).get(SimpleLock.class);
+  }
+
   @Test
   public void shouldLockInheritedFromInterfaceWithAlias() {
     lockedInterface.doLockedWithAlias(1, "hello");
@@ -157,6 +174,41 @@ public class LockBeanPostProcessorTest {
     assertDoesNotThrow(() -> lockedInterface.notThrown("!noToken"));
   }
 
+  @Test
+  public void shouldCountLocalTurnTowardsTimeout() throws InterruptedException {
+    final CompletableFuture<Void> first = CompletableFuture.runAsync(() -> lockedInterface.noToken("!noToken"), runnable -> Thread.ofPlatform().start(runnable));
+    TimeUnit.MILLISECONDS.sleep(500);
+
+    // the first thread gives up after its 1 second timeout and passes the local turn on to this one
+    final long start = System.nanoTime();
+    assertThatThrownBy(() -> lockedInterface.noToken("!noToken")).isInstanceOf(DistributedLockException.class);
+    assertThat(first).isCompletedExceptionally();
+
+    // half of the timeout was spent waiting for the local turn, so it must not retry for another second
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1300);
+  }
+
+  @Test
+  public void shouldReenterLockHeldByTheSameThread() {
+    nestedLockedInterface.doNestedLocked("hello");
+    assertThat(lock.getLockedKeys("distributed_lock")).containsExactly("lock:hello");
+    assertThat(lock.getLockMap().get("distributed_lock").getFirst().isReleased()).isTrue();
+  }
+
+  private interface NestedLockedInterface {
+
+    @Locked(prefix = "lock:", expression = "#s", type = SimpleLock.class)
+    void doNestedLocked(String s);
+  }
+
+  private class NestedLockedInterfaceImpl implements NestedLockedInterface {
+
+    @Override
+    public void doNestedLocked(final String s) {
+      lockedInterface.doLocked(1, s);
+    }
+  }
+
   private interface LockedInterface {
 
     @Locked(prefix = "lock:", expression = "#s", type = SimpleLock.class)
@@ -24,6 +24,7 @@
 
 package com.github.alturkovic.lock.advice.support;
 
+import com.github.alturkovic.lock.Backoff;
 import com.github.alturkovic.lock.Interval;
 import com.github.alturkovic.lock.Locked;
 import java.lang.annotation.ElementType;
@@ -59,6 +60,9 @@ public @interface SimpleLocked {
   @AliasFor(annotation = Locked.class)
   Interval retry() default @Interval(value = "50");
 
+  @AliasFor(annotation = Locked.class)
+  Backoff backoff() default @Backoff;
+
   @AliasFor(annotation = Locked.class)
   Interval refresh() default @Interval(value = "0");
 
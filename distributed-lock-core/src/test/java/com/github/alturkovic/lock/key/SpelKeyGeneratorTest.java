@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.expression.spel.SpelCompilerMode;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -63,6 +64,40 @@ public class SpelKeyGeneratorTest {
       .containsExactly("lock_hello");
   }
 
+  @Test
+  public void shouldGenerateKeyFromArgumentProperty() throws NoSuchMethodException {
+    final Method method = OrderService.class.getMethod("placeOrder", Order.class, Customer.class, Item.class);
+    final Object[] args = {new Order("42"), new Customer("alice"), new Item("apple")};
+    final OrderService orderService = new OrderService();
+
+    assertThat(keyGenerator.resolveKeys("lock_", "#p0.id", orderService, method, args)).containsExactly("lock_42");
+    assertThat(keyGenerator.resolveKeys("lock_", "#order.id", orderService, method, args)).containsExactly("lock_42");
+    assertThat(keyGenerator.resolveKeys("lock_", "#p1.name", orderService, method, args)).containsExactly("lock_alice");
+    assertThat(keyGenerator.resolveKeys("lock_", "#item.name", orderService, method, args)).containsExactly("lock_apple");
+  }
+
+  @Test
+  public void shouldFallBackToSpelForInaccessibleArgumentProperty() throws NoSuchMethodException {
+    final Method method = OrderService.class.getMethod("cancelOrder", Cancellation.class);
+    assertThat(keyGenerator.resolveKeys("lock_", "#p0.reason", new OrderService(), method, new Object[]{new Cancellation("expired")}))
+      .containsExactly("lock_expired");
+  }
+
+  @Test
+  public void shouldFailWithArgumentThatIsNull() {
+    assertThatThrownBy(() -> keyGenerator.resolveKeys("lock_", "#p0", service, sendMessageMethod, new Object[]{null}))
+      .isInstanceOf(EvaluationConvertException.class);
+  }
+
+  @Test
+  public void shouldGenerateKeysWithCompiledExpression() {
+    final KeyGenerator compilingKeyGenerator = new SpelKeyGenerator(new DefaultConversionService(), SpelCompilerMode.IMMEDIATE);
+    for (int i = 0; i < 5; i++) {
+      assertThat(compilingKeyGenerator.resolveKeys("lock_", "'message:' + #p0.length()", service, sendMessageMethod, new Object[]{"hello" + i}))
+        .containsExactly("lock_message:6");
+    }
+  }
+
   @Test
   public void shouldGenerateMultipleKeysFromContextAndVariablesWithList() {
     final String expression = "T(com.github.alturkovic.lock.key.SpelKeyGeneratorTest).generateKeys(#message)";
@@ -117,6 +152,50 @@ public class SpelKeyGeneratorTest {
     return new HashSet<>(Arrays.asList(prefix + "first", 15));
   }
 
+  @SuppressWarnings("unused")
+  public static class OrderService {
+    public void placeOrder(final Order order, final Customer customer, final Item item) {
+    }
+
+    public void cancelOrder(final Cancellation cancellation) {
+    }
+  }
+
+  public static class Order {
+    private final String id;
+
+    public Order(final String id) {
+      this.id = id;
+    }
+
+    public String getId() {
+      return id;
+    }
+  }
+
+  public record Customer(String name) {
+  }
+
+  public static class Item {
+    public final String name;
+
+    public Item(final String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Cancellation {
+    private final String reason;
+
+    private Cancellation(final String reason) {
+      this.reason = reason;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+  }
+
   @SuppressWarnings("unused")
   private static class MessageService {
     public void sendMessage(String message) {
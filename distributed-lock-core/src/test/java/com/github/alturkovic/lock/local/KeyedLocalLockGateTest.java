@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.local;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyedLocalLockGateTest {
+  private final KeyedLocalLockGate gate = new KeyedLocalLockGate();
+
+  @Test
+  public void shouldEnterFreeGate() throws InterruptedException {
+    final LocalLockGate.Permit permit = gate.enter(Collections.singletonList("1"), "locks", 0);
+    assertThat(permit).isNotNull();
+    assertThat(gate.getGateCount()).isEqualTo(1);
+
+    permit.release();
+    assertThat(gate.getGateCount()).isZero();
+  }
+
+  @Test
+  public void shouldNotEnterHeldGate() throws InterruptedException {
+    final LocalLockGate.Permit permit = gate.enter(Collections.singletonList("1"), "locks", 0);
+
+    assertThat(gate.enter(Collections.singletonList("1"), "locks", 0)).isNull();
+    assertThat(gate.enter(Collections.singletonList("1"), "locks", 50)).isNull();
+    assertThat(gate.getGateCount()).isEqualTo(1);
+
+    permit.release();
+    assertThat(gate.getGateCount()).isZero();
+  }
+
+  @Test
+  public void shouldEnterSameKeyInDifferentStores() throws InterruptedException {
+    assertThat(gate.enter(Collections.singletonList("1"), "locks", 0)).isNotNull();
+    assertThat(gate.enter(Collections.singletonList("1"), "other", 0)).isNotNull();
+  }
+
+  @Test
+  public void shouldNotEnterPartiallyHeldGateAndLeaveEnteredKeys() throws InterruptedException {
+    final LocalLockGate.Permit permit = gate.enter(Collections.singletonList("2"), "locks", 0);
+
+    assertThat(gate.enter(Arrays.asList("1", "2"), "locks", 0)).isNull();
+    assertThat(gate.enter(Collections.singletonList("1"), "locks", 0)).isNotNull();
+
+    permit.release();
+  }
+
+  @Test
+  public void shouldIgnoreRepeatedRelease() throws InterruptedException {
+    final LocalLockGate.Permit permit = gate.enter(Collections.singletonList("1"), "locks", 0);
+    permit.release();
+    permit.release();
+
+    final LocalLockGate.Permit next = gate.enter(Collections.singletonList("1"), "locks", 0);
+    assertThat(next).isNotNull();
+    assertThat(gate.enter(Collections.singletonList("1"), "locks", 0)).isNull();
+  }
+
+  @Test
+  public void shouldHandTurnsInArrivalOrder() throws Exception {
+    final LocalLockGate.Permit permit = gate.enter(Collections.singletonList("1"), "locks", 0);
+    final List<Integer> turns = new CopyOnWriteArrayList<>();
+
+    final CompletableFuture<?>[] waiters = new CompletableFuture<?>[3];
+    for (int i = 0; i < waiters.length; i++) {
+      final int waiter = i;
+      waiters[i] = CompletableFuture.runAsync(() -> {
+        try {
+          final LocalLockGate.Permit turn = gate.enter(Collections.singletonList("1"), "locks", 5000);
+          turns.add(waiter);
+          turn.release();
+        } catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      // make sure waiters arrive one after the other
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+
+    assertThat(turns).isEmpty();
+    permit.release();
+
+    CompletableFuture.allOf(waiters).get(5, TimeUnit.SECONDS);
+    assertThat(turns).containsExactly(0, 1, 2);
+    assertThat(gate.getGateCount()).isZero();
+  }
+
+  @Test
+  public void shouldLetOneThreadInWhileGatesAreCreatedAndRemovedConcurrently() throws Exception {
+    final AtomicInteger inside = new AtomicInteger();
+    final AtomicInteger overlaps = new AtomicInteger();
+
+    final CompletableFuture<?>[] threads = new CompletableFuture<?>[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = CompletableFuture.runAsync(() -> {
+        for (int j = 0; j < 10000; j++) {
+          try {
+            final LocalLockGate.Permit permit = gate.enter(Collections.singletonList("1"), "locks", 5000);
+            if (inside.incrementAndGet() > 1) {
+              overlaps.incrementAndGet();
+            }
+            inside.decrementAndGet();
+            permit.release();
+          } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }, runnable -> Thread.ofPlatform().start(runnable));
+    }
+
+    CompletableFuture.allOf(threads).get(30, TimeUnit.SECONDS);
+    assertThat(overlaps).hasValue(0);
+    assertThat(gate.getGateCount()).isZero();
+  }
+}
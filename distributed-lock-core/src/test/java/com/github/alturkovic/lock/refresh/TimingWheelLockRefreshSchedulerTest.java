@@ -0,0 +1,186 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.refresh;
+
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.Lock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TimingWheelLockRefreshSchedulerTest {
+  private final Lease lease = new Lease(Collections.singletonList("key"), "locks", "abc", 1000);
+
+  @Mock
+  private Lock lock;
+
+  @Mock
+  private BatchRefreshingLock batchRefreshingLock;
+
+  private ThreadPoolTaskScheduler taskScheduler;
+  private TimingWheelLockRefreshScheduler refreshScheduler;
+
+  @BeforeEach
+  public void setUp() {
+    taskScheduler = new ThreadPoolTaskScheduler();
+    taskScheduler.afterPropertiesSet();
+    // small wheel so that leases have to survive multiple rounds
+    refreshScheduler = new TimingWheelLockRefreshScheduler(taskScheduler, Executors.newSingleThreadExecutor(), Duration.ofMillis(10), 4, 2);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    refreshScheduler.destroy();
+    taskScheduler.shutdown();
+  }
+
+  @Test
+  public void shouldRefreshPeriodically() throws InterruptedException {
+    when(lock.refresh(anyList(), anyString(), anyString(), anyLong())).thenReturn(true);
+
+    final RefreshHandle handle = refreshScheduler.schedule(lock, lease, 100);
+    TimeUnit.MILLISECONDS.sleep(550);
+    handle.cancel();
+
+    verify(lock, atLeast(4)).refresh(eq(lease.getKeys()), eq("locks"), eq("abc"), eq(1000L));
+    verify(lock, atMost(5)).refresh(eq(lease.getKeys()), eq("locks"), eq("abc"), eq(1000L));
+    assertThat(refreshScheduler.getMaxRenewalLag()).isLessThan(Duration.ofMillis(100));
+  }
+
+  @Test
+  public void shouldNotRefreshBeforeFirstInterval() throws InterruptedException {
+    refreshScheduler.schedule(lock, lease, 200);
+    TimeUnit.MILLISECONDS.sleep(150);
+
+    verify(lock, never()).refresh(anyList(), anyString(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldStopRefreshingWhenCancelled() throws InterruptedException {
+    final RefreshHandle handle = refreshScheduler.schedule(lock, lease, 50);
+    assertThat(refreshScheduler.getQueueDepth()).isEqualTo(1);
+
+    handle.cancel();
+    assertThat(handle.isCancelled()).isTrue();
+    assertThat(handle.isLost()).isFalse();
+    assertThat(refreshScheduler.getQueueDepth()).isZero();
+
+    TimeUnit.MILLISECONDS.sleep(200);
+    verify(lock, never()).refresh(anyList(), anyString(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldStopRefreshingWhenLeaseIsLost() throws InterruptedException {
+    when(lock.refresh(anyList(), anyString(), anyString(), anyLong())).thenReturn(false);
+
+    final RefreshHandle handle = refreshScheduler.schedule(lock, lease, 50);
+    TimeUnit.MILLISECONDS.sleep(250);
+
+    assertThat(handle.isLost()).isTrue();
+    assertThat(handle.isCancelled()).isTrue();
+    assertThat(refreshScheduler.getQueueDepth()).isZero();
+    verify(lock, times(1)).refresh(anyList(), anyString(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldKeepRefreshingAfterFailedRefresh() throws InterruptedException {
+    when(lock.refresh(anyList(), anyString(), anyString(), anyLong()))
+      .thenThrow(new IllegalStateException("connection reset"))
+      .thenReturn(true);
+
+    final RefreshHandle handle = refreshScheduler.schedule(lock, lease, 50);
+    TimeUnit.MILLISECONDS.sleep(180);
+    handle.cancel();
+
+    assertThat(handle.isLost()).isFalse();
+    verify(lock, atLeast(2)).refresh(anyList(), anyString(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldRefreshLeasesDueInTheSameTickInBatches() {
+    final Lease first = new Lease(Collections.singletonList("1"), "locks", "abc", 1000);
+    final Lease second = new Lease(Collections.singletonList("2"), "locks", "def", 1000);
+    final Lease third = new Lease(Collections.singletonList("3"), "locks", "ghi", 1000);
+    when(batchRefreshingLock.refresh(eq("locks"), anyList())).thenReturn(Collections.singletonList(second));
+
+    final RefreshHandle firstHandle = refreshScheduler.schedule(batchRefreshingLock, first, 100);
+    final RefreshHandle secondHandle = refreshScheduler.schedule(batchRefreshingLock, second, 100);
+    final RefreshHandle thirdHandle = refreshScheduler.schedule(batchRefreshingLock, third, 100);
+
+    // batches are limited to 2 leases
+    verify(batchRefreshingLock, timeout(1000)).refresh("locks", List.of(first, second));
+    verify(batchRefreshingLock, timeout(1000)).refresh("locks", List.of(third));
+    verify(batchRefreshingLock, never()).refresh(anyList(), anyString(), anyString(), anyLong());
+
+    assertThat(firstHandle.isLost()).isFalse();
+    assertThat(secondHandle.isLost()).isTrue();
+    assertThat(thirdHandle.isLost()).isFalse();
+    assertThat(refreshScheduler.getQueueDepth()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldNotDelayOtherRefreshesBehindSlowStoreCallByDefault() throws InterruptedException {
+    final Lease slowLease = new Lease(Collections.singletonList("slow"), "locks", "def", 1000);
+    final CountDownLatch releaseSlowRefresh = new CountDownLatch(1);
+    when(lock.refresh(eq(slowLease.getKeys()), anyString(), anyString(), anyLong())).thenAnswer(invocation -> releaseSlowRefresh.await(5, TimeUnit.SECONDS));
+    when(lock.refresh(eq(lease.getKeys()), anyString(), anyString(), anyLong())).thenReturn(true);
+
+    final TimingWheelLockRefreshScheduler defaultScheduler = new TimingWheelLockRefreshScheduler(taskScheduler);
+    try {
+      defaultScheduler.schedule(lock, slowLease, 50);
+      defaultScheduler.schedule(lock, lease, 50);
+
+      verify(lock, timeout(1000).atLeast(5)).refresh(eq(lease.getKeys()), eq("locks"), eq("abc"), eq(1000L));
+    } finally {
+      releaseSlowRefresh.countDown();
+      defaultScheduler.destroy();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.backoff.BackOffContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecorrelatedJitterBackOffPolicyTest {
+
+  @Test
+  public void shouldWaitBetweenInitialIntervalAndMultipliedPreviousWait() {
+    final List<Long> periods = new ArrayList<>();
+    final DecorrelatedJitterBackOffPolicy backOffPolicy = new DecorrelatedJitterBackOffPolicy();
+    backOffPolicy.setInitialInterval(50);
+    backOffPolicy.setMultiplier(3);
+    backOffPolicy.setMaxInterval(1000);
+    backOffPolicy.setSleeper(periods::add);
+
+    final BackOffContext context = backOffPolicy.start(null);
+    for (int i = 0; i < 100; i++) {
+      backOffPolicy.backOff(context);
+    }
+
+    long previous = 50;
+    for (final long period : periods) {
+      assertThat(period).isBetween(50L, Math.min(1000L, previous * 3));
+      previous = period;
+    }
+    // waits are randomized
+    assertThat(new HashSet<>(periods)).hasSizeGreaterThan(1);
+  }
+
+  @Test
+  public void shouldNotWaitLongerThanMaxInterval() {
+    final List<Long> periods = new ArrayList<>();
+    final DecorrelatedJitterBackOffPolicy backOffPolicy = new DecorrelatedJitterBackOffPolicy();
+    backOffPolicy.setInitialInterval(50);
+    backOffPolicy.setMaxInterval(20);
+    backOffPolicy.setSleeper(periods::add);
+
+    final BackOffContext context = backOffPolicy.start(null);
+    backOffPolicy.backOff(context);
+    backOffPolicy.backOff(context);
+
+    assertThat(periods).containsExactly(20L, 20L);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import com.github.alturkovic.lock.Backoff;
+import com.github.alturkovic.lock.Interval;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.ReactiveLock;
+import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
+import com.github.alturkovic.lock.interval.IntervalConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class DefaultReactiveRetriableLockFactoryTest {
+
+  private final IntervalConverter intervalConverter = new BeanFactoryAwareIntervalConverter(new DefaultListableBeanFactory());
+  private final ReactiveLock lock = mock(ReactiveLock.class);
+
+  @Test
+  @Locked
+  public void shouldGenerateDefaultRetriableLock() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    final ReactiveRetriableLock retriableLock = (ReactiveRetriableLock) new DefaultReactiveRetriableLockFactory(intervalConverter).generate(lock, locked);
+
+    assertThat(retriableLock.getLock()).isSameAs(lock);
+    assertThat(retriableLock.getTimeout()).isEqualTo(1000L);
+    assertThat(retriableLock.getBackOff()).isInstanceOfSatisfying(FixedBackOff.class, backOff -> assertThat(backOff.getInterval()).isEqualTo(50L));
+  }
+
+  @Test
+  @Locked(retry = @Interval("100"), timeout = @Interval("2000"), backoff = @Backoff(strategy = Backoff.Strategy.EXPONENTIAL, multiplier = 3))
+  public void shouldGenerateExponentialRetriableLock() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    final ReactiveRetriableLock retriableLock = (ReactiveRetriableLock) new DefaultReactiveRetriableLockFactory(intervalConverter).generate(lock, locked);
+
+    assertThat(retriableLock.getTimeout()).isEqualTo(2000L);
+    assertThat(retriableLock.getBackOff()).isInstanceOfSatisfying(ExponentialBackOff.class, backOff -> {
+      assertThat(backOff.getInitialInterval()).isEqualTo(100L);
+      assertThat(backOff.getMultiplier()).isEqualTo(3);
+      assertThat(backOff.getMaxInterval()).isEqualTo(2000L);
+    });
+  }
+
+  @Test
+  @Locked(retry = @Interval("100"), backoff = @Backoff(strategy = Backoff.Strategy.DECORRELATED_JITTER, maxInterval = @Interval("500")))
+  public void shouldGenerateDecorrelatedJitterRetriableLock() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    final ReactiveRetriableLock retriableLock = (ReactiveRetriableLock) new DefaultReactiveRetriableLockFactory(intervalConverter).generate(lock, locked);
+
+    assertThat(retriableLock.getBackOff()).isInstanceOfSatisfying(DecorrelatedJitterBackOff.class, backOff -> {
+      assertThat(backOff.getInitialInterval()).isEqualTo(100L);
+      assertThat(backOff.getMaxInterval()).isEqualTo(500L);
+    });
+  }
+
+  @Test
+  @Locked(retry = @Interval("0"))
+  public void shouldGenerateSameLockWithNoRetry() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    assertThat(new DefaultReactiveRetriableLockFactory(intervalConverter).generate(lock, locked)).isSameAs(lock);
+  }
+
+  @Test
+  @Locked(timeout = @Interval("0"))
+  public void shouldGenerateSameLockWithNoTimeout() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    assertThat(new DefaultReactiveRetriableLockFactory(intervalConverter).generate(lock, locked)).isSameAs(lock);
+  }
+}
@@ -24,6 +24,7 @@
 
 package com.github.alturkovic.lock.retry;
 
+import com.github.alturkovic.lock.Backoff;
 import com.github.alturkovic.lock.Interval;
 import com.github.alturkovic.lock.Locked;
 import com.github.alturkovic.lock.interval.BeanFactoryAwareIntervalConverter;
@@ -33,6 +34,7 @@ import org.springframework.beans.ConfigurablePropertyAccessor;
 import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.CompositeRetryPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
@@ -85,6 +87,34 @@ public class DefaultRetryTemplateConverterTest {
     assertThat(retryTemplate).isNull();
   }
 
+  @Test
+  @Locked(retry = @Interval("100"), backoff = @Backoff(strategy = Backoff.Strategy.EXPONENTIAL, multiplier = 1.5, maxInterval = @Interval("400")))
+  public void shouldConstructExponentialRetryTemplate() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    final RetryTemplateConverter converter = new DefaultRetryTemplateConverter(intervalConverter);
+    final RetryTemplate retryTemplate = converter.construct(locked);
+
+    final Object backOffPolicy = PropertyAccessorFactory.forDirectFieldAccess(retryTemplate).getPropertyValue("backOffPolicy");
+    assertThat(backOffPolicy).isInstanceOf(ExponentialBackOffPolicy.class);
+    assertThat(((ExponentialBackOffPolicy) backOffPolicy).getInitialInterval()).isEqualTo(100L);
+    assertThat(((ExponentialBackOffPolicy) backOffPolicy).getMultiplier()).isEqualTo(1.5);
+    assertThat(((ExponentialBackOffPolicy) backOffPolicy).getMaxInterval()).isEqualTo(400L);
+  }
+
+  @Test
+  @Locked(retry = @Interval("100"), timeout = @Interval("2000"), backoff = @Backoff(strategy = Backoff.Strategy.DECORRELATED_JITTER))
+  public void shouldConstructDecorrelatedJitterRetryTemplateCappedByTimeout() {
+    final Locked locked = new Object() {}.getClass().getEnclosingMethod().getAnnotation(Locked.class);
+    final RetryTemplateConverter converter = new DefaultRetryTemplateConverter(intervalConverter);
+    final RetryTemplate retryTemplate = converter.construct(locked);
+
+    final Object backOffPolicy = PropertyAccessorFactory.forDirectFieldAccess(retryTemplate).getPropertyValue("backOffPolicy");
+    assertThat(backOffPolicy).isInstanceOf(DecorrelatedJitterBackOffPolicy.class);
+    assertThat(((DecorrelatedJitterBackOffPolicy) backOffPolicy).getInitialInterval()).isEqualTo(100L);
+    assertThat(((DecorrelatedJitterBackOffPolicy) backOffPolicy).getMultiplier()).isEqualTo(2);
+    assertThat(((DecorrelatedJitterBackOffPolicy) backOffPolicy).getMaxInterval()).isEqualTo(2000L);
+  }
+
   // is there a better way to test the RetryTemplate construction?
   private void assertRetryTemplateConstruction(final RetryTemplate retryTemplate, final long timeout, final long backOff) {
     final ConfigurablePropertyAccessor wrapper = PropertyAccessorFactory.forDirectFieldAccess(retryTemplate);
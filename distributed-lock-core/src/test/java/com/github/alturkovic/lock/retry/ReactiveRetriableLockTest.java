@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.retry;
+
+import com.github.alturkovic.lock.ReactiveLock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.backoff.FixedBackOff;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveRetriableLockTest {
+
+  @Mock
+  private ReactiveLock lock;
+
+  @Test
+  public void shouldNotAcquireBeforeSubscription() {
+    final ReactiveRetriableLock retriableLock = new ReactiveRetriableLock(lock, new FixedBackOff(10), 1000);
+    retriableLock.acquire(Collections.singletonList("key"), "defaultStore", 1000L);
+
+    verifyNoInteractions(lock);
+  }
+
+  @Test
+  public void shouldRetryWhenFirstAttemptIsNotSuccessful() {
+    when(lock.acquire(anyList(), anyString(), anyLong()))
+      .thenReturn(Mono.empty())
+      .thenReturn(Mono.just("abc"));
+
+    final ReactiveRetriableLock retriableLock = new ReactiveRetriableLock(lock, new FixedBackOff(10), 1000);
+    final String token = retriableLock.acquire(Collections.singletonList("key"), "defaultStore", 1000L).block();
+
+    assertThat(token).isEqualTo("abc");
+    verify(lock, times(2)).acquire(anyList(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldStopRetryingWhenBackOffStops() {
+    when(lock.acquire(anyList(), anyString(), anyLong()))
+      .thenReturn(Mono.empty());
+
+    final ReactiveRetriableLock retriableLock = new ReactiveRetriableLock(lock, new FixedBackOff(10, 2), 1000);
+    final String token = retriableLock.acquire(Collections.singletonList("key"), "defaultStore", 1000L).block();
+
+    assertThat(token).isNull();
+    verify(lock, times(3)).acquire(anyList(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldStopRetryingWhenTimeoutElapses() {
+    when(lock.acquire(anyList(), anyString(), anyLong()))
+      .thenReturn(Mono.empty());
+
+    final ReactiveRetriableLock retriableLock = new ReactiveRetriableLock(lock, new FixedBackOff(50), 120);
+    final long start = System.currentTimeMillis();
+    final String token = retriableLock.acquire(Collections.singletonList("key"), "defaultStore", 1000L).block();
+
+    assertThat(token).isNull();
+    assertThat(System.currentTimeMillis() - start).isBetween(120L, 1000L);
+    verify(lock, atLeast(2)).acquire(anyList(), anyString(), anyLong());
+  }
+
+  @Test
+  public void shouldWaitWithoutHoldingThreads() {
+    final AtomicBoolean released = new AtomicBoolean();
+    when(lock.acquire(anyList(), anyString(), anyLong()))
+      .thenAnswer(invocation -> released.get() ? Mono.just("abc") : Mono.empty());
+
+    final ReactiveRetriableLock retriableLock = new ReactiveRetriableLock(lock, new FixedBackOff(20), 10000);
+    final int threadsBefore = Thread.activeCount();
+
+    final List<Mono<String>> acquisitions = IntStream.range(0, 5000)
+      .mapToObj(i -> retriableLock.acquire(Collections.singletonList("key"), "defaultStore", 1000L).cache())
+      .toList();
+    acquisitions.forEach(Mono::subscribe);
+
+    assertThat(Thread.activeCount() - threadsBefore).isLessThan(Runtime.getRuntime().availableProcessors() + 10);
+
+    released.set(true);
+    final List<String> tokens = Flux.merge(acquisitions).collectList().block(Duration.ofSeconds(10));
+    assertThat(tokens).hasSize(5000).containsOnly("abc");
+  }
+}
@@ -24,12 +24,14 @@
 
 package com.github.alturkovic.lock.retry;
 
+import com.github.alturkovic.lock.AwaitableLock;
 import com.github.alturkovic.lock.Lock;
 import java.util.Collections;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.NeverRetryPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
@@ -38,6 +40,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,6 +51,9 @@ public class RetriableLockTest {
   @Mock
   private Lock lock;
 
+  @Mock
+  private AwaitableLock awaitableLock;
+
   @Test
   public void shouldNotRetryWhenFirstAttemptIsSuccessful() {
     when(lock.acquire(anyList(), anyString(), anyLong()))
@@ -92,4 +98,25 @@ public class RetriableLockTest {
     assertThat(token).isNull();
     verify(lock, times(1)).acquire(anyList(), anyString(), anyLong());
   }
+
+  @Test
+  public void shouldAwaitReleaseInsteadOfSleepingWhenLockIsAwaitable() throws InterruptedException {
+    when(awaitableLock.acquire(anyList(), anyString(), anyLong()))
+      .thenReturn(null)
+      .thenReturn("abc");
+
+    final FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
+    backOffPolicy.setBackOffPeriod(5000L);
+    backOffPolicy.setSleeper(new ReleaseAwareSleeper());
+
+    final RetryTemplate retryTemplate = new RetryTemplate();
+    retryTemplate.setRetryPolicy(new SimpleRetryPolicy(2));
+    retryTemplate.setBackOffPolicy(backOffPolicy);
+
+    final RetriableLock retriableLock = new RetriableLock(awaitableLock, retryTemplate);
+    final String token = retriableLock.acquire(Collections.singletonList("key"), "defaultStore", 1000L);
+
+    assertThat(token).isEqualTo("abc");
+    verify(awaitableLock).awaitRelease(eq(Collections.singletonList("key")), eq("defaultStore"), eq(5000L));
+  }
 }
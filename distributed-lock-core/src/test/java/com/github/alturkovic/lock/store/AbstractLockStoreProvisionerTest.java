@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.store;
+
+import com.github.alturkovic.lock.Lock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AbstractLockStoreProvisionerTest {
+
+  @Test
+  public void shouldNotCheckStoresWithNoneProvisioning() {
+    final IndexListProvisioner provisioner = new IndexListProvisioner(LockStoreProvisioning.NONE, "ttl");
+    provisioner.provision("locks");
+    assertThat(provisioner.checks.get()).isZero();
+  }
+
+  @Test
+  public void shouldOnlyWarnAboutMissingIndexes() {
+    final IndexListProvisioner provisioner = new IndexListProvisioner(LockStoreProvisioning.WARN, "ttl");
+    provisioner.provision("locks");
+    assertThat(provisioner.created).isEmpty();
+  }
+
+  @Test
+  public void shouldOnlyWarnWhenCheckFails() {
+    final IndexListProvisioner provisioner = new IndexListProvisioner(LockStoreProvisioning.WARN);
+    provisioner.failure = new IllegalStateException("missing store");
+    provisioner.provision("locks");
+    assertThat(provisioner.checks.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldFailOnMissingIndexes() {
+    final IndexListProvisioner provisioner = new IndexListProvisioner(LockStoreProvisioning.VALIDATE, "ttl", "unique");
+    assertThatThrownBy(() -> provisioner.provision("locks"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("[ttl, unique]");
+
+    // failed store is checked again
+    assertThatThrownBy(() -> provisioner.provision("locks")).isInstanceOf(IllegalStateException.class);
+    assertThat(provisioner.checks.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldCreateMissingIndexes() {
+    final IndexListProvisioner provisioner = new IndexListProvisioner(LockStoreProvisioning.CREATE, "ttl", "unique");
+    provisioner.provision("locks");
+    assertThat(provisioner.created).containsExactly("locks:ttl", "locks:unique");
+  }
+
+  @Test
+  public void shouldCheckEveryStoreOnce() {
+    final IndexListProvisioner provisioner = new IndexListProvisioner(LockStoreProvisioning.VALIDATE);
+    provisioner.provision("locks");
+    provisioner.provision("locks");
+    provisioner.provision("other_locks");
+    assertThat(provisioner.checks.get()).isEqualTo(2);
+  }
+
+  private static class IndexListProvisioner extends AbstractLockStoreProvisioner<String> {
+    private final List<String> missing;
+    private final List<String> created = new ArrayList<>();
+    private final AtomicInteger checks = new AtomicInteger();
+    private RuntimeException failure;
+
+    private IndexListProvisioner(final LockStoreProvisioning provisioning, final String... missing) {
+      super(provisioning);
+      this.missing = Arrays.asList(missing);
+    }
+
+    @Override
+    public boolean supports(final Lock lock) {
+      return true;
+    }
+
+    @Override
+    protected List<String> findMissingIndexes(final String storeId) {
+      checks.incrementAndGet();
+      if (failure != null) {
+        throw failure;
+      }
+      return missing;
+    }
+
+    @Override
+    protected void createIndex(final String storeId, final String index) {
+      created.add(storeId + ":" + index);
+    }
+  }
+}
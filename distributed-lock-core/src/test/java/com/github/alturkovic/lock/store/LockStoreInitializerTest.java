@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.store;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.Locked;
+import com.github.alturkovic.lock.advice.LockTypeResolver;
+import com.github.alturkovic.lock.advice.support.SimpleLock;
+import com.github.alturkovic.lock.advice.support.SimpleLocked;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LockStoreInitializerTest {
+  private final Lock lock = new SimpleLock();
+  private final LockTypeResolver lockTypeResolver = Mockito.mock(LockTypeResolver.class);
+  private final LockStoreProvisioner provisioner = Mockito.mock(LockStoreProvisioner.class);
+  private final LockStoreProvisioner otherProvisioner = Mockito.mock(LockStoreProvisioner.class);
+  private DefaultListableBeanFactory beanFactory;
+
+  @BeforeEach
+  public void setUp() {
+    when(lockTypeResolver.get(SimpleLock.class)).thenReturn(lock);
+    when(provisioner.supports(lock)).thenReturn(true);
+
+    beanFactory = new DefaultListableBeanFactory();
+    beanFactory.registerBeanDefinition("lockedService", new RootBeanDefinition(LockedService.class));
+    beanFactory.registerBeanDefinition("otherLockedService", new RootBeanDefinition(OtherLockedService.class));
+    beanFactory.registerBeanDefinition("plainService", new RootBeanDefinition(String.class));
+  }
+
+  @Test
+  public void shouldFindStoreIdsOfLockedMethods() {
+    final LockStoreInitializer initializer = new LockStoreInitializer(beanFactory, lockTypeResolver, Collections.singletonList(provisioner));
+
+    assertThat(initializer.findStoreIds())
+      .containsOnlyKeys(SimpleLock.class, Lock.class)
+      .hasEntrySatisfying(SimpleLock.class, storeIds -> assertThat(storeIds).containsExactly("distributed_lock", "locks", "other_locks"))
+      .hasEntrySatisfying(Lock.class, storeIds -> assertThat(storeIds).containsExactly("unresolved"));
+  }
+
+  @Test
+  public void shouldProvisionStoresWithSupportingProvisioners() {
+    when(lockTypeResolver.get(Lock.class)).thenThrow(new NoSuchBeanDefinitionException(Lock.class));
+    final LockStoreInitializer initializer = new LockStoreInitializer(beanFactory, lockTypeResolver, Arrays.asList(provisioner, otherProvisioner));
+
+    initializer.afterSingletonsInstantiated();
+
+    verify(provisioner).provision("distributed_lock");
+    verify(provisioner).provision("locks");
+    verify(provisioner).provision("other_locks");
+    verify(provisioner, never()).provision("unresolved");
+    verify(otherProvisioner, never()).provision(any());
+  }
+
+  public static class LockedService {
+
+    @Locked(type = SimpleLock.class, storeId = "locks")
+    public void locked() {
+    }
+
+    @Locked(type = SimpleLock.class, storeId = "locks")
+    public void lockedInSameStore() {
+    }
+
+    @SimpleLocked
+    public void aliased() {
+    }
+
+    @Locked(storeId = "unresolved")
+    public void unresolved() {
+    }
+  }
+
+  public static class OtherLockedService {
+
+    @Locked(type = SimpleLock.class, storeId = "other_locks")
+    public void locked() {
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.token;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SequenceTokenSupplierTest {
+
+  @Test
+  public void shouldGenerateUrlSafeTokens() {
+    final SequenceTokenSupplier tokenSupplier = new SequenceTokenSupplier();
+    for (int i = 0; i < 1000; i++) {
+      assertThat(tokenSupplier.get()).hasSize(22).matches("[A-Za-z0-9_-]+");
+    }
+  }
+
+  @Test
+  public void shouldGenerateUniqueTokens() {
+    final SequenceTokenSupplier tokenSupplier = new SequenceTokenSupplier();
+    final Set<String> tokens = new HashSet<>();
+    for (int i = 0; i < 100000; i++) {
+      tokens.add(tokenSupplier.get());
+    }
+    assertThat(tokens).hasSize(100000);
+  }
+
+  @Test
+  public void shouldEncodeNodeIdAndCounter() {
+    final SequenceTokenSupplier tokenSupplier = new SequenceTokenSupplier(0, 0);
+    assertThat(tokenSupplier.get()).isEqualTo("AAAAAAAAAAAAAAAAAAAAAA");
+    assertThat(tokenSupplier.get()).isEqualTo("AAAAAAAAAAAAAAAAAAAAAB");
+    assertThat(tokenSupplier.get()).isEqualTo("AAAAAAAAAAAAAAAAAAAAAC");
+    assertThat(tokenSupplier.get()).isEqualTo("AAAAAAAAAAAAAAAAAAAAAD");
+    assertThat(tokenSupplier.get()).isEqualTo("AAAAAAAAAAAAAAAAAAAABA");
+
+    assertThat(new SequenceTokenSupplier(-1, -1).get()).isEqualTo("_____________________D");
+  }
+
+  @Test
+  public void shouldGenerateDifferentTokensOnDifferentNodes() {
+    final SequenceTokenSupplier first = new SequenceTokenSupplier(1, 42);
+    final SequenceTokenSupplier second = new SequenceTokenSupplier(2, 42);
+    assertThat(first.get()).isNotEqualTo(second.get());
+  }
+}
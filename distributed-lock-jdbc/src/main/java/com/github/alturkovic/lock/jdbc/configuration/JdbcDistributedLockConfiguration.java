@@ -25,24 +25,97 @@
 package com.github.alturkovic.lock.jdbc.configuration;
 
 import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.jdbc.dialect.JdbcLockDialect;
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
+import com.github.alturkovic.lock.jdbc.impl.MultiJdbcLock;
+import com.github.alturkovic.lock.jdbc.impl.PostgresAdvisoryLock;
 import com.github.alturkovic.lock.jdbc.impl.SimpleJdbcLock;
+import com.github.alturkovic.lock.jdbc.service.ExpiredLockSweeper;
+import com.github.alturkovic.lock.jdbc.service.JdbcLockMultiKeyService;
 import com.github.alturkovic.lock.jdbc.service.JdbcLockSingleKeyService;
+import com.github.alturkovic.lock.jdbc.service.JdbcLockStoreProvisioner;
+import com.github.alturkovic.lock.jdbc.service.JdbcLockTransactionMode;
+import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockMultiKeyService;
 import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockSingleKeyService;
-import java.util.UUID;
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import com.github.alturkovic.lock.token.TokenSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 public class JdbcDistributedLockConfiguration {
 
   @Bean
-  public Lock simpleJdbcLock(final JdbcLockSingleKeyService jdbcLockSingleKeyService) {
-    return new SimpleJdbcLock(() -> UUID.randomUUID().toString(), jdbcLockSingleKeyService);
+  public Lock simpleJdbcLock(final TokenSupplier tokenSupplier, final JdbcLockSingleKeyService jdbcLockSingleKeyService) {
+    return new SimpleJdbcLock(tokenSupplier, jdbcLockSingleKeyService);
   }
 
   @Bean
-  public JdbcLockSingleKeyService jdbcLockSingleKeyService(final JdbcTemplate jdbcTemplate) {
-    return new SimpleJdbcLockSingleKeyService(jdbcTemplate);
+  public Lock multiJdbcLock(final TokenSupplier tokenSupplier, final JdbcLockMultiKeyService jdbcLockMultiKeyService) {
+    return new MultiJdbcLock(tokenSupplier, jdbcLockMultiKeyService);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.jdbc.advisory", name = "enabled", havingValue = "true")
+  public Lock postgresAdvisoryLock(final TokenSupplier tokenSupplier, final JdbcTemplate jdbcTemplate) {
+    return new PostgresAdvisoryLock(tokenSupplier, jdbcTemplate);
+  }
+
+  @Bean
+  public SimpleJdbcLockSingleKeyService jdbcLockSingleKeyService(final JdbcTemplate jdbcTemplate,
+                                                                 @Autowired(required = false) final JdbcLockDialect jdbcLockDialect,
+                                                                 final JdbcLockTransactionMode jdbcLockTransactionMode,
+                                                                 final PlatformTransactionManager transactionManager) {
+    return new SimpleJdbcLockSingleKeyService(jdbcTemplate, jdbcLockDialect, jdbcLockTransactionMode.transactionOperations(transactionManager));
+  }
+
+  @Bean
+  public SimpleJdbcLockMultiKeyService jdbcLockMultiKeyService(final JdbcTemplate jdbcTemplate,
+                                                               @Autowired(required = false) final JdbcLockDialect jdbcLockDialect,
+                                                               final JdbcLockTransactionMode jdbcLockTransactionMode,
+                                                               final PlatformTransactionManager transactionManager) {
+    return new SimpleJdbcLockMultiKeyService(jdbcTemplate, jdbcLockDialect, jdbcLockTransactionMode.transactionOperations(transactionManager));
+  }
+
+  @Bean
+  public JdbcLockStoreProvisioner jdbcLockStoreProvisioner(final LockStoreProvisioning lockStoreProvisioning, final JdbcTemplate jdbcTemplate) {
+    return new JdbcLockStoreProvisioner(lockStoreProvisioning, jdbcTemplate);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.jdbc.transaction", name = "mode", havingValue = "transactional", matchIfMissing = true)
+  public JdbcLockTransactionMode transactionalJdbcLockTransactionMode() {
+    return JdbcLockTransactionMode.TRANSACTIONAL;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.jdbc.transaction", name = "mode", havingValue = "autocommit")
+  public JdbcLockTransactionMode autocommitJdbcLockTransactionMode() {
+    return JdbcLockTransactionMode.AUTOCOMMIT;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.jdbc.dialect", name = "detect", havingValue = "true", matchIfMissing = true)
+  public JdbcLockDialect jdbcLockDialect(final JdbcTemplate jdbcTemplate) {
+    // unsupported databases get no dialect and fall back to deleting the expired lock of the key before inserting
+    return StandardJdbcLockDialect.detect(jdbcTemplate.getDataSource());
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.jdbc.sweeper", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public ExpiredLockSweeper expiredLockSweeper(final SimpleJdbcLockSingleKeyService jdbcLockSingleKeyService,
+                                               @Autowired(required = false) final SimpleJdbcLockMultiKeyService jdbcLockMultiKeyService,
+                                               @Lazy @Autowired(required = false) final TaskScheduler distributedLockTaskScheduler) {
+    return new ExpiredLockSweeper(jdbcLockSingleKeyService, jdbcLockMultiKeyService, distributedLockTaskScheduler);
   }
 }
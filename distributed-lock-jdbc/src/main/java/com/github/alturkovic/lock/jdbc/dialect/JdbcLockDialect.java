@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.dialect;
+
+import java.util.Collections;
+import java.util.Date;
+
+/**
+ * Database specific queries used to acquire a lock in a single statement, to insert multiple locks at once
+ * and to delete expired locks in batches.
+ */
+public interface JdbcLockDialect {
+
+  /**
+   * Query that inserts the lock or takes over an expired lock with the same key in a single statement.
+   * <p>
+   * The query is bound with {@link #getAcquireArguments(String, String, Date, Date)} and must affect at least one row
+   * only if the lock was acquired.
+   *
+   * @param tableName table holding the locks
+   * @return the acquire query
+   */
+  String getAcquireQuery(String tableName);
+
+  /**
+   * Arguments of the {@link #getAcquireQuery(String) acquire query}, by default the lock key, token, expiration
+   * and the current time, in that order.
+   *
+   * @param key      lock key
+   * @param token    token of the new lock
+   * @param expireAt expiration of the new lock
+   * @param now      current time, locks that expired before it can be taken over
+   * @return the acquire query arguments
+   */
+  default Object[] getAcquireArguments(final String key, final String token, final Date expireAt, final Date now) {
+    return new Object[]{key, token, expireAt, now};
+  }
+
+  /**
+   * Whether the {@link #getAcquireQuery(String) acquire query} can also report an existing lock that it left unchanged
+   * as one affected row. The token of the lock is then read back to tell an inserted lock from a lock held by someone else.
+   *
+   * @return {@code true} if one affected row does not prove that the lock was acquired
+   */
+  default boolean isAcquireCountAmbiguous() {
+    return false;
+  }
+
+  /**
+   * Query that inserts multiple locks in a single statement, by default a multi-row {@code INSERT ... VALUES}.
+   * <p>
+   * The query is bound with the lock key, token and expiration of every lock, in that order.
+   *
+   * @param tableName table holding the locks
+   * @param locks     number of inserted locks
+   * @return the insert query
+   */
+  default String getInsertQuery(final String tableName, final int locks) {
+    return String.format("INSERT INTO %s (lock_key, token, expireAt) VALUES %s", tableName, String.join(", ", Collections.nCopies(locks, "(?, ?, ?)")));
+  }
+
+  /**
+   * Query that deletes a limited number of expired locks.
+   * <p>
+   * The query is bound with {@link #getDeleteExpiredArguments(Date, int)} and must check the expiration of every
+   * deleted lock, so that a lock taken over concurrently is not deleted.
+   *
+   * @param tableName table holding the locks
+   * @return the delete query
+   */
+  String getDeleteExpiredQuery(String tableName);
+
+  /**
+   * Arguments of the {@link #getDeleteExpiredQuery(String) delete query}, by default the current time and the limit,
+   * in that order.
+   *
+   * @param now   current time, locks that expired before it are deleted
+   * @param limit maximum number of locks to delete
+   * @return the delete query arguments
+   */
+  default Object[] getDeleteExpiredArguments(final Date now, final int limit) {
+    return new Object[]{now, limit};
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.dialect;
+
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import javax.sql.DataSource;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * {@link JdbcLockDialect} implementations for the common databases.
+ */
+@Slf4j
+@AllArgsConstructor
+public enum StandardJdbcLockDialect implements JdbcLockDialect {
+  POSTGRESQL("INSERT INTO %1$s (lock_key, token, expireAt) VALUES (?, ?, ?) " +
+    "ON CONFLICT (lock_key) DO UPDATE SET token = EXCLUDED.token, expireAt = EXCLUDED.expireAt WHERE %1$s.expireAt < ?",
+    "DELETE FROM %1$s WHERE expireAt < ? AND lock_key IN (SELECT lock_key FROM %1$s WHERE expireAt < ? LIMIT ? FOR UPDATE SKIP LOCKED)") {
+
+    @Override
+    public Object[] getDeleteExpiredArguments(final Date now, final int limit) {
+      return new Object[]{now, now, limit};
+    }
+  },
+
+  /**
+   * MySQL and MariaDB report a row matched by {@code ON DUPLICATE KEY UPDATE} but left unchanged as affected
+   * unless the connection is configured with {@code useAffectedRows=true}, so a single affected row is verified by reading the token back.
+   */
+  MYSQL("INSERT INTO %1$s (lock_key, token, expireAt) VALUES (?, ?, ?) " +
+    "ON DUPLICATE KEY UPDATE token = CASE WHEN expireAt < ? THEN VALUES(token) ELSE token END, " +
+    "expireAt = CASE WHEN expireAt < ? THEN VALUES(expireAt) ELSE expireAt END",
+    "DELETE FROM %1$s WHERE expireAt < ? LIMIT ?") {
+
+    @Override
+    public Object[] getAcquireArguments(final String key, final String token, final Date expireAt, final Date now) {
+      // token is assigned before expireAt, so both assignments still compare the expiration of the existing lock
+      return new Object[]{key, token, expireAt, now, now};
+    }
+
+    @Override
+    public boolean isAcquireCountAmbiguous() {
+      return true;
+    }
+  },
+
+  H2("MERGE INTO %1$s t USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP))) s (lock_key, token, expireAt) " +
+    "ON t.lock_key = s.lock_key " +
+    "WHEN MATCHED AND t.expireAt < ? THEN UPDATE SET token = s.token, expireAt = s.expireAt " +
+    "WHEN NOT MATCHED THEN INSERT (lock_key, token, expireAt) VALUES (s.lock_key, s.token, s.expireAt)",
+    "DELETE FROM %1$s WHERE expireAt < ? FETCH FIRST ? ROWS ONLY"),
+
+  ORACLE("MERGE INTO %1$s t USING (SELECT ? AS lock_key, ? AS token, ? AS expireAt FROM dual) s " +
+    "ON (t.lock_key = s.lock_key) " +
+    "WHEN MATCHED THEN UPDATE SET t.token = s.token, t.expireAt = s.expireAt WHERE t.expireAt < ? " +
+    "WHEN NOT MATCHED THEN INSERT (lock_key, token, expireAt) VALUES (s.lock_key, s.token, s.expireAt)",
+    "DELETE FROM %1$s WHERE expireAt < ? AND ROWNUM <= ?") {
+
+    @Override
+    public String getInsertQuery(final String tableName, final int locks) {
+      // multi-row VALUES is only supported since Oracle 23ai
+      final String into = String.format("INTO %s (lock_key, token, expireAt) VALUES (?, ?, ?)", tableName);
+      return "INSERT ALL " + String.join(" ", Collections.nCopies(locks, into)) + " SELECT 1 FROM dual";
+    }
+  },
+
+  /**
+   * {@code HOLDLOCK} keeps concurrent merges of the same missing key from both inserting it.
+   */
+  SQL_SERVER("MERGE INTO %1$s WITH (HOLDLOCK) AS t USING (VALUES (?, ?, ?)) AS s (lock_key, token, expireAt) " +
+    "ON t.lock_key = s.lock_key " +
+    "WHEN MATCHED AND t.expireAt < ? THEN UPDATE SET token = s.token, expireAt = s.expireAt " +
+    "WHEN NOT MATCHED THEN INSERT (lock_key, token, expireAt) VALUES (s.lock_key, s.token, s.expireAt);",
+    "DELETE TOP (?) FROM %1$s WHERE expireAt < ?") {
+
+    @Override
+    public Object[] getDeleteExpiredArguments(final Date now, final int limit) {
+      return new Object[]{limit, now};
+    }
+  };
+
+  private final String acquireFormattedQuery;
+  private final String deleteExpiredFormattedQuery;
+
+  @Override
+  public String getAcquireQuery(final String tableName) {
+    return String.format(acquireFormattedQuery, tableName);
+  }
+
+  @Override
+  public String getDeleteExpiredQuery(final String tableName) {
+    return String.format(deleteExpiredFormattedQuery, tableName);
+  }
+
+  /**
+   * Resolve the dialect from the database product name.
+   *
+   * @param databaseProductName product name as reported by {@link DatabaseMetaData#getDatabaseProductName()}
+   * @return dialect of the database or {@code null} if the database is not supported
+   */
+  public static StandardJdbcLockDialect fromDatabaseProductName(final String databaseProductName) {
+    if (databaseProductName == null) {
+      return null;
+    }
+
+    final String name = databaseProductName.toLowerCase(Locale.ROOT);
+    if (name.contains("postgresql")) {
+      return POSTGRESQL;
+    } else if (name.contains("mysql") || name.contains("mariadb")) {
+      return MYSQL;
+    } else if (name.equals("h2")) {
+      return H2;
+    } else if (name.contains("oracle")) {
+      return ORACLE;
+    } else if (name.contains("sql server")) {
+      return SQL_SERVER;
+    }
+    return null;
+  }
+
+  /**
+   * Resolve the dialect of the database behind the given {@link DataSource}.
+   *
+   * @param dataSource data source to inspect
+   * @return dialect of the database or {@code null} if the database is not supported or cannot be inspected
+   */
+  public static StandardJdbcLockDialect detect(final DataSource dataSource) {
+    try {
+      final String databaseProductName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+      final StandardJdbcLockDialect dialect = fromDatabaseProductName(databaseProductName);
+      if (dialect == null) {
+        log.info("No lock dialect for database {}, locks will be acquired by deleting the expired lock of the key before inserting", databaseProductName);
+      }
+      return dialect;
+    } catch (final MetaDataAccessException e) {
+      log.warn("Cannot detect database to resolve lock dialect, locks will be acquired by deleting the expired lock of the key before inserting", e);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.impl;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.jdbc.service.ExpiredLockSweeper;
+import com.github.alturkovic.lock.jdbc.service.JdbcLockMultiKeyService;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+@Data
+@AllArgsConstructor
+public class MultiJdbcLock implements Lock {
+  private final Supplier<String> tokenSupplier;
+  private final JdbcLockMultiKeyService lockMultiKeyService;
+
+  @Override
+  public String acquire(final List<String> keys, final String storeId, final long expiration) {
+    final String token = tokenSupplier.get();
+    if (!StringUtils.hasText(token)) {
+      throw new IllegalStateException("Cannot lock with empty token");
+    }
+    keys.forEach(key -> Assert.isTrue(!key.startsWith(ExpiredLockSweeper.RESERVED_KEY_PREFIX), () -> "Lock key is reserved: " + key));
+
+    return lockMultiKeyService.acquire(keys, storeId, token, expiration);
+  }
+
+  @Override
+  public boolean release(final List<String> keys, final String storeId, final String token) {
+    return lockMultiKeyService.release(keys, storeId, token);
+  }
+
+  @Override
+  public boolean refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    return lockMultiKeyService.refresh(keys, storeId, token, expiration);
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.impl;
+
+import com.github.alturkovic.lock.AbstractSimpleLock;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Lock using PostgreSQL session level advisory locks instead of a lock table, so locking writes nothing to the database.
+ * <p>
+ * Keys are hashed together with the store id into 64-bit {@link #lockId(String, String) lock ids}. An advisory lock
+ * belongs to the database session that acquired it, so every held lock pins its own connection from the pool until
+ * it is released, and the pool must be sized for the locks held concurrently on top of the regular workload.
+ * <p>
+ * If unlocking fails, the physical connection is aborted so that the pool evicts it together with the session holding the lock.
+ * <p>
+ * The database does not expire advisory locks: a lock is held until it is released or its connection is closed,
+ * which also happens when the holding application dies. An expired lock that was never released is only released
+ * when the same key is acquired again by this lock instance, which also rejects keys it still holds without a round trip.
+ */
+@Slf4j
+public class PostgresAdvisoryLock extends AbstractSimpleLock {
+  public static final String TRY_LOCK_QUERY = "SELECT pg_try_advisory_lock(?)";
+  public static final String UNLOCK_QUERY = "SELECT pg_advisory_unlock(?)";
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+
+  public PostgresAdvisoryLock(final Supplier<String> tokenSupplier, final JdbcTemplate jdbcTemplate) {
+    super(tokenSupplier);
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Hash the key into the 64-bit id of its advisory lock, using FNV-1a over {@code storeId:key}.
+   *
+   * @param storeId store id, used as the namespace of the key
+   * @param key     lock key
+   * @return id of the advisory lock
+   */
+  public static long lockId(final String storeId, final String key) {
+    long hash = FNV_OFFSET_BASIS;
+    for (final byte b : (storeId + ":" + key).getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  @Override
+  protected String acquire(final String key, final String storeId, final String token, final long expiration) {
+    final long lockId = lockId(storeId, key);
+    final Session held = sessions.get(lockId);
+    if (held != null) {
+      if (held.getExpireAt() >= System.currentTimeMillis()) {
+        log.debug("Advisory lock {} for key {} in store {} is held by this application", lockId, key, storeId);
+        return null;
+      }
+      if (sessions.remove(lockId, held)) {
+        log.debug("Releasing expired advisory lock {} held with token {}", lockId, held.getToken());
+        unlock(lockId, held);
+      }
+    }
+
+    final Connection connection = getConnection();
+    final boolean autoCommit;
+    try {
+      autoCommit = connection.getAutoCommit();
+      if (!autoCommit) {
+        // a transaction left open while the lock is held would idle in transaction and hold back vacuum
+        connection.setAutoCommit(true);
+      }
+    } catch (final SQLException e) {
+      JdbcUtils.closeConnection(connection);
+      throw jdbcTemplate.getExceptionTranslator().translate("Enable autocommit of advisory lock connection", null, e);
+    }
+
+    try {
+      if (!execute(connection, TRY_LOCK_QUERY, lockId)) {
+        log.debug("Advisory lock {} for key {} in store {} is held by another session", lockId, key, storeId);
+        close(connection, autoCommit);
+        return null;
+      }
+    } catch (final SQLException e) {
+      close(connection, autoCommit);
+      throw jdbcTemplate.getExceptionTranslator().translate("Acquire advisory lock", TRY_LOCK_QUERY, e);
+    }
+
+    sessions.put(lockId, new Session(key, token, connection, autoCommit, System.currentTimeMillis() + expiration));
+    return token;
+  }
+
+  @Override
+  protected boolean release(final String key, final String storeId, final String token) {
+    final long lockId = lockId(storeId, key);
+    final Session session = sessions.get(lockId);
+    if (session == null || !session.holds(key, token) || !sessions.remove(lockId, session)) {
+      log.error("Advisory lock {} for key {} in store {} is not held with token {}", lockId, key, storeId, token);
+      return false;
+    }
+
+    return unlock(lockId, session);
+  }
+
+  @Override
+  protected boolean refresh(final String key, final String storeId, final String token, final long expiration) {
+    final long lockId = lockId(storeId, key);
+    final Session session = sessions.get(lockId);
+    if (session == null || !session.holds(key, token)) {
+      log.debug("Advisory lock {} for key {} in store {} is not held with token {}", lockId, key, storeId, token);
+      return false;
+    }
+
+    try {
+      if (session.getConnection().isValid(VALIDATION_TIMEOUT_SECONDS)) {
+        session.setExpireAt(System.currentTimeMillis() + expiration);
+        return true;
+      }
+    } catch (final SQLException e) {
+      log.debug("Cannot validate connection holding advisory lock {}", lockId, e);
+    }
+
+    // the session ended, so the database already released the lock
+    log.error("Connection holding advisory lock {} for key {} in store {} was lost", lockId, key, storeId);
+    if (sessions.remove(lockId, session)) {
+      close(session.getConnection(), session.isAutoCommit());
+    }
+    return false;
+  }
+
+  private boolean unlock(final long lockId, final Session session) {
+    final boolean unlocked;
+    try {
+      unlocked = execute(session.getConnection(), UNLOCK_QUERY, lockId);
+    } catch (final SQLException e) {
+      // a pool would hand the session out again still holding the lock, so only ending the session releases it
+      log.warn("Cannot unlock advisory lock {}, aborting its connection", lockId, e);
+      abort(session.getConnection());
+      return false;
+    }
+
+    close(session.getConnection(), session.isAutoCommit());
+    return unlocked;
+  }
+
+  /**
+   * Return the connection to the pool with the autocommit setting it was borrowed with.
+   */
+  private static void close(final Connection connection, final boolean autoCommit) {
+    if (!autoCommit) {
+      try {
+        connection.setAutoCommit(false);
+      } catch (final SQLException e) {
+        log.debug("Cannot restore autocommit of advisory lock connection", e);
+      }
+    }
+    JdbcUtils.closeConnection(connection);
+  }
+
+  /**
+   * Abort the physical connection behind a pooled one, so the pool evicts it instead of reusing its session.
+   */
+  private static void abort(final Connection connection) {
+    try {
+      final Connection physical = connection.isWrapperFor(Connection.class) ? connection.unwrap(Connection.class) : connection;
+      physical.abort(Runnable::run);
+    } catch (final SQLException | RuntimeException e) {
+      log.error("Cannot abort connection, it may be returned to the pool still holding an advisory lock", e);
+    }
+    JdbcUtils.closeConnection(connection);
+  }
+
+  private Connection getConnection() {
+    final DataSource dataSource = jdbcTemplate.getDataSource();
+    try {
+      // a connection of its own instead of a transactional one, since the lock outlives any transaction
+      return dataSource.getConnection();
+    } catch (final SQLException e) {
+      throw jdbcTemplate.getExceptionTranslator().translate("Get advisory lock connection", null, e);
+    }
+  }
+
+  private static boolean execute(final Connection connection, final String query, final long lockId) throws SQLException {
+    try (final PreparedStatement statement = connection.prepareStatement(query)) {
+      statement.setLong(1, lockId);
+      try (final ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() && resultSet.getBoolean(1);
+      }
+    }
+  }
+
+  @Data
+  @AllArgsConstructor
+  private static class Session {
+    private final String key;
+    private final String token;
+    private final Connection connection;
+    private final boolean autoCommit;
+    private volatile long expireAt;
+
+    private boolean holds(final String key, final String token) {
+      return this.key.equals(key) && this.token.equals(token);
+    }
+  }
+}
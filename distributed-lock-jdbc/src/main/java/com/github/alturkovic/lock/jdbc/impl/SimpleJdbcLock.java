@@ -25,10 +25,15 @@
 package com.github.alturkovic.lock.jdbc.impl;
 
 import com.github.alturkovic.lock.AbstractSimpleLock;
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.jdbc.service.ExpiredLockSweeper;
 import com.github.alturkovic.lock.jdbc.service.JdbcLockSingleKeyService;
+import java.util.List;
 import java.util.function.Supplier;
+import org.springframework.util.Assert;
 
-public class SimpleJdbcLock extends AbstractSimpleLock {
+public class SimpleJdbcLock extends AbstractSimpleLock implements BatchRefreshingLock {
   private final JdbcLockSingleKeyService lockSingleKeyService;
 
   public SimpleJdbcLock(final Supplier<String> tokenSupplier, final JdbcLockSingleKeyService lockSingleKeyService) {
@@ -38,6 +43,7 @@ public class SimpleJdbcLock extends AbstractSimpleLock {
 
   @Override
   protected String acquire(final String key, final String storeId, final String token, final long expiration) {
+    Assert.isTrue(!key.startsWith(ExpiredLockSweeper.RESERVED_KEY_PREFIX), () -> "Lock key is reserved: " + key);
     return lockSingleKeyService.acquire(key, storeId, token, expiration);
   }
 
@@ -50,4 +56,9 @@ public class SimpleJdbcLock extends AbstractSimpleLock {
   protected boolean refresh(final String key, final String storeId, final String token, final long expiration) {
     return lockSingleKeyService.refresh(key, storeId, token, expiration);
   }
+
+  @Override
+  public List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    return lockSingleKeyService.refresh(storeId, leases);
+  }
 }
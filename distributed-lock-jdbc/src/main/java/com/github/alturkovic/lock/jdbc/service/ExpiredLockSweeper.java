@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * Periodically deletes expired locks from the stores used by a {@link SimpleJdbcLockSingleKeyService}
+ * and, if given, a {@link SimpleJdbcLockMultiKeyService}.
+ * <p>
+ * Acquiring a lock only takes over an expired lock of the same key, so locks that are never acquired again
+ * would stay in the table without the sweeper. Expired locks are deleted in batches of at most {@code batchSize} locks.
+ * <p>
+ * Only one node sweeps a store at a time: before sweeping, the sweeper acquires its own lock in the store
+ * and leaves it to expire after the sweep interval.
+ */
+@Slf4j
+public class ExpiredLockSweeper implements InitializingBean, DisposableBean {
+  /**
+   * Prefix of keys reserved for the locks of the library itself, JDBC locks refuse to lock application keys starting with it.
+   */
+  public static final String RESERVED_KEY_PREFIX = "$distributed-lock:";
+  public static final String SWEEPER_LOCK_KEY = RESERVED_KEY_PREFIX + "sweeper";
+  public static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  private final String token = UUID.randomUUID().toString();
+
+  private final SimpleJdbcLockSingleKeyService lockService;
+  private final SimpleJdbcLockMultiKeyService multiKeyLockService;
+  private final TaskScheduler taskScheduler;
+  private final Duration interval;
+  private final int batchSize;
+
+  private volatile ScheduledFuture<?> sweeping;
+
+  public ExpiredLockSweeper(final SimpleJdbcLockSingleKeyService lockService, final TaskScheduler taskScheduler) {
+    this(lockService, null, taskScheduler);
+  }
+
+  public ExpiredLockSweeper(final SimpleJdbcLockSingleKeyService lockService, final SimpleJdbcLockMultiKeyService multiKeyLockService, final TaskScheduler taskScheduler) {
+    this(lockService, multiKeyLockService, taskScheduler, DEFAULT_INTERVAL, DEFAULT_BATCH_SIZE);
+  }
+
+  public ExpiredLockSweeper(final SimpleJdbcLockSingleKeyService lockService, final TaskScheduler taskScheduler, final Duration interval, final int batchSize) {
+    this(lockService, null, taskScheduler, interval, batchSize);
+  }
+
+  /**
+   * @param lockService         service used to acquire the locks and sweep the stores
+   * @param multiKeyLockService service whose stores are swept as well, {@code null} to sweep only the stores of {@code lockService}
+   * @param taskScheduler       scheduler used to run the sweeps
+   * @param interval            delay between two sweeps, also the expiration of the sweeper lock
+   * @param batchSize           maximum number of expired locks deleted by a single statement
+   */
+  public ExpiredLockSweeper(final SimpleJdbcLockSingleKeyService lockService, final SimpleJdbcLockMultiKeyService multiKeyLockService,
+                            final TaskScheduler taskScheduler, final Duration interval, final int batchSize) {
+    Assert.isTrue(!interval.isNegative() && !interval.isZero(), "Interval must be positive");
+    Assert.isTrue(batchSize > 0, "Batch size must be positive");
+
+    this.lockService = lockService;
+    this.multiKeyLockService = multiKeyLockService;
+    this.taskScheduler = taskScheduler;
+    this.interval = interval;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    sweeping = taskScheduler.scheduleWithFixedDelay(this::sweep, Instant.now().plus(interval), interval);
+  }
+
+  @Override
+  public void destroy() {
+    final ScheduledFuture<?> scheduledSweeping = this.sweeping;
+    if (scheduledSweeping != null) {
+      scheduledSweeping.cancel(false);
+    }
+  }
+
+  /**
+   * Sweep all stores in which locks were acquired.
+   */
+  public void sweep() {
+    final Set<String> storeIds = new LinkedHashSet<>(lockService.getStoreIds());
+    if (multiKeyLockService != null) {
+      storeIds.addAll(multiKeyLockService.getStoreIds());
+    }
+
+    for (final String storeId : storeIds) {
+      try {
+        sweep(storeId);
+      } catch (final RuntimeException e) {
+        log.warn("Failed to sweep expired locks in store {}", storeId, e);
+      }
+    }
+  }
+
+  /**
+   * Sweep the store if no other node is sweeping it.
+   *
+   * @param storeId store to sweep
+   * @return number of deleted expired locks
+   */
+  public int sweep(final String storeId) {
+    if (lockService.acquire(SWEEPER_LOCK_KEY, storeId, token, interval.toMillis()) == null) {
+      log.debug("Store {} is already being swept by another node", storeId);
+      return 0;
+    }
+
+    int swept = 0;
+    int deleted;
+    do {
+      deleted = lockService.deleteExpired(storeId, batchSize);
+      swept += deleted;
+    } while (deleted >= batchSize);
+
+    log.debug("Swept {} expired locks in store {}", swept, storeId);
+    return swept;
+  }
+}
@@ -24,8 +24,21 @@
 
 package com.github.alturkovic.lock.jdbc.service;
 
+import com.github.alturkovic.lock.Lease;
+import java.util.List;
+
 public interface JdbcLockSingleKeyService {
   String acquire(String key, String storeId, String token, long expiration);
   boolean release(String key, String storeId, String token);
   boolean refresh(String key, String storeId, String token, long expiration);
+
+  /**
+   * Refresh multiple single key leases held in the same store, returning the ones that could not be refreshed.
+   * Implementations should override this to refresh all leases in a single round trip.
+   */
+  default List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    return leases.stream()
+      .filter(lease -> !refresh(lease.getKeys().getFirst(), storeId, lease.getToken(), lease.getExpiration()))
+      .toList();
+  }
 }
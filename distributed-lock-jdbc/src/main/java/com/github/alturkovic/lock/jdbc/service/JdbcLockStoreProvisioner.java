@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.jdbc.impl.MultiJdbcLock;
+import com.github.alturkovic.lock.jdbc.impl.SimpleJdbcLock;
+import com.github.alturkovic.lock.store.AbstractLockStoreProvisioner;
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Ensures the tables of {@link SimpleJdbcLock} and {@link MultiJdbcLock} have a unique index on {@code lock_key},
+ * which locking relies on, and an index on {@code expireAt}, which deleting expired locks relies on.
+ * <p>
+ * Indexes are read from the {@link DatabaseMetaData} of the table, unquoted parts of the store id are converted to the
+ * case the database stores identifiers in.
+ */
+public class JdbcLockStoreProvisioner extends AbstractLockStoreProvisioner<JdbcLockStoreProvisioner.LockIndex> {
+  private static final int MAX_INDEX_NAME_LENGTH = 30;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public JdbcLockStoreProvisioner(final LockStoreProvisioning provisioning, final JdbcTemplate jdbcTemplate) {
+    super(provisioning);
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public boolean supports(final Lock lock) {
+    return lock instanceof SimpleJdbcLock || lock instanceof MultiJdbcLock;
+  }
+
+  @Override
+  protected List<LockIndex> findMissingIndexes(final String storeId) {
+    Assert.isTrue(SimpleJdbcLockSingleKeyService.STORE_ID.matcher(storeId).matches(), () -> "Store id is not a valid table name: " + storeId);
+    return jdbcTemplate.execute((ConnectionCallback<List<LockIndex>>) connection -> {
+      final Map<String, TableIndex> indexes = readIndexes(connection, storeId);
+      return Arrays.stream(LockIndex.values())
+        .filter(index -> indexes.values().stream().noneMatch(index::isSatisfiedBy))
+        .collect(Collectors.toList());
+    });
+  }
+
+  @Override
+  protected void createIndex(final String storeId, final LockIndex index) {
+    jdbcTemplate.execute(index.getCreateQuery(storeId));
+  }
+
+  private static Map<String, TableIndex> readIndexes(final Connection connection, final String storeId) throws SQLException {
+    final DatabaseMetaData metaData = connection.getMetaData();
+    final List<String> parts = parseStoreId(metaData, storeId);
+
+    String catalog = connection.getCatalog();
+    String schema = connection.getSchema();
+    if (parts.size() == 3) {
+      catalog = parts.get(0);
+      schema = parts.get(1);
+    } else if (parts.size() == 2 && metaData.supportsSchemasInTableDefinitions()) {
+      schema = parts.get(0);
+    } else if (parts.size() == 2) {
+      // databases without schemas, such as MySQL, qualify tables with their catalog
+      catalog = parts.get(0);
+      schema = null;
+    }
+
+    final String escape = metaData.getSearchStringEscape();
+    try (ResultSet tables = metaData.getTables(catalog, escape(schema, escape), escape(parts.getLast(), escape), null)) {
+      if (!tables.next()) {
+        throw new IllegalStateException("Lock table does not exist: " + storeId);
+      }
+      catalog = tables.getString("TABLE_CAT");
+      schema = tables.getString("TABLE_SCHEM");
+      final String table = tables.getString("TABLE_NAME");
+
+      final Map<String, TableIndex> indexes = new LinkedHashMap<>();
+      try (ResultSet columns = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+        while (columns.next()) {
+          final String indexName = columns.getString("INDEX_NAME");
+          final String columnName = columns.getString("COLUMN_NAME");
+          if (indexName == null || columnName == null) {
+            continue;
+          }
+          final boolean unique = !columns.getBoolean("NON_UNIQUE");
+          indexes.computeIfAbsent(indexName, name -> new TableIndex(new TreeMap<>(), unique))
+            .getColumns().put(columns.getInt("ORDINAL_POSITION"), columnName);
+        }
+      }
+      return indexes;
+    }
+  }
+
+  private static List<String> parseStoreId(final DatabaseMetaData metaData, final String storeId) throws SQLException {
+    final List<String> parts = new ArrayList<>();
+    final Matcher matcher = SimpleJdbcLockSingleKeyService.STORE_ID_PART.matcher(storeId);
+    while (matcher.find()) {
+      final String part = matcher.group();
+      if (Character.isLetter(part.charAt(0)) || part.charAt(0) == '_') {
+        parts.add(metaData.storesUpperCaseIdentifiers() ? part.toUpperCase(Locale.ROOT)
+          : metaData.storesLowerCaseIdentifiers() ? part.toLowerCase(Locale.ROOT) : part);
+      } else {
+        parts.add(part.substring(1, part.length() - 1));
+      }
+    }
+    return parts;
+  }
+
+  private static String escape(final String pattern, final String escape) {
+    if (pattern == null || escape == null || escape.isEmpty()) {
+      return pattern;
+    }
+    return pattern.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+  }
+
+  /**
+   * Index name for the given table, limited to the shortest maximum identifier length of the supported databases.
+   */
+  static String indexName(final String prefix, final String storeId, final String suffix) {
+    final String[] parts = storeId.split("\\.");
+    String table = parts[parts.length - 1].replaceAll("[^A-Za-z0-9_]", "").toLowerCase(Locale.ROOT);
+    final int maxTableLength = MAX_INDEX_NAME_LENGTH - prefix.length() - suffix.length() - 2;
+    if (table.length() > maxTableLength) {
+      table = table.substring(0, maxTableLength);
+    }
+    return prefix + "_" + table + "_" + suffix;
+  }
+
+  @Data
+  @AllArgsConstructor
+  static class TableIndex {
+    private final TreeMap<Integer, String> columns;
+    private final boolean unique;
+  }
+
+  @AllArgsConstructor
+  public enum LockIndex {
+    UNIQUE_LOCK_KEY("unique index on lock_key", "CREATE UNIQUE INDEX %s ON %s (lock_key)", "uk", "lock_key") {
+      @Override
+      boolean isSatisfiedBy(final TableIndex index) {
+        return index.isUnique() && index.getColumns().size() == 1 && isColumn(index, "lock_key");
+      }
+    },
+    EXPIRE_AT("index on expireAt", "CREATE INDEX %s ON %s (expireAt)", "ix", "expire_at") {
+      @Override
+      boolean isSatisfiedBy(final TableIndex index) {
+        return isColumn(index, "expireAt");
+      }
+    };
+
+    private final String description;
+    private final String createFormattedQuery;
+    private final String namePrefix;
+    private final String nameSuffix;
+
+    abstract boolean isSatisfiedBy(TableIndex index);
+
+    String getCreateQuery(final String storeId) {
+      return String.format(createFormattedQuery, indexName(namePrefix, storeId, nameSuffix), storeId);
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+
+    // whether the index starts with the given column
+    private static boolean isColumn(final TableIndex index, final String column) {
+      return !index.getColumns().isEmpty() && index.getColumns().firstEntry().getValue().equalsIgnoreCase(column);
+    }
+  }
+}
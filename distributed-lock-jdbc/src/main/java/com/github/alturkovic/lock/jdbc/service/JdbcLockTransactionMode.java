@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import javax.sql.DataSource;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * How the JDBC lock services execute their lock operations.
+ */
+@AllArgsConstructor
+public enum JdbcLockTransactionMode {
+
+  /**
+   * Every lock operation runs in its own {@code READ_COMMITTED} transaction, suspending the transaction of the caller.
+   * <p>
+   * Inside a transaction of the caller this borrows a second connection from the pool and adds a begin and a commit
+   * round trip to every lock operation.
+   */
+  TRANSACTIONAL(TransactionDefinition.PROPAGATION_REQUIRES_NEW, TransactionDefinition.ISOLATION_READ_COMMITTED),
+
+  /**
+   * Every statement of a lock operation is committed on its own, suspending the transaction of the caller
+   * without starting a new one, so no begin or commit is sent to the database.
+   * <p>
+   * Lock operations of the single key service are correct statement by statement. The multi key service can no
+   * longer roll back a refresh that finds only some of the keys, so those keys are prolonged until they expire.
+   */
+  AUTOCOMMIT(TransactionDefinition.PROPAGATION_NOT_SUPPORTED, TransactionDefinition.ISOLATION_DEFAULT);
+
+  private final int propagationBehavior;
+  private final int isolationLevel;
+
+  /**
+   * @param dataSource data source holding the locks
+   * @return operations executing lock operations in this mode, managing transactions of the data source on their own
+   */
+  public TransactionOperations transactionOperations(final DataSource dataSource) {
+    return transactionOperations(new DataSourceTransactionManager(dataSource));
+  }
+
+  /**
+   * @param transactionManager transaction manager of the data source holding the locks
+   * @return operations executing lock operations in this mode
+   */
+  public TransactionOperations transactionOperations(final PlatformTransactionManager transactionManager) {
+    final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(propagationBehavior);
+    transactionTemplate.setIsolationLevel(isolationLevel);
+    return transactionTemplate;
+  }
+}
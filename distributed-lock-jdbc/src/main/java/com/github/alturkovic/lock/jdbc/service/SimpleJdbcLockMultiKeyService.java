@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import com.github.alturkovic.lock.jdbc.dialect.JdbcLockDialect;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.Assert;
+
+/**
+ * Service locking multiple keys at once, with a constant number of statements regardless of the number of keys.
+ * <p>
+ * Keys are always sorted before they are written, so two transactions locking overlapping keys lock the rows
+ * in the same order and cannot deadlock each other. All keys are inserted in a single multi-row statement,
+ * which either locks all the keys or none of them.
+ */
+@Data
+@Slf4j
+public class SimpleJdbcLockMultiKeyService implements JdbcLockMultiKeyService {
+
+  public static final String ACQUIRE_FORMATTED_QUERY = "INSERT INTO %s (lock_key, token, expireAt) VALUES %s";
+  public static final String DELETE_EXPIRED_KEYS_FORMATTED_QUERY = "DELETE FROM %s WHERE lock_key IN (%s) AND expireAt < ?";
+  public static final String RELEASE_FORMATTED_QUERY = "DELETE FROM %s WHERE lock_key IN (%s) AND token = ?";
+  public static final String REFRESH_FORMATTED_QUERY = "UPDATE %s SET expireAt = ? WHERE lock_key IN (%s) AND token = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final JdbcLockDialect dialect;
+  private final TransactionOperations transactionOperations;
+
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final Map<String, Map<Integer, KeysQueries>> storeQueries = new ConcurrentHashMap<>();
+
+  /**
+   * Service inserting the locks with a standard multi-row {@code INSERT ... VALUES} statement.
+   * Every lock operation runs in its own {@link JdbcLockTransactionMode#TRANSACTIONAL transaction} of the data source of the template.
+   *
+   * @param jdbcTemplate template used to query the database
+   */
+  public SimpleJdbcLockMultiKeyService(final JdbcTemplate jdbcTemplate) {
+    this(jdbcTemplate, null);
+  }
+
+  /**
+   * Service inserting the locks with the {@link JdbcLockDialect#getInsertQuery(String, int) insert query} of the given dialect.
+   * Every lock operation runs in its own {@link JdbcLockTransactionMode#TRANSACTIONAL transaction} of the data source of the template.
+   *
+   * @param jdbcTemplate template used to query the database
+   * @param dialect      dialect of the database, {@code null} to use a standard multi-row {@code INSERT ... VALUES} statement
+   */
+  public SimpleJdbcLockMultiKeyService(final JdbcTemplate jdbcTemplate, final JdbcLockDialect dialect) {
+    this(jdbcTemplate, dialect, JdbcLockTransactionMode.TRANSACTIONAL.transactionOperations(jdbcTemplate.getDataSource()));
+  }
+
+  /**
+   * Service running every lock operation through the given transaction operations.
+   *
+   * @param jdbcTemplate          template used to query the database
+   * @param dialect               dialect of the database, {@code null} to use a standard multi-row {@code INSERT ... VALUES} statement
+   * @param transactionOperations operations every lock operation is executed in, see {@link JdbcLockTransactionMode}
+   */
+  public SimpleJdbcLockMultiKeyService(final JdbcTemplate jdbcTemplate, final JdbcLockDialect dialect, final TransactionOperations transactionOperations) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dialect = dialect;
+    this.transactionOperations = transactionOperations;
+  }
+
+  @Override
+  public String acquire(final List<String> keys, final String storeId, final String token, final long expiration) {
+    return transactionOperations.execute(status -> {
+      final List<String> sortedKeys = sorted(keys);
+      final KeysQueries queries = queries(storeId, sortedKeys.size());
+      final Date now = new Date();
+
+      final int expired = jdbcTemplate.update(queries.getDeleteExpired(), arguments(sortedKeys, now));
+      log.debug("Expired {} locks for keys {} in store {}", expired, sortedKeys, storeId);
+
+      final Date expireAt = new Date(now.getTime() + expiration);
+      final Object[] arguments = new Object[sortedKeys.size() * 3];
+      for (int i = 0; i < sortedKeys.size(); i++) {
+        arguments[i * 3] = sortedKeys.get(i);
+        arguments[i * 3 + 1] = token;
+        arguments[i * 3 + 2] = expireAt;
+      }
+
+      try {
+        final int created = jdbcTemplate.update(queries.getAcquire(), arguments);
+        if (created == sortedKeys.size()) {
+          return token;
+        }
+
+        log.error("Unexpected result from acquire for keys {} with token {} in store {}, acquired {}", sortedKeys, token, storeId, created);
+        status.setRollbackOnly();
+        return null;
+      } catch (final DuplicateKeyException e) {
+        // restore the expired locks deleted above, they will be taken over by their next acquire
+        status.setRollbackOnly();
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public boolean release(final List<String> keys, final String storeId, final String token) {
+    return transactionOperations.execute(status -> {
+      final List<String> sortedKeys = sorted(keys);
+      final int deleted = jdbcTemplate.update(queries(storeId, sortedKeys.size()).getRelease(), arguments(sortedKeys, token));
+
+      // keys that are still held with the token are released even if some of the keys were lost
+      final boolean released = deleted == sortedKeys.size();
+      if (released) {
+        log.debug("Release query successfully affected {} records for keys {} with token {} in store {}", deleted, sortedKeys, token, storeId);
+      } else {
+        log.error("Release query affected {} out of {} records for keys {} with token {} in store {}", deleted, sortedKeys.size(), sortedKeys, token, storeId);
+      }
+
+      return released;
+    });
+  }
+
+  @Override
+  public boolean refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    return transactionOperations.execute(status -> {
+      final List<String> sortedKeys = sorted(keys);
+      final Date expireAt = new Date(System.currentTimeMillis() + expiration);
+
+      final Object[] arguments = new Object[sortedKeys.size() + 2];
+      arguments[0] = expireAt;
+      for (int i = 0; i < sortedKeys.size(); i++) {
+        arguments[i + 1] = sortedKeys.get(i);
+      }
+      arguments[arguments.length - 1] = token;
+
+      final int updated = jdbcTemplate.update(queries(storeId, sortedKeys.size()).getRefresh(), arguments);
+      final boolean refreshed = updated == sortedKeys.size();
+      if (refreshed) {
+        log.debug("Refresh query successfully affected {} records for keys {} with token {} in store {}", updated, sortedKeys, token, storeId);
+      } else {
+        // keys that are still held are not prolonged for a lock that was lost
+        log.error("Refresh query affected {} out of {} records for keys {} with token {} in store {}", updated, sortedKeys.size(), sortedKeys, token, storeId);
+        status.setRollbackOnly();
+      }
+
+      return refreshed;
+    });
+  }
+
+  /**
+   * @return stores used by this service
+   */
+  public Set<String> getStoreIds() {
+    return Collections.unmodifiableSet(storeQueries.keySet());
+  }
+
+  private static List<String> sorted(final List<String> keys) {
+    Assert.notEmpty(keys, "Cannot lock without keys");
+    return new ArrayList<>(new TreeSet<>(keys));
+  }
+
+  private static Object[] arguments(final List<String> keys, final Object last) {
+    final Object[] arguments = keys.toArray(new Object[keys.size() + 1]);
+    arguments[keys.size()] = last;
+    return arguments;
+  }
+
+  /**
+   * Queries depend on the number of keys, so they are built once per store and number of keys.
+   */
+  private KeysQueries queries(final String storeId, final int keys) {
+    return storeQueries.computeIfAbsent(storeId, this::createStoreQueries)
+      .computeIfAbsent(keys, count -> createQueries(storeId, count));
+  }
+
+  private Map<Integer, KeysQueries> createStoreQueries(final String storeId) {
+    Assert.isTrue(SimpleJdbcLockSingleKeyService.STORE_ID.matcher(storeId).matches(), () -> "Store id is not a valid table name: " + storeId);
+    return new ConcurrentHashMap<>();
+  }
+
+  private KeysQueries createQueries(final String storeId, final int keys) {
+    final String parameters = String.join(", ", Collections.nCopies(keys, "?"));
+    return new KeysQueries(
+      dialect == null
+        ? String.format(ACQUIRE_FORMATTED_QUERY, storeId, String.join(", ", Collections.nCopies(keys, "(?, ?, ?)")))
+        : dialect.getInsertQuery(storeId, keys),
+      String.format(DELETE_EXPIRED_KEYS_FORMATTED_QUERY, storeId, parameters),
+      String.format(RELEASE_FORMATTED_QUERY, storeId, parameters),
+      String.format(REFRESH_FORMATTED_QUERY, storeId, parameters));
+  }
+
+  @Data
+  private static class KeysQueries {
+    private final String acquire;
+    private final String deleteExpired;
+    private final String release;
+    private final String refresh;
+  }
+}
@@ -24,73 +24,238 @@
 
 package com.github.alturkovic.lock.jdbc.service;
 
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.jdbc.dialect.JdbcLockDialect;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.Assert;
 
 @Data
 @Slf4j
-@Transactional(isolation = Isolation.READ_COMMITTED, propagation = Propagation.REQUIRES_NEW)
 public class SimpleJdbcLockSingleKeyService implements JdbcLockSingleKeyService {
 
   public static final String ACQUIRE_FORMATTED_QUERY = "INSERT INTO %s (lock_key, token, expireAt) VALUES (?, ?, ?)";
   public static final String RELEASE_FORMATTED_QUERY = "DELETE FROM %s WHERE lock_key = ? AND token = ?";
   public static final String DELETE_EXPIRED_FORMATTED_QUERY = "DELETE FROM %s WHERE expireAt < ?";
+  public static final String DELETE_EXPIRED_KEY_FORMATTED_QUERY = "DELETE FROM %s WHERE lock_key = ? AND expireAt < ?";
   public static final String REFRESH_FORMATTED_QUERY = "UPDATE %s SET expireAt = ? WHERE lock_key = ? AND token = ?";
+  public static final String TOKEN_FORMATTED_QUERY = "SELECT token FROM %s WHERE lock_key = ?";
+
+  // optionally qualified table name, every part either a plain or a quoted identifier
+  private static final String IDENTIFIER = "([A-Za-z_][A-Za-z0-9_$]*|\"[^\"]+\"|`[^`]+`|\\[[^\\]]+\\])";
+  static final Pattern STORE_ID = Pattern.compile(IDENTIFIER + "(\\." + IDENTIFIER + "){0,2}");
+  static final Pattern STORE_ID_PART = Pattern.compile(IDENTIFIER);
 
   private final JdbcTemplate jdbcTemplate;
+  private final JdbcLockDialect dialect;
+  private final TransactionOperations transactionOperations;
+
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final Map<String, StoreQueries> storeQueries = new ConcurrentHashMap<>();
+
+  /**
+   * Service acquiring locks by deleting the expired lock of the key before inserting.
+   * Every lock operation runs in its own {@link JdbcLockTransactionMode#TRANSACTIONAL transaction} of the data source of the template.
+   *
+   * @param jdbcTemplate template used to query the database
+   */
+  public SimpleJdbcLockSingleKeyService(final JdbcTemplate jdbcTemplate) {
+    this(jdbcTemplate, null);
+  }
+
+  /**
+   * Service acquiring locks in a single statement of the given dialect, which also takes over expired locks.
+   * Every lock operation runs in its own {@link JdbcLockTransactionMode#TRANSACTIONAL transaction} of the data source of the template.
+   *
+   * @param jdbcTemplate template used to query the database
+   * @param dialect      dialect of the database, {@code null} to acquire locks by deleting the expired lock of the key before inserting
+   */
+  public SimpleJdbcLockSingleKeyService(final JdbcTemplate jdbcTemplate, final JdbcLockDialect dialect) {
+    this(jdbcTemplate, dialect, JdbcLockTransactionMode.TRANSACTIONAL.transactionOperations(jdbcTemplate.getDataSource()));
+  }
+
+  /**
+   * Service running every lock operation through the given transaction operations.
+   *
+   * @param jdbcTemplate          template used to query the database
+   * @param dialect               dialect of the database, {@code null} to acquire locks by deleting the expired lock of the key before inserting
+   * @param transactionOperations operations every lock operation is executed in, see {@link JdbcLockTransactionMode}
+   */
+  public SimpleJdbcLockSingleKeyService(final JdbcTemplate jdbcTemplate, final JdbcLockDialect dialect, final TransactionOperations transactionOperations) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dialect = dialect;
+    this.transactionOperations = transactionOperations;
+  }
 
   @Override
   public String acquire(final String key, final String storeId, final String token, final long expiration) {
-    final Date now = new Date();
-    final int expired = jdbcTemplate.update(String.format(DELETE_EXPIRED_FORMATTED_QUERY, storeId), now);
-    log.debug("Expired {} locks", expired);
+    return transactionOperations.execute(status -> {
+      final StoreQueries queries = queries(storeId);
+      final Date now = new Date();
+      if (dialect != null) {
+        return acquireInSingleStatement(key, queries, token, now, new Date(now.getTime() + expiration));
+      }
+
+      // only the expired lock of this key is deleted, other expired locks are left to the sweeper
+      final int expired = jdbcTemplate.update(queries.getDeleteExpiredKey(), key, now);
+      log.debug("Expired {} locks for key {} in store {}", expired, key, storeId);
 
+      try {
+        final Date expireAt = new Date(now.getTime() + expiration);
+        final int created = jdbcTemplate.update(queries.getAcquire(), key, token, expireAt);
+        return created == 1 ? token : null;
+      } catch (final DuplicateKeyException e) {
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Delete a limited number of expired locks from the store.
+   *
+   * @param storeId store to delete the expired locks from
+   * @param limit   maximum number of locks to delete, not enforced without a dialect
+   * @return number of deleted locks
+   */
+  public int deleteExpired(final String storeId, final int limit) {
+    return transactionOperations.execute(status -> {
+      final String query = queries(storeId).getDeleteExpired();
+      final Date now = new Date();
+      if (dialect == null) {
+        return jdbcTemplate.update(query, now);
+      }
+      return jdbcTemplate.update(query, dialect.getDeleteExpiredArguments(now, limit));
+    });
+  }
+
+  /**
+   * @return stores used by this service
+   */
+  public Set<String> getStoreIds() {
+    return Collections.unmodifiableSet(storeQueries.keySet());
+  }
+
+  private String acquireInSingleStatement(final String key, final StoreQueries queries, final String token, final Date now, final Date expireAt) {
     try {
-      final Date expireAt = new Date(now.getTime() + expiration);
-      final int created = jdbcTemplate.update(String.format(ACQUIRE_FORMATTED_QUERY, storeId), key, token, expireAt);
-      return created == 1 ? token : null;
+      final int acquired = jdbcTemplate.update(queries.getAcquire(), dialect.getAcquireArguments(key, token, expireAt, now));
+      if (acquired == 1 && dialect.isAcquireCountAmbiguous()) {
+        // the row might be a lock held by someone else that the statement matched but did not change
+        return jdbcTemplate.queryForList(queries.getToken(), String.class, key).contains(token) ? token : null;
+      }
+      return acquired > 0 ? token : null;
     } catch (final DuplicateKeyException e) {
+      // merge statements can still race when inserting the same missing key concurrently
       return null;
     }
   }
 
   @Override
   public boolean release(final String key, final String storeId, final String token) {
-    final int deleted = jdbcTemplate.update(String.format(RELEASE_FORMATTED_QUERY, storeId), key, token);
-
-    final boolean released = deleted == 1;
-    if (released) {
-      log.debug("Release query successfully affected 1 record for key {} with token {} in store {}", key, token, storeId);
-    } else if (deleted > 0) {
-      log.error("Unexpected result from release for key {} with token {} in store {}, released {}", key, token, storeId, deleted);
-    } else {
-      log.error("Release query did not affect any records for key {} with token {} in store {}", key, token, storeId);
-    }
+    return transactionOperations.execute(status -> {
+      final int deleted = jdbcTemplate.update(queries(storeId).getRelease(), key, token);
+
+      final boolean released = deleted == 1;
+      if (released) {
+        log.debug("Release query successfully affected 1 record for key {} with token {} in store {}", key, token, storeId);
+      } else if (deleted > 0) {
+        log.error("Unexpected result from release for key {} with token {} in store {}, released {}", key, token, storeId, deleted);
+      } else {
+        log.error("Release query did not affect any records for key {} with token {} in store {}", key, token, storeId);
+      }
 
-    return released;
+      return released;
+    });
   }
 
   @Override
   public boolean refresh(final String key, final String storeId, final String token, final long expiration) {
-    final Date now = new Date();
-    final Date expireAt = new Date(now.getTime() + expiration);
-
-    final int updated = jdbcTemplate.update(String.format(REFRESH_FORMATTED_QUERY, storeId), expireAt, key, token);
-    final boolean refreshed = updated == 1;
-    if (refreshed) {
-      log.debug("Refresh query successfully affected 1 record for key {} with token {} in store {}", key, token, storeId);
-    } else if (updated > 0) {
-      log.error("Unexpected result from refresh for key {} with token {} in store {}, refreshed {}", key, token, storeId, updated);
-    } else {
-      log.error("Refresh query did not affect any records for key {} with token {} in store {}", key, token, storeId);
-    }
+    return transactionOperations.execute(status -> {
+      final Date now = new Date();
+      final Date expireAt = new Date(now.getTime() + expiration);
+
+      final int updated = jdbcTemplate.update(queries(storeId).getRefresh(), expireAt, key, token);
+      final boolean refreshed = updated == 1;
+      if (refreshed) {
+        log.debug("Refresh query successfully affected 1 record for key {} with token {} in store {}", key, token, storeId);
+      } else if (updated > 0) {
+        log.error("Unexpected result from refresh for key {} with token {} in store {}, refreshed {}", key, token, storeId, updated);
+      } else {
+        log.error("Refresh query did not affect any records for key {} with token {} in store {}", key, token, storeId);
+      }
+
+      return refreshed;
+    });
+  }
+
+  @Override
+  public List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    return transactionOperations.execute(status -> {
+      final long now = System.currentTimeMillis();
+      final List<Object[]> arguments = leases.stream()
+        .map(lease -> {
+          Assert.isTrue(lease.getKeys().size() == 1, "Cannot refresh lock for multiple keys with this service");
+          return new Object[]{new Date(now + lease.getExpiration()), lease.getKeys().getFirst(), lease.getToken()};
+        })
+        .toList();
+
+      final int[] updated = jdbcTemplate.batchUpdate(queries(storeId).getRefresh(), arguments);
+
+      // drivers that report Statement.SUCCESS_NO_INFO instead of per-statement counts are trusted to have refreshed the lease
+      final List<Lease> lost = IntStream.range(0, leases.size())
+        .filter(i -> updated[i] == 0)
+        .mapToObj(leases::get)
+        .toList();
+
+      if (lost.isEmpty()) {
+        log.debug("Batch refresh query refreshed all {} leases in store {}", leases.size(), storeId);
+      } else {
+        log.error("Batch refresh query did not refresh {} out of {} leases in store {}: {}", lost.size(), leases.size(), storeId, lost);
+      }
+
+      return lost;
+    });
+  }
+
+  /**
+   * Queries are built once per store, so the driver sees the same SQL for every call and can reuse prepared statements.
+   */
+  private StoreQueries queries(final String storeId) {
+    return storeQueries.computeIfAbsent(storeId, this::createQueries);
+  }
+
+  private StoreQueries createQueries(final String storeId) {
+    Assert.isTrue(STORE_ID.matcher(storeId).matches(), () -> "Store id is not a valid table name: " + storeId);
+
+    return new StoreQueries(
+      dialect == null ? String.format(ACQUIRE_FORMATTED_QUERY, storeId) : dialect.getAcquireQuery(storeId),
+      String.format(DELETE_EXPIRED_KEY_FORMATTED_QUERY, storeId),
+      dialect == null ? String.format(DELETE_EXPIRED_FORMATTED_QUERY, storeId) : dialect.getDeleteExpiredQuery(storeId),
+      String.format(RELEASE_FORMATTED_QUERY, storeId),
+      String.format(REFRESH_FORMATTED_QUERY, storeId),
+      String.format(TOKEN_FORMATTED_QUERY, storeId));
+  }
 
-    return refreshed;
+  @Data
+  private static class StoreQueries {
+    private final String acquire;
+    private final String deleteExpiredKey;
+    private final String deleteExpired;
+    private final String release;
+    private final String refresh;
+    private final String token;
   }
 }
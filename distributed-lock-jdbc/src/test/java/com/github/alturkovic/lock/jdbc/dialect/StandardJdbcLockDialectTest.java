@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.dialect;
+
+import com.github.alturkovic.lock.jdbc.service.JdbcLockSingleKeyService;
+import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockSingleKeyService;
+import java.sql.Timestamp;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.assertj.core.data.Offset;
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StandardJdbcLockDialectTest {
+
+  @ParameterizedTest
+  @CsvSource({
+    "PostgreSQL, POSTGRESQL",
+    "MySQL, MYSQL",
+    "MariaDB, MYSQL",
+    "H2, H2",
+    "Oracle, ORACLE",
+    "Microsoft SQL Server, SQL_SERVER"
+  })
+  public void shouldResolveDialectFromDatabaseProductName(final String databaseProductName, final StandardJdbcLockDialect dialect) {
+    assertThat(StandardJdbcLockDialect.fromDatabaseProductName(databaseProductName)).isEqualTo(dialect);
+  }
+
+  @Test
+  public void shouldNotResolveDialectOfUnsupportedDatabase() {
+    assertThat(StandardJdbcLockDialect.fromDatabaseProductName("SQLite")).isNull();
+    assertThat(StandardJdbcLockDialect.fromDatabaseProductName(null)).isNull();
+  }
+
+  @Test
+  public void shouldDetectDialect() {
+    assertThat(StandardJdbcLockDialect.detect(dataSource(""))).isEqualTo(StandardJdbcLockDialect.H2);
+  }
+
+  @Test
+  public void shouldBuildInsertQuery() {
+    assertThat(StandardJdbcLockDialect.POSTGRESQL.getInsertQuery("locks", 2))
+      .isEqualTo("INSERT INTO locks (lock_key, token, expireAt) VALUES (?, ?, ?), (?, ?, ?)");
+    assertThat(StandardJdbcLockDialect.ORACLE.getInsertQuery("locks", 2))
+      .isEqualTo("INSERT ALL INTO locks (lock_key, token, expireAt) VALUES (?, ?, ?) INTO locks (lock_key, token, expireAt) VALUES (?, ?, ?) SELECT 1 FROM dual");
+  }
+
+  @Test
+  public void shouldAcquireAndTakeOverExpiredLockWithH2Dialect() {
+    shouldAcquireAndTakeOverExpiredLock(new JdbcTemplate(dataSource("")), StandardJdbcLockDialect.H2);
+  }
+
+  @Test
+  public void shouldAcquireAndTakeOverExpiredLockWithMySqlDialect() {
+    shouldAcquireAndTakeOverExpiredLock(new JdbcTemplate(dataSource(";MODE=MySQL")), StandardJdbcLockDialect.MYSQL);
+  }
+
+  private void shouldAcquireAndTakeOverExpiredLock(final JdbcTemplate jdbcTemplate, final JdbcLockDialect dialect) {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    final JdbcLockSingleKeyService service = new SimpleJdbcLockSingleKeyService(jdbcTemplate, dialect);
+
+    assertThat(service.acquire("1", "locks", "abc", 10000)).isEqualTo("abc");
+    assertThat(service.acquire("1", "locks", "def", 10000)).isNull();
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '1'", String.class)).isEqualTo("abc");
+
+    jdbcTemplate.update("UPDATE locks SET expireAt = ? WHERE lock_key = '1'", new Timestamp(System.currentTimeMillis() - 1000));
+    final long now = System.currentTimeMillis();
+    assertThat(service.acquire("1", "locks", "def", 10000)).isEqualTo("def");
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '1'", String.class)).isEqualTo("def");
+    assertThat(jdbcTemplate.queryForObject("SELECT expireAt FROM locks WHERE lock_key = '1'", Timestamp.class).getTime()).isCloseTo(now + 10000, Offset.offset(1000L));
+
+    assertThat(service.release("1", "locks", "abc")).isFalse();
+    assertThat(service.release("1", "locks", "def")).isTrue();
+    assertThat(service.acquire("1", "locks", "ghi", 10000)).isEqualTo("ghi");
+  }
+
+  private static DataSource dataSource(final String settings) {
+    return new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1" + settings);
+  }
+}
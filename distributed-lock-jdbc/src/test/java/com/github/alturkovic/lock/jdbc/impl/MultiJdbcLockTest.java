@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.impl;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
+import com.github.alturkovic.lock.jdbc.service.ExpiredLockSweeper;
+import com.github.alturkovic.lock.jdbc.service.JdbcLockTransactionMode;
+import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockMultiKeyService;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.assertj.core.data.Offset;
+import org.h2.Driver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MultiJdbcLockTest {
+  private final DataSource dataSource = new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+  private final Lock lock = new MultiJdbcLock(() -> "abc", new SimpleJdbcLockMultiKeyService(jdbcTemplate, StandardJdbcLockDialect.H2, transactional()));
+
+  @BeforeEach
+  public void createTable() {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+  }
+
+  @Test
+  public void shouldLock() {
+    final long now = System.currentTimeMillis();
+    final String token = lock.acquire(Arrays.asList("2", "1", "3"), "locks", 1000);
+    assertThat(token).isEqualTo("abc");
+
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks WHERE token = 'abc' ORDER BY id", String.class)).containsExactly("1", "2", "3");
+    assertThat(jdbcTemplate.queryForList("SELECT expireAt FROM locks", Timestamp.class))
+      .allSatisfy(expireAt -> assertThat(expireAt.getTime()).isCloseTo(now + 1000, Offset.offset(100L)));
+  }
+
+  @Test
+  public void shouldNotLockReservedKeys() {
+    assertThatThrownBy(() -> lock.acquire(Arrays.asList("1", ExpiredLockSweeper.SWEEPER_LOCK_KEY), "locks", 1000))
+      .isInstanceOf(IllegalArgumentException.class);
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locks", Integer.class)).isZero();
+  }
+
+  @Test
+  public void shouldLockDuplicatedKeysOnce() {
+    assertThat(lock.acquire(Arrays.asList("1", "2", "1"), "locks", 1000)).isEqualTo("abc");
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locks", Integer.class)).isEqualTo(2);
+    assertThat(lock.release(Arrays.asList("1", "2", "1"), "locks", "abc")).isTrue();
+  }
+
+  @Test
+  public void shouldNotLockAnyKeyWhenOneIsLocked() {
+    insert("2", "def", System.currentTimeMillis() + 10000);
+
+    assertThat(lock.acquire(Arrays.asList("1", "2", "3"), "locks", 1000)).isNull();
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).containsExactly("2");
+  }
+
+  @Test
+  public void shouldTakeOverExpiredKeys() {
+    insert("1", "def", System.currentTimeMillis() - 1000);
+
+    assertThat(lock.acquire(Arrays.asList("1", "2"), "locks", 1000)).isEqualTo("abc");
+    assertThat(jdbcTemplate.queryForList("SELECT token FROM locks", String.class)).containsExactly("abc", "abc");
+  }
+
+  @Test
+  public void shouldKeepExpiredKeysWhenNotLocked() {
+    insert("1", "def", System.currentTimeMillis() - 1000);
+    insert("2", "ghi", System.currentTimeMillis() + 10000);
+
+    assertThat(lock.acquire(Arrays.asList("1", "2"), "locks", 1000)).isNull();
+    assertThat(jdbcTemplate.queryForList("SELECT token FROM locks ORDER BY lock_key", String.class)).containsExactly("def", "ghi");
+  }
+
+  @Test
+  public void shouldRelease() {
+    insert("1", "abc", System.currentTimeMillis() + 10000);
+    insert("2", "abc", System.currentTimeMillis() + 10000);
+    insert("3", "def", System.currentTimeMillis() + 10000);
+
+    assertThat(lock.release(Arrays.asList("1", "2"), "locks", "abc")).isTrue();
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).containsExactly("3");
+  }
+
+  @Test
+  public void shouldNotReleaseWhenKeyIsLost() {
+    insert("1", "abc", System.currentTimeMillis() + 10000);
+    insert("2", "def", System.currentTimeMillis() + 10000);
+
+    assertThat(lock.release(Arrays.asList("1", "2"), "locks", "abc")).isFalse();
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).containsExactly("2");
+  }
+
+  @Test
+  public void shouldRefresh() {
+    insert("1", "abc", System.currentTimeMillis() + 1000);
+    insert("2", "abc", System.currentTimeMillis() + 1000);
+
+    final long now = System.currentTimeMillis();
+    assertThat(lock.refresh(Arrays.asList("1", "2"), "locks", "abc", 10000)).isTrue();
+    assertThat(jdbcTemplate.queryForList("SELECT expireAt FROM locks", Timestamp.class))
+      .allSatisfy(expireAt -> assertThat(expireAt.getTime()).isCloseTo(now + 10000, Offset.offset(100L)));
+  }
+
+  @Test
+  public void shouldNotRefreshAnyKeyWhenKeyIsLost() {
+    final long expireAt = System.currentTimeMillis() + 1000;
+    insert("1", "abc", expireAt);
+    insert("2", "def", expireAt);
+
+    assertThat(lock.refresh(Arrays.asList("1", "2"), "locks", "abc", 10000)).isFalse();
+    assertThat(jdbcTemplate.queryForList("SELECT expireAt FROM locks", Timestamp.class))
+      .allSatisfy(refreshed -> assertThat(refreshed.getTime()).isEqualTo(expireAt));
+  }
+
+  @Test
+  public void shouldLockWithoutDialect() {
+    final Lock lockWithoutDialect = new MultiJdbcLock(() -> "def", new SimpleJdbcLockMultiKeyService(jdbcTemplate, null, transactional()));
+    final List<String> keys = Arrays.asList("1", "2");
+
+    assertThat(lock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+    assertThat(lockWithoutDialect.acquire(keys, "locks", 1000)).isNull();
+    assertThat(lock.release(keys, "locks", "abc")).isTrue();
+    assertThat(lockWithoutDialect.acquire(keys, "locks", 1000)).isEqualTo("def");
+  }
+
+  private void insert(final String key, final String token, final long expireAt) {
+    jdbcTemplate.update("INSERT INTO locks (lock_key, token, expireAt) VALUES (?, ?, ?)", key, token, new Timestamp(expireAt));
+  }
+
+  private TransactionOperations transactional() {
+    return JdbcLockTransactionMode.TRANSACTIONAL.transactionOperations(new DataSourceTransactionManager(dataSource));
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.impl;
+
+import com.github.alturkovic.lock.Lock;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+public class PostgresAdvisoryLockTest {
+
+  @Container
+  private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:alpine")).withExposedPorts(5432);
+
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+  private final Lock lock = new PostgresAdvisoryLock(() -> "abc", jdbcTemplate);
+  private final Lock otherLock = new PostgresAdvisoryLock(() -> "def", jdbcTemplate);
+
+  @AfterEach
+  public void releaseAll() {
+    jdbcTemplate.execute("SELECT pg_terminate_backend(pid) FROM pg_locks WHERE locktype = 'advisory' AND pid <> pg_backend_pid()");
+  }
+
+  @Test
+  public void shouldLock() {
+    final List<String> keys = Collections.singletonList("1");
+
+    assertThat(lock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+    assertThat(heldAdvisoryLocks()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotLockKeyHeldByAnotherSession() {
+    final List<String> keys = Collections.singletonList("1");
+
+    assertThat(lock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+    assertThat(otherLock.acquire(keys, "locks", 1000)).isNull();
+    assertThat(otherLock.acquire(keys, "other", 1000)).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldNotLockKeyHeldByTheSameLock() {
+    final List<String> keys = Collections.singletonList("1");
+
+    assertThat(lock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+    assertThat(lock.acquire(keys, "locks", 1000)).isNull();
+  }
+
+  @Test
+  public void shouldRelease() {
+    final List<String> keys = Collections.singletonList("1");
+    lock.acquire(keys, "locks", 1000);
+
+    assertThat(lock.release(keys, "locks", "abc")).isTrue();
+    assertThat(heldAdvisoryLocks()).isZero();
+    assertThat(otherLock.acquire(keys, "locks", 1000)).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldNotReleaseWithWrongToken() {
+    final List<String> keys = Collections.singletonList("1");
+    lock.acquire(keys, "locks", 1000);
+
+    assertThat(lock.release(keys, "locks", "def")).isFalse();
+    assertThat(heldAdvisoryLocks()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRefresh() {
+    final List<String> keys = Collections.singletonList("1");
+    lock.acquire(keys, "locks", 1000);
+
+    assertThat(lock.refresh(keys, "locks", "abc", 1000)).isTrue();
+    assertThat(lock.refresh(keys, "locks", "def", 1000)).isFalse();
+  }
+
+  @Test
+  public void shouldNotRefreshWhenSessionIsLost() {
+    final List<String> keys = Collections.singletonList("1");
+    lock.acquire(keys, "locks", 1000);
+    releaseAll();
+
+    assertThat(lock.refresh(keys, "locks", "abc", 1000)).isFalse();
+    assertThat(otherLock.acquire(keys, "locks", 1000)).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldReleaseExpiredLockOnAcquire() throws InterruptedException {
+    final List<String> keys = Collections.singletonList("1");
+    lock.acquire(keys, "locks", 10);
+    Thread.sleep(50);
+
+    assertThat(lock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+    assertThat(heldAdvisoryLocks()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldHoldLockOutsideTransactionWithNonAutocommitPool() throws SQLException {
+    final HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setJdbcUrl(postgres.getJdbcUrl());
+    dataSource.setUsername(postgres.getUsername());
+    dataSource.setPassword(postgres.getPassword());
+    dataSource.setAutoCommit(false);
+    dataSource.setMaximumPoolSize(1);
+
+    try (dataSource) {
+      final Lock pooledLock = new PostgresAdvisoryLock(() -> "abc", new JdbcTemplate(dataSource));
+      final List<String> keys = Collections.singletonList("1");
+
+      assertThat(pooledLock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+      assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_stat_activity WHERE state = 'idle in transaction'", Integer.class)).isZero();
+
+      assertThat(pooledLock.release(keys, "locks", "abc")).isTrue();
+      try (final Connection connection = dataSource.getConnection()) {
+        assertThat(connection.getAutoCommit()).isFalse();
+      }
+    }
+  }
+
+  @Test
+  public void shouldHashKeysWithStoreIds() {
+    assertThat(PostgresAdvisoryLock.lockId("locks", "1")).isEqualTo(PostgresAdvisoryLock.lockId("locks", "1"));
+    assertThat(PostgresAdvisoryLock.lockId("locks", "1")).isNotEqualTo(PostgresAdvisoryLock.lockId("locks", "2"));
+    assertThat(PostgresAdvisoryLock.lockId("locks", "1")).isNotEqualTo(PostgresAdvisoryLock.lockId("other", "1"));
+  }
+
+  private int heldAdvisoryLocks() {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_locks WHERE locktype = 'advisory' AND granted", Integer.class);
+  }
+}
@@ -24,7 +24,10 @@
 
 package com.github.alturkovic.lock.jdbc.impl;
 
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
 import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
 import com.github.alturkovic.lock.jdbc.service.SimpleJdbcLockSingleKeyService;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
@@ -101,6 +104,26 @@ public class SimpleJdbcLockTest implements InitializingBean {
     assertThat(acquiredLockMap).containsAllEntriesOf(values("1", "def"));
   }
 
+  @Test
+  public void shouldTakeOverOnlyExpiredLockWithDialect() {
+    final Lock dialectLock = new SimpleJdbcLock(() -> "abc", new SimpleJdbcLockSingleKeyService(jdbcTemplate, StandardJdbcLockDialect.POSTGRESQL));
+
+    final Map<String, Object> held = values("1", "def");
+    held.put("expireAt", new Timestamp(System.currentTimeMillis() + 10000));
+    final Map<String, Object> expired = values("2", "def");
+    expired.put("expireAt", new Timestamp(System.currentTimeMillis() - 1000));
+    new SimpleJdbcInsert(jdbcTemplate).withTableName("locks").usingGeneratedKeyColumns("id").executeAndReturnKey(held);
+    new SimpleJdbcInsert(jdbcTemplate).withTableName("locks").usingGeneratedKeyColumns("id").executeAndReturnKey(expired);
+
+    assertThat(dialectLock.acquire(Collections.singletonList("1"), "locks", 1000)).isNull();
+    assertThat(dialectLock.acquire(Collections.singletonList("2"), "locks", 1000)).isEqualTo("abc");
+    assertThat(dialectLock.acquire(Collections.singletonList("3"), "locks", 1000)).isEqualTo("abc");
+
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '1'", String.class)).isEqualTo("def");
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '2'", String.class)).isEqualTo("abc");
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '3'", String.class)).isEqualTo("abc");
+  }
+
   @Test
   public void shouldRelease() {
     new SimpleJdbcInsert(jdbcTemplate)
@@ -162,6 +185,26 @@ public class SimpleJdbcLockTest implements InitializingBean {
     assertThat(jdbcTemplate.queryForList("SELECT * FROM locks")).isNullOrEmpty();
   }
 
+  @Test
+  public void shouldRefreshInBatchAndReportLostLeases() {
+    lock.acquire(Collections.singletonList("1"), "locks", 100);
+    new SimpleJdbcInsert(jdbcTemplate)
+      .withTableName("locks")
+      .usingGeneratedKeyColumns("id")
+      .executeAndReturnKey(values("2", "def"));
+
+    final Lease held = new Lease(Collections.singletonList("1"), "locks", "abc", 1000);
+    final Lease taken = new Lease(Collections.singletonList("2"), "locks", "abc", 1000);
+    final Lease expired = new Lease(Collections.singletonList("3"), "locks", "abc", 1000);
+
+    final long now = System.currentTimeMillis();
+    final List<Lease> lost = ((BatchRefreshingLock) lock).refresh("locks", List.of(held, taken, expired));
+    assertThat(lost).containsExactly(taken, expired);
+
+    final Map<String, Object> refreshedLockMap = jdbcTemplate.queryForObject("SELECT * FROM locks WHERE lock_key = '1'", new ColumnMapRowMapper());
+    assertThat(((Date) refreshedLockMap.get("expireAt")).getTime()).isCloseTo(now + 1000, Offset.offset(100L));
+  }
+
   private static Map<String, Object> values(final String key, final String token) {
     final Map<String, Object> values = new HashMap<String, Object>();
     values.put("lock_key", key);
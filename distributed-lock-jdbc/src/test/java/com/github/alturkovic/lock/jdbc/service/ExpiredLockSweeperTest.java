@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.h2.Driver;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiredLockSweeperTest {
+
+  @ParameterizedTest
+  @CsvSource(value = {"'', H2", "';MODE=MySQL', MYSQL", "'', NULL"}, nullValues = "NULL")
+  public void shouldDeleteExpiredLocksInBatches(final String settings, final StandardJdbcLockDialect dialect) {
+    final JdbcTemplate jdbcTemplate = jdbcTemplate(settings);
+    final SimpleJdbcLockSingleKeyService lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, dialect);
+    final ExpiredLockSweeper sweeper = new ExpiredLockSweeper(lockService, new ThreadPoolTaskScheduler(), Duration.ofMinutes(1), 2);
+
+    for (int i = 0; i < 5; i++) {
+      insert(jdbcTemplate, "expired-" + i, System.currentTimeMillis() - 1000);
+    }
+    insert(jdbcTemplate, "held", System.currentTimeMillis() + 10000);
+
+    assertThat(sweeper.sweep("locks")).isEqualTo(5);
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class))
+      .containsExactlyInAnyOrder("held", ExpiredLockSweeper.SWEEPER_LOCK_KEY);
+  }
+
+  @ParameterizedTest
+  @CsvSource(value = {"'', H2", "'', NULL"}, nullValues = "NULL")
+  public void shouldNotSweepStoreSweptByAnotherNode(final String settings, final StandardJdbcLockDialect dialect) {
+    final JdbcTemplate jdbcTemplate = jdbcTemplate(settings);
+    final SimpleJdbcLockSingleKeyService lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, dialect);
+    final ExpiredLockSweeper sweeper = new ExpiredLockSweeper(lockService, new ThreadPoolTaskScheduler());
+    final ExpiredLockSweeper otherSweeper = new ExpiredLockSweeper(lockService, new ThreadPoolTaskScheduler());
+
+    assertThat(sweeper.sweep("locks")).isZero();
+    insert(jdbcTemplate, "expired", System.currentTimeMillis() - 1000);
+
+    assertThat(otherSweeper.sweep("locks")).isZero();
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).contains("expired");
+  }
+
+  @ParameterizedTest
+  @CsvSource(value = {"'', H2", "'', NULL"}, nullValues = "NULL")
+  public void shouldSweepStoresWithAcquiredLocksAndTakeOverOnlyExpiredKeyOnAcquire(final String settings, final StandardJdbcLockDialect dialect) {
+    final JdbcTemplate jdbcTemplate = jdbcTemplate(settings);
+    final SimpleJdbcLockSingleKeyService lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, dialect);
+    final ExpiredLockSweeper sweeper = new ExpiredLockSweeper(lockService, new ThreadPoolTaskScheduler());
+
+    insert(jdbcTemplate, "1", System.currentTimeMillis() - 1000);
+    insert(jdbcTemplate, "2", System.currentTimeMillis() - 1000);
+
+    assertThat(lockService.acquire("1", "locks", "abc", 10000)).isEqualTo("abc");
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).containsExactlyInAnyOrder("1", "2");
+
+    sweeper.sweep();
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).containsExactlyInAnyOrder("1", ExpiredLockSweeper.SWEEPER_LOCK_KEY);
+  }
+
+  @ParameterizedTest
+  @CsvSource(value = {"'', H2", "'', NULL"}, nullValues = "NULL")
+  public void shouldSweepStoresUsedOnlyByMultiKeyService(final String settings, final StandardJdbcLockDialect dialect) {
+    final JdbcTemplate jdbcTemplate = jdbcTemplate(settings);
+    final SimpleJdbcLockSingleKeyService lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, dialect);
+    final SimpleJdbcLockMultiKeyService multiKeyLockService = new SimpleJdbcLockMultiKeyService(jdbcTemplate, dialect);
+    final ExpiredLockSweeper sweeper = new ExpiredLockSweeper(lockService, multiKeyLockService, new ThreadPoolTaskScheduler());
+
+    insert(jdbcTemplate, "1", System.currentTimeMillis() - 1000);
+
+    assertThat(multiKeyLockService.acquire(List.of("2", "3"), "locks", "abc", 10000)).isEqualTo("abc");
+
+    sweeper.sweep();
+    assertThat(jdbcTemplate.queryForList("SELECT lock_key FROM locks", String.class)).containsExactlyInAnyOrder("2", "3", ExpiredLockSweeper.SWEEPER_LOCK_KEY);
+  }
+
+  private static void insert(final JdbcTemplate jdbcTemplate, final String key, final long expireAt) {
+    jdbcTemplate.update("INSERT INTO locks (lock_key, token, expireAt) VALUES (?, ?, ?)", key, "def", new Timestamp(expireAt));
+  }
+
+  private static JdbcTemplate jdbcTemplate(final String settings) {
+    final JdbcTemplate jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1" + settings));
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    return jdbcTemplate;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import com.github.alturkovic.lock.jdbc.impl.MultiJdbcLock;
+import com.github.alturkovic.lock.jdbc.impl.PostgresAdvisoryLock;
+import com.github.alturkovic.lock.jdbc.impl.SimpleJdbcLock;
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import java.util.UUID;
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class JdbcLockStoreProvisionerTest {
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+
+  @Test
+  public void shouldSupportLockTableLocks() {
+    final JdbcLockStoreProvisioner provisioner = new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate);
+    assertThat(provisioner.supports(mock(SimpleJdbcLock.class))).isTrue();
+    assertThat(provisioner.supports(mock(MultiJdbcLock.class))).isTrue();
+    assertThat(provisioner.supports(mock(PostgresAdvisoryLock.class))).isFalse();
+  }
+
+  @Test
+  public void shouldFindIndexedTable() {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    jdbcTemplate.execute("CREATE INDEX ix_locks_expire_at ON locks (expireAt, token)");
+
+    assertThat(new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).findMissingIndexes("locks")).isEmpty();
+  }
+
+  @Test
+  public void shouldFindMissingIndexes() {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255), token VARCHAR(255), expireAt TIMESTAMP)");
+    jdbcTemplate.execute("CREATE UNIQUE INDEX uk_locks_lock_key_token ON locks (lock_key, token)");
+    jdbcTemplate.execute("CREATE INDEX ix_locks_token_expire_at ON locks (token, expireAt)");
+
+    assertThat(new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).findMissingIndexes("locks"))
+      .containsExactly(JdbcLockStoreProvisioner.LockIndex.UNIQUE_LOCK_KEY, JdbcLockStoreProvisioner.LockIndex.EXPIRE_AT);
+  }
+
+  @Test
+  public void shouldNotAcceptNonUniqueLockKeyIndex() {
+    jdbcTemplate.execute("CREATE TABLE locks (lock_key VARCHAR(255), token VARCHAR(255), expireAt TIMESTAMP)");
+    jdbcTemplate.execute("CREATE INDEX ix_locks_lock_key ON locks (lock_key)");
+    jdbcTemplate.execute("CREATE INDEX ix_locks_expire_at ON locks (expireAt)");
+
+    assertThat(new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).findMissingIndexes("locks"))
+      .containsExactly(JdbcLockStoreProvisioner.LockIndex.UNIQUE_LOCK_KEY);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"locks", "LOCKS", "PUBLIC.locks", "lock_schema.locks", "\"lock_schema\".locks", "\"Mixed_Locks\""})
+  public void shouldCreateMissingIndexes(final String storeId) {
+    jdbcTemplate.execute("CREATE SCHEMA \"lock_schema\"");
+    jdbcTemplate.execute("CREATE SCHEMA lock_schema");
+    jdbcTemplate.execute("CREATE TABLE " + storeId + " (lock_key VARCHAR(255), token VARCHAR(255), expireAt TIMESTAMP)");
+
+    new JdbcLockStoreProvisioner(LockStoreProvisioning.CREATE, jdbcTemplate).provision(storeId);
+
+    assertThat(new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).findMissingIndexes(storeId)).isEmpty();
+  }
+
+  @Test
+  public void shouldNotMatchUnderscoreAsWildcard() {
+    jdbcTemplate.execute("CREATE TABLE lockstable (lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    jdbcTemplate.execute("CREATE INDEX ix_lockstable_expire_at ON lockstable (expireAt)");
+
+    assertThatThrownBy(() -> new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).findMissingIndexes("locks_able"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("does not exist");
+  }
+
+  @Test
+  public void shouldFailOnMissingIndexesOnlyWhenValidating() {
+    jdbcTemplate.execute("CREATE TABLE locks (lock_key VARCHAR(255), token VARCHAR(255), expireAt TIMESTAMP)");
+
+    assertThatCode(() -> new JdbcLockStoreProvisioner(LockStoreProvisioning.WARN, jdbcTemplate).provision("locks")).doesNotThrowAnyException();
+    assertThatCode(() -> new JdbcLockStoreProvisioner(LockStoreProvisioning.WARN, jdbcTemplate).provision("missing")).doesNotThrowAnyException();
+    assertThatThrownBy(() -> new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).provision("locks"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("unique index on lock_key")
+      .hasMessageContaining("index on expireAt");
+  }
+
+  @Test
+  public void shouldRejectInvalidStoreId() {
+    assertThatThrownBy(() -> new JdbcLockStoreProvisioner(LockStoreProvisioning.VALIDATE, jdbcTemplate).findMissingIndexes("locks; DROP TABLE locks"))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldLimitIndexNameLength() {
+    assertThat(JdbcLockStoreProvisioner.LockIndex.UNIQUE_LOCK_KEY.getCreateQuery("\"schema\".\"Very_Long_Distributed_Lock_Table\""))
+      .isEqualTo("CREATE UNIQUE INDEX uk_very_long_distribu_lock_key ON \"schema\".\"Very_Long_Distributed_Lock_Table\" (lock_key)");
+  }
+}
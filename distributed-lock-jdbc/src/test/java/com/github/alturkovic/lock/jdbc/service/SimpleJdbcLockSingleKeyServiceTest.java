@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.jdbc.service;
+
+import com.github.alturkovic.lock.jdbc.dialect.JdbcLockDialect;
+import com.github.alturkovic.lock.jdbc.dialect.StandardJdbcLockDialect;
+import java.util.UUID;
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SimpleJdbcLockSingleKeyServiceTest {
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+  private final SimpleJdbcLockSingleKeyService lockService = new SimpleJdbcLockSingleKeyService(jdbcTemplate, StandardJdbcLockDialect.H2);
+
+  @ParameterizedTest
+  @ValueSource(strings = {"locks", "PUBLIC.locks", "\"LOCKS\"", "PUBLIC.\"LOCKS\""})
+  public void shouldAcceptTableNames(final String storeId) {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    try {
+      assertThat(lockService.acquire("1", storeId, "abc", 1000)).isEqualTo("abc");
+      assertThat(lockService.release("1", storeId, "abc")).isTrue();
+    } finally {
+      jdbcTemplate.execute("DROP TABLE locks");
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "locks; DROP TABLE locks", "locks WHERE 1 = 1", "a.b.c.d", "1locks", "\"locks\"\"; --\""})
+  public void shouldRejectStoreIdsThatAreNotTableNames(final String storeId) {
+    assertThatThrownBy(() -> lockService.acquire("1", storeId, "abc", 1000))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldBuildQueriesOncePerStore() {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+
+    lockService.acquire("1", "locks", "abc", 1000);
+    lockService.refresh("1", "locks", "abc", 1000);
+    lockService.release("1", "locks", "abc");
+
+    assertThat(lockService.getStoreIds()).containsExactly("locks");
+  }
+
+  @ParameterizedTest
+  @EnumSource(JdbcLockTransactionMode.class)
+  public void shouldCommitLocksIndependentlyOfCallerTransaction(final JdbcLockTransactionMode mode) {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+    final SimpleJdbcLockSingleKeyService service = new SimpleJdbcLockSingleKeyService(jdbcTemplate, StandardJdbcLockDialect.H2, mode.transactionOperations(transactionManager));
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      assertThat(service.acquire("1", "locks", "abc", 1000)).isEqualTo("abc");
+      status.setRollbackOnly();
+    });
+
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '1'", String.class)).isEqualTo("abc");
+  }
+
+  @Test
+  public void shouldCommitLocksIndependentlyOfCallerTransactionByDefault() {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+
+    new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())).executeWithoutResult(status -> {
+      assertThat(lockService.acquire("1", "locks", "abc", 1000)).isEqualTo("abc");
+      status.setRollbackOnly();
+    });
+
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '1'", String.class)).isEqualTo("abc");
+  }
+
+  @Test
+  public void shouldNotAcquireHeldLockWhenUnchangedRowCountsAsAffected() {
+    jdbcTemplate.execute("CREATE TABLE locks (id INT AUTO_INCREMENT PRIMARY KEY, lock_key VARCHAR(255) UNIQUE, token VARCHAR(255), expireAt TIMESTAMP)");
+    final SimpleJdbcLockSingleKeyService service = new SimpleJdbcLockSingleKeyService(jdbcTemplate, new FoundRowsDialect());
+
+    assertThat(service.acquire("1", "locks", "abc", 10000)).isEqualTo("abc");
+    assertThat(service.acquire("1", "locks", "def", 10000)).isNull();
+    assertThat(jdbcTemplate.queryForObject("SELECT token FROM locks WHERE lock_key = '1'", String.class)).isEqualTo("abc");
+  }
+
+  /**
+   * Like MySQL without {@code useAffectedRows=true}, reports a held lock matched but left unchanged as one affected row.
+   */
+  private static class FoundRowsDialect implements JdbcLockDialect {
+
+    @Override
+    public String getAcquireQuery(final String tableName) {
+      return "MERGE INTO " + tableName + " t USING (VALUES (CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) s (lock_key, token, expireAt, now) " +
+        "ON t.lock_key = s.lock_key " +
+        "WHEN MATCHED THEN UPDATE SET token = CASE WHEN t.expireAt < s.now THEN s.token ELSE t.token END, " +
+        "expireAt = CASE WHEN t.expireAt < s.now THEN s.expireAt ELSE t.expireAt END " +
+        "WHEN NOT MATCHED THEN INSERT (lock_key, token, expireAt) VALUES (s.lock_key, s.token, s.expireAt)";
+    }
+
+    @Override
+    public boolean isAcquireCountAmbiguous() {
+      return true;
+    }
+
+    @Override
+    public String getDeleteExpiredQuery(final String tableName) {
+      return "DELETE FROM " + tableName + " WHERE expireAt < ? FETCH FIRST ? ROWS ONLY";
+    }
+  }
+}
@@ -25,8 +25,12 @@
 package com.github.alturkovic.lock.mongo.configuration;
 
 import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.mongo.impl.LeanMongoLock;
+import com.github.alturkovic.lock.mongo.impl.MongoLockStoreProvisioner;
+import com.github.alturkovic.lock.mongo.impl.MultiMongoLock;
 import com.github.alturkovic.lock.mongo.impl.SimpleMongoLock;
-import java.util.UUID;
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import com.github.alturkovic.lock.token.TokenSupplier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -35,7 +39,22 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 public class MongoDistributedLockConfiguration {
 
   @Bean
-  public Lock simpleMongoLock(final MongoTemplate mongoTemplate) {
-    return new SimpleMongoLock(() -> UUID.randomUUID().toString(), mongoTemplate);
+  public Lock simpleMongoLock(final TokenSupplier tokenSupplier, final MongoTemplate mongoTemplate) {
+    return new SimpleMongoLock(tokenSupplier, mongoTemplate);
+  }
+
+  @Bean
+  public Lock multiMongoLock(final TokenSupplier tokenSupplier, final MongoTemplate mongoTemplate) {
+    return new MultiMongoLock(tokenSupplier, mongoTemplate);
+  }
+
+  @Bean
+  public Lock leanMongoLock(final TokenSupplier tokenSupplier, final MongoTemplate mongoTemplate) {
+    return new LeanMongoLock(tokenSupplier, mongoTemplate);
+  }
+
+  @Bean
+  public MongoLockStoreProvisioner mongoLockStoreProvisioner(final LockStoreProvisioning lockStoreProvisioning, final MongoTemplate mongoTemplate) {
+    return new MongoLockStoreProvisioner(lockStoreProvisioning, mongoTemplate);
   }
 }
@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.mongo.impl;
+
+import com.github.alturkovic.lock.AbstractSimpleLock;
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonBinarySubType;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * A lock like {@link SimpleMongoLock} working with raw documents instead of mapping {@code LockDocument}.
+ * <p>
+ * Lock documents only hold the {@code _id} key, a binary {@code token} and an {@code expireAt} date, without a {@code _class}
+ * type hint. UUID tokens are stored in 16 bytes, other tokens as their UTF-8 bytes, both with the generic binary subtype so that
+ * codecs read them back as binary regardless of their UUID representation. Expiration is computed in epoch millis,
+ * so operations do not go through the mapping and date conversions of Spring Data, only through its exception translation.
+ * <p>
+ * Documents of this lock are not compatible with the documents of {@link SimpleMongoLock}, so stores must not be shared.
+ */
+@Slf4j
+public class LeanMongoLock extends AbstractSimpleLock implements BatchRefreshingLock {
+  private static final FindOneAndUpdateOptions ACQUIRE_OPTIONS = new FindOneAndUpdateOptions()
+    .upsert(true)
+    .returnDocument(ReturnDocument.AFTER)
+    .projection(Projections.include("token"));
+
+  private static final BulkWriteOptions REFRESH_OPTIONS = new BulkWriteOptions().ordered(false);
+
+  private final MongoTemplate mongoTemplate;
+
+  public LeanMongoLock(final Supplier<String> tokenSupplier, final MongoTemplate mongoTemplate) {
+    super(tokenSupplier);
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  protected String acquire(final String key, final String storeId, final String token, final long expiration) {
+    final long now = System.currentTimeMillis();
+    final Binary encodedToken = encodeToken(token);
+
+    // same single stage update as SimpleMongoLock, only replacing the token and expiration of an expired lock
+    final Document expired = new Document("$lt", Arrays.asList("$expireAt", new Date(now)));
+    final Document takeOver = new Document("$set", new Document()
+      .append("token", new Document("$cond", Arrays.asList(expired, encodedToken, "$token")))
+      .append("expireAt", new Document("$cond", Arrays.asList(expired, new Date(now + expiration), "$expireAt"))));
+
+    final Document doc = mongoTemplate.execute(storeId, collection ->
+      collection.findOneAndUpdate(Filters.eq("_id", key), Collections.singletonList(takeOver), ACQUIRE_OPTIONS));
+
+    final boolean locked = doc != null && encodedToken.equals(doc.get("token"));
+    log.debug("Tried to acquire lock for key {} with token {} in store {}. Locked: {}", key, token, storeId, locked);
+    return locked ? token : null;
+  }
+
+  @Override
+  protected boolean release(final String key, final String storeId, final String token) {
+    final DeleteResult deleted = mongoTemplate.execute(storeId, collection -> collection.deleteOne(byKeyAndToken(key, token)));
+    final boolean released = deleted.getDeletedCount() == 1;
+    if (released) {
+      log.debug("Remove query successfully affected 1 record for key {} with token {} in store {}", key, token, storeId);
+    } else {
+      log.error("Remove query did not affect any records for key {} with token {} in store {}", key, token, storeId);
+    }
+
+    return released;
+  }
+
+  @Override
+  protected boolean refresh(final String key, final String storeId, final String token, final long expiration) {
+    final Bson update = Updates.set("expireAt", new Date(System.currentTimeMillis() + expiration));
+    final UpdateResult updated = mongoTemplate.execute(storeId, collection -> collection.updateOne(byKeyAndToken(key, token), update));
+
+    final boolean refreshed = updated.getMatchedCount() == 1;
+    if (refreshed) {
+      log.debug("Refresh query successfully affected 1 record for key {} with token {} in store {}", key, token, storeId);
+    } else {
+      log.warn("Refresh query did not affect any records for key {} with token {} in store {}. This is possible when refresh interval fires for the final time after the lock has been released",
+        key, token, storeId);
+    }
+
+    return refreshed;
+  }
+
+  @Override
+  public List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    final long now = System.currentTimeMillis();
+    final List<WriteModel<Document>> updates = new ArrayList<>(leases.size());
+    for (final Lease lease : leases) {
+      Assert.isTrue(lease.getKeys().size() == 1, "Cannot refresh lock for multiple keys with this lock");
+      updates.add(new UpdateOneModel<>(byKeyAndToken(lease.getKeys().getFirst(), lease.getToken()),
+        Updates.set("expireAt", new Date(now + lease.getExpiration()))));
+    }
+
+    final BulkWriteResult result = mongoTemplate.execute(storeId, collection -> collection.bulkWrite(updates, REFRESH_OPTIONS));
+    if (result.getMatchedCount() == leases.size()) {
+      log.debug("Bulk refresh successfully matched all {} leases in store {}", leases.size(), storeId);
+      return Collections.emptyList();
+    }
+
+    // bulk writes only report totals, so find out which of the leases were not matched
+    final List<String> keys = leases.stream().map(lease -> lease.getKeys().getFirst()).toList();
+    final List<Document> documents = mongoTemplate.execute(storeId, collection -> collection.find(Filters.in("_id", keys))
+      .projection(Projections.include("token"))
+      .into(new ArrayList<>()));
+    final Map<Object, Object> tokens = documents.stream().collect(Collectors.toMap(doc -> doc.get("_id"), doc -> doc.get("token")));
+
+    final List<Lease> lost = leases.stream()
+      .filter(lease -> !Objects.equals(tokens.get(lease.getKeys().getFirst()), encodeToken(lease.getToken())))
+      .toList();
+    log.warn("Bulk refresh did not refresh {} out of {} leases in store {}: {}", lost.size(), leases.size(), storeId, lost);
+    return lost;
+  }
+
+  private static Bson byKeyAndToken(final String key, final String token) {
+    return Filters.and(Filters.eq("_id", key), Filters.eq("token", encodeToken(token)));
+  }
+
+  /**
+   * Encode the token as generic binary, in 16 bytes if it is a UUID.
+   * <p>
+   * The UUID subtype is not used, since codecs with the standard UUID representation would decode it as a {@code UUID}
+   * that never equals the encoded token.
+   *
+   * @param token lock token
+   * @return binary stored in the lock document
+   */
+  static Binary encodeToken(final String token) {
+    if (isUuid(token)) {
+      final UUID uuid = UUID.fromString(token);
+      final ByteBuffer bytes = ByteBuffer.allocate(16);
+      bytes.putLong(uuid.getMostSignificantBits());
+      bytes.putLong(uuid.getLeastSignificantBits());
+      return new Binary(BsonBinarySubType.BINARY, bytes.array());
+    }
+    return new Binary(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // only canonical UUIDs, so decoding them would give back the same token
+  private static boolean isUuid(final String token) {
+    if (token.length() != 36) {
+      return false;
+    }
+    for (int i = 0; i < token.length(); i++) {
+      final char c = token.charAt(i);
+      final boolean valid = (i == 8 || i == 13 || i == 18 || i == 23) ? c == '-' : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
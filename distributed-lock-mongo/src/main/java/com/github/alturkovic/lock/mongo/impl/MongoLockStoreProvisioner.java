@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.mongo.impl;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.store.AbstractLockStoreProvisioner;
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+/**
+ * Ensures the collections of {@link SimpleMongoLock}, {@link MultiMongoLock} and {@link LeanMongoLock} have a TTL index
+ * on {@code expireAt}, deleting locks of keys that are not acquired again once they expire.
+ */
+public class MongoLockStoreProvisioner extends AbstractLockStoreProvisioner<MongoLockStoreProvisioner.LockIndex> {
+  private final MongoTemplate mongoTemplate;
+
+  public MongoLockStoreProvisioner(final LockStoreProvisioning provisioning, final MongoTemplate mongoTemplate) {
+    super(provisioning);
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public boolean supports(final Lock lock) {
+    return lock instanceof SimpleMongoLock || lock instanceof MultiMongoLock || lock instanceof LeanMongoLock;
+  }
+
+  @Override
+  protected List<LockIndex> findMissingIndexes(final String storeId) {
+    final List<String> fields = Collections.singletonList(LockIndex.EXPIRE_AT_FIELD);
+    final boolean present = mongoTemplate.indexOps(storeId).getIndexInfo().stream()
+      .filter(indexInfo -> indexInfo.isIndexForFields(fields))
+      .map(IndexInfo::getExpireAfter)
+      .anyMatch(Optional::isPresent);
+
+    return present ? Collections.emptyList() : Collections.singletonList(LockIndex.EXPIRE_AT_TTL);
+  }
+
+  @Override
+  protected void createIndex(final String storeId, final LockIndex index) {
+    mongoTemplate.indexOps(storeId).createIndex(index.getDefinition());
+  }
+
+  @AllArgsConstructor
+  public enum LockIndex {
+    EXPIRE_AT_TTL("TTL index on expireAt");
+
+    private static final String EXPIRE_AT_FIELD = "expireAt";
+
+    private final String description;
+
+    Index getDefinition() {
+      return new Index().on(EXPIRE_AT_FIELD, Sort.Direction.ASC).expire(Duration.ZERO);
+    }
+
+    @Override
+    public String toString() {
+      return description;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.mongo.impl;
+
+import com.github.alturkovic.lock.Lock;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Locks multiple keys in a single ordered bulk write of conditional upserts.
+ * <p>
+ * Every upsert only matches an expired lock of its key, so a held key fails its upsert with a duplicate key error,
+ * which stops the ordered bulk write. Keys locked before the failing one are then released with a single delete.
+ */
+@Data
+@Slf4j
+public class MultiMongoLock implements Lock {
+  private final Supplier<String> tokenSupplier;
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public String acquire(final List<String> keys, final String storeId, final long expiration) {
+    final String token = tokenSupplier.get();
+    if (!StringUtils.hasText(token)) {
+      throw new IllegalStateException("Cannot lock with empty token");
+    }
+
+    // sorted keys make locks with overlapping keys fail on the same first key, before locking any keys after it
+    final List<String> sortedKeys = sortedKeys(keys);
+    final LocalDateTime now = LocalDateTime.now();
+    final Update update = new Update().set("token", token).set("expireAt", now.plus(expiration, ChronoUnit.MILLIS));
+
+    final BulkOperations operations = mongoTemplate.bulkOps(BulkMode.ORDERED, storeId);
+    for (final String key : sortedKeys) {
+      operations.upsert(Query.query(Criteria.where("_id").is(key).and("expireAt").lt(now)), update);
+    }
+
+    try {
+      final BulkWriteResult result = operations.execute();
+      final boolean locked = result.getMatchedCount() + result.getUpserts().size() == sortedKeys.size();
+      log.debug("Tried to acquire lock for keys {} with token {} in store {}. Locked: {}", sortedKeys, token, storeId, locked);
+      if (!locked) {
+        rollback(sortedKeys, storeId, token);
+      }
+      return locked ? token : null;
+    } catch (final BulkOperationException e) {
+      rollback(sortedKeys, storeId, token);
+      if (e.getErrors().stream().allMatch(error -> error.getCategory() == ErrorCategory.DUPLICATE_KEY)) {
+        log.debug("Cannot acquire lock for keys {} with token {} in store {}, some of the keys are locked", sortedKeys, token, storeId);
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean release(final List<String> keys, final String storeId, final String token) {
+    final List<String> sortedKeys = sortedKeys(keys);
+    final DeleteResult deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(sortedKeys).and("token").is(token)), storeId);
+
+    final boolean released = deleted.getDeletedCount() == sortedKeys.size();
+    if (released) {
+      log.debug("Remove query successfully affected {} records for keys {} with token {} in store {}", sortedKeys.size(), sortedKeys, token, storeId);
+    } else {
+      log.error("Remove query affected {} out of {} records for keys {} with token {} in store {}", deleted.getDeletedCount(), sortedKeys.size(), sortedKeys, token, storeId);
+    }
+
+    return released;
+  }
+
+  @Override
+  public boolean refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    final List<String> sortedKeys = sortedKeys(keys);
+    final UpdateResult updated = mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(sortedKeys).and("token").is(token)),
+      Update.update("expireAt", LocalDateTime.now().plus(expiration, ChronoUnit.MILLIS)),
+      storeId);
+
+    final boolean refreshed = updated.getMatchedCount() == sortedKeys.size();
+    if (refreshed) {
+      log.debug("Refresh query successfully affected {} records for keys {} with token {} in store {}", sortedKeys.size(), sortedKeys, token, storeId);
+    } else {
+      log.warn("Refresh query affected {} out of {} records for keys {} with token {} in store {}. This is possible when refresh interval fires for the final time after the lock has been released",
+        updated.getMatchedCount(), sortedKeys.size(), sortedKeys, token, storeId);
+    }
+
+    return refreshed;
+  }
+
+  private void rollback(final List<String> keys, final String storeId, final String token) {
+    final DeleteResult deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(keys).and("token").is(token)), storeId);
+    log.debug("Rolled back {} locked keys out of {} keys with token {} in store {}", deleted.getDeletedCount(), keys, token, storeId);
+  }
+
+  private static List<String> sortedKeys(final List<String> keys) {
+    Assert.notEmpty(keys, "Cannot lock without keys");
+    return new ArrayList<>(new TreeSet<>(keys));
+  }
+}
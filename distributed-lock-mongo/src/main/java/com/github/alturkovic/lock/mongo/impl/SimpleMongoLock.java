@@ -25,21 +25,35 @@
 package com.github.alturkovic.lock.mongo.impl;
 
 import com.github.alturkovic.lock.AbstractSimpleLock;
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
 import com.github.alturkovic.lock.mongo.model.LockDocument;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.util.Assert;
 
 @Slf4j
-public class SimpleMongoLock extends AbstractSimpleLock {
+public class SimpleMongoLock extends AbstractSimpleLock implements BatchRefreshingLock {
   private final MongoTemplate mongoTemplate;
 
   public SimpleMongoLock(final Supplier<String> tokenSupplier, final MongoTemplate mongoTemplate) {
@@ -49,12 +63,18 @@ public class SimpleMongoLock extends AbstractSimpleLock {
 
   @Override
   protected String acquire(final String key, final String storeId, final String token, final long expiration) {
-    final Query query = Query.query(Criteria.where("_id").is(key));
-    final Update update = new Update()
-      .setOnInsert("_id", key)
-      .setOnInsert("expireAt", LocalDateTime.now().plus(expiration, ChronoUnit.MILLIS))
-      .setOnInsert("token", token);
+    final LocalDateTime now = LocalDateTime.now();
+    final Object expireAt = mongoTemplate.getConverter().convertToMongoType(now.plus(expiration, ChronoUnit.MILLIS));
+
+    // an upserted document has no expireAt yet, and a missing field compares lower than any date
+    final Document expired = new Document("$lt", Arrays.asList("$expireAt", mongoTemplate.getConverter().convertToMongoType(now)));
+    final Document takeOver = new Document("$set", new Document()
+      .append("token", new Document("$cond", Arrays.asList(expired, new Document("$literal", token), "$token")))
+      .append("expireAt", new Document("$cond", Arrays.asList(expired, expireAt, "$expireAt"))));
 
+    // both fields are computed from the stored document in a single stage, so a held lock is left untouched
+    final Query query = Query.query(Criteria.where("_id").is(key));
+    final AggregationUpdate update = AggregationUpdate.from(Collections.singletonList(context -> takeOver));
     final FindAndModifyOptions options = new FindAndModifyOptions().upsert(true).returnNew(true);
     final LockDocument doc = mongoTemplate.findAndModify(query, update, options, LockDocument.class, storeId);
 
@@ -96,4 +116,32 @@ public class SimpleMongoLock extends AbstractSimpleLock {
 
     return refreshed;
   }
-}
\ No newline at end of file
+
+  @Override
+  public List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    final LocalDateTime now = LocalDateTime.now();
+    final BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, storeId);
+    for (final Lease lease : leases) {
+      Assert.isTrue(lease.getKeys().size() == 1, "Cannot refresh lock for multiple keys with this lock");
+      operations.updateOne(Query.query(Criteria.where("_id").is(lease.getKeys().getFirst()).and("token").is(lease.getToken())),
+        Update.update("expireAt", now.plus(lease.getExpiration(), ChronoUnit.MILLIS)));
+    }
+
+    final BulkWriteResult result = operations.execute();
+    if (result.getMatchedCount() == leases.size()) {
+      log.debug("Bulk refresh successfully matched all {} leases in store {}", leases.size(), storeId);
+      return Collections.emptyList();
+    }
+
+    // bulk writes only report totals, so find out which of the leases were not matched
+    final List<String> keys = leases.stream().map(lease -> lease.getKeys().getFirst()).toList();
+    final Map<String, String> tokens = mongoTemplate.find(Query.query(Criteria.where("_id").in(keys)), LockDocument.class, storeId).stream()
+      .collect(Collectors.toMap(LockDocument::getId, LockDocument::getToken));
+
+    final List<Lease> lost = leases.stream()
+      .filter(lease -> !Objects.equals(tokens.get(lease.getKeys().getFirst()), lease.getToken()))
+      .toList();
+    log.warn("Bulk refresh did not refresh {} out of {} leases in store {}: {}", lost.size(), leases.size(), storeId, lost);
+    return lost;
+  }
+}
@@ -32,7 +32,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 
 /**
- * Make sure you create a TTL index in your {@link Locked#storeId()} collection on {@code expireAt} field to enable lock expiration.
+ * Expired locks are taken over when their key is acquired again, a TTL index in your {@link Locked#storeId()} collection
+ * on {@code expireAt} field is only needed to delete expired locks of keys that are not acquired again.
  * You might also want to index the {@code token} field for better search performance.
  */
 @Data
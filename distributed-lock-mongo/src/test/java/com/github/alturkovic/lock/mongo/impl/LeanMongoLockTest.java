@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.mongo.impl;
+
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.Lock;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.bson.BsonBinarySubType;
+import org.bson.Document;
+import org.bson.UuidRepresentation;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@Testcontainers
+public class LeanMongoLockTest implements InitializingBean {
+  private static final String TOKEN = "0b3e6c1e-9c4a-4d4f-8f53-8a6c3e1d2b7f";
+
+  @Container
+  @ServiceConnection
+  private static final MongoDBContainer mongo = new MongoDBContainer("mongo:latest").withExposedPorts(27017);
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  private Lock lock;
+
+  @Override
+  public void afterPropertiesSet() {
+    lock = new LeanMongoLock(() -> TOKEN, mongoTemplate);
+  }
+
+  @BeforeEach
+  public void cleanMongoCollection() {
+    mongoTemplate.dropCollection("locks");
+  }
+
+  @Test
+  public void shouldEncodeTokens() {
+    assertThat(LeanMongoLock.encodeToken(TOKEN).getType()).isEqualTo(BsonBinarySubType.BINARY.getValue());
+    assertThat(LeanMongoLock.encodeToken(TOKEN).getData()).hasSize(16);
+    assertThat(LeanMongoLock.encodeToken("123").getData()).containsExactly('1', '2', '3');
+    assertThat(LeanMongoLock.encodeToken(TOKEN.toUpperCase()).getData()).hasSize(36);
+  }
+
+  @Test
+  public void shouldLockWithLeanDocument() {
+    final long expectedExpiration = System.currentTimeMillis() + 1000;
+
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isEqualTo(TOKEN);
+
+    final Document document = findById("1");
+    assertThat(document).containsOnlyKeys("_id", "token", "expireAt");
+    assertThat(document.get("token")).isEqualTo(LeanMongoLock.encodeToken(TOKEN));
+    assertThat(document.getDate("expireAt").getTime()).isCloseTo(expectedExpiration, within(100L));
+  }
+
+  @Test
+  public void shouldNotLock() {
+    insert("1", System.currentTimeMillis() + 60000, "def");
+
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isNull();
+    assertThat(findById("1").get("token")).isEqualTo(LeanMongoLock.encodeToken("def"));
+  }
+
+  @Test
+  public void shouldTakeOverExpiredLock() {
+    insert("1", System.currentTimeMillis() - 1000, "def");
+
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isEqualTo(TOKEN);
+    assertThat(findById("1").get("token")).isEqualTo(LeanMongoLock.encodeToken(TOKEN));
+  }
+
+  @Test
+  public void shouldRelease() {
+    insert("1", System.currentTimeMillis() + 60000, TOKEN);
+
+    assertThat(lock.release(Collections.singletonList("1"), "locks", TOKEN)).isTrue();
+    assertThat(findById("1")).isNull();
+  }
+
+  @Test
+  public void shouldNotRelease() {
+    insert("1", System.currentTimeMillis() + 60000, "def");
+
+    assertThat(lock.release(Collections.singletonList("1"), "locks", TOKEN)).isFalse();
+    assertThat(findById("1")).isNotNull();
+  }
+
+  @Test
+  public void shouldRefresh() {
+    insert("1", System.currentTimeMillis() + 100, TOKEN);
+    final long expectedExpiration = System.currentTimeMillis() + 1000;
+
+    assertThat(lock.refresh(Collections.singletonList("1"), "locks", TOKEN, 1000)).isTrue();
+    assertThat(findById("1").getDate("expireAt").getTime()).isCloseTo(expectedExpiration, within(100L));
+  }
+
+  @Test
+  public void shouldNotRefreshBecauseTokenDoesNotMatch() {
+    insert("1", System.currentTimeMillis() + 100, "def");
+
+    assertThat(lock.refresh(Collections.singletonList("1"), "locks", TOKEN, 1000)).isFalse();
+  }
+
+  @Test
+  public void shouldRefreshInBatchAndReportLostLeases() {
+    insert("1", System.currentTimeMillis() + 100, TOKEN);
+    insert("2", System.currentTimeMillis() + 60000, "def");
+
+    final Lease held = new Lease(Collections.singletonList("1"), "locks", TOKEN, 1000);
+    final Lease taken = new Lease(Collections.singletonList("2"), "locks", TOKEN, 1000);
+    final Lease expired = new Lease(Collections.singletonList("3"), "locks", TOKEN, 1000);
+
+    final long expectedExpiration = System.currentTimeMillis() + 1000;
+    final List<Lease> lost = ((BatchRefreshingLock) lock).refresh("locks", List.of(held, taken, expired));
+    assertThat(lost).containsExactly(taken, expired);
+    assertThat(findById("1").getDate("expireAt").getTime()).isCloseTo(expectedExpiration, within(100L));
+  }
+
+  @Test
+  public void shouldLockWithUuidTokenWhenUuidsAreDecodedAsStandard() {
+    final MongoClientSettings settings = MongoClientSettings.builder()
+      .applyConnectionString(new ConnectionString(mongo.getReplicaSetUrl()))
+      .uuidRepresentation(UuidRepresentation.STANDARD)
+      .build();
+
+    try (final MongoClient client = MongoClients.create(settings)) {
+      final Lock standardLock = new LeanMongoLock(() -> TOKEN, new MongoTemplate(client, mongoTemplate.getDb().getName()));
+
+      assertThat(standardLock.acquire(Collections.singletonList("1"), "locks", 1000)).isEqualTo(TOKEN);
+
+      final Lease held = new Lease(Collections.singletonList("1"), "locks", TOKEN, 1000);
+      assertThat(((BatchRefreshingLock) standardLock).refresh("locks", List.of(held))).isEmpty();
+    }
+  }
+
+  private void insert(final String key, final long expireAt, final String token) {
+    final Binary encodedToken = LeanMongoLock.encodeToken(token);
+    mongoTemplate.getCollection("locks").insertOne(new Document("_id", key).append("token", encodedToken).append("expireAt", new Date(expireAt)));
+  }
+
+  private Document findById(final String key) {
+    return mongoTemplate.getCollection("locks").find(new Document("_id", key)).first();
+  }
+
+  @SpringBootApplication
+  static class TestApplication {}
+}
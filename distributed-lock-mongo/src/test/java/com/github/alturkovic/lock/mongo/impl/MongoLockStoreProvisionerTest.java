@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.mongo.impl;
+
+import com.github.alturkovic.lock.store.LockStoreProvisioning;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Testcontainers
+public class MongoLockStoreProvisionerTest {
+
+  @Container
+  @ServiceConnection
+  private static final MongoDBContainer mongo = new MongoDBContainer("mongo:latest").withExposedPorts(27017);
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @BeforeEach
+  public void cleanMongoCollection() {
+    mongoTemplate.dropCollection("locks");
+  }
+
+  @Test
+  public void shouldFindMissingTtlIndex() {
+    mongoTemplate.indexOps("locks").createIndex(new Index().on("expireAt", Sort.Direction.ASC));
+
+    assertThat(new MongoLockStoreProvisioner(LockStoreProvisioning.VALIDATE, mongoTemplate).findMissingIndexes("locks"))
+      .containsExactly(MongoLockStoreProvisioner.LockIndex.EXPIRE_AT_TTL);
+  }
+
+  @Test
+  public void shouldFindTtlIndex() {
+    mongoTemplate.indexOps("locks").createIndex(new Index().on("expireAt", Sort.Direction.ASC).expire(Duration.ofMinutes(1)));
+
+    assertThat(new MongoLockStoreProvisioner(LockStoreProvisioning.VALIDATE, mongoTemplate).findMissingIndexes("locks")).isEmpty();
+  }
+
+  @Test
+  public void shouldCreateTtlIndex() {
+    new MongoLockStoreProvisioner(LockStoreProvisioning.CREATE, mongoTemplate).provision("locks");
+
+    assertThat(mongoTemplate.indexOps("locks").getIndexInfo())
+      .anySatisfy(indexInfo -> {
+        assertThat(indexInfo.isIndexForFields(Collections.singletonList("expireAt"))).isTrue();
+        assertThat(indexInfo.getExpireAfter()).contains(Duration.ZERO);
+      });
+  }
+
+  @Test
+  public void shouldFailOnMissingTtlIndex() {
+    assertThatThrownBy(() -> new MongoLockStoreProvisioner(LockStoreProvisioning.VALIDATE, mongoTemplate).provision("locks"))
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessageContaining("TTL index on expireAt");
+  }
+
+  @SpringBootApplication
+  static class TestApplication {}
+}
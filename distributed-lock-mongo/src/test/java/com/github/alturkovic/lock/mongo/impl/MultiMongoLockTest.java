@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.mongo.impl;
+
+import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.mongo.model.LockDocument;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import org.assertj.core.data.TemporalUnitWithinOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Testcontainers
+public class MultiMongoLockTest implements InitializingBean {
+
+  @Container
+  @ServiceConnection
+  private static final MongoDBContainer mongo = new MongoDBContainer("mongo:latest").withExposedPorts(27017);
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  private Lock lock;
+
+  @Override
+  public void afterPropertiesSet() {
+    lock = new MultiMongoLock(() -> "abc", mongoTemplate);
+  }
+
+  @BeforeEach
+  public void cleanMongoCollection() {
+    mongoTemplate.dropCollection("locks");
+  }
+
+  @Test
+  public void shouldLockAllKeys() {
+    final LocalDateTime expectedExpiration = LocalDateTime.now().plus(1000, ChronoUnit.MILLIS);
+
+    assertThat(lock.acquire(Arrays.asList("2", "1", "2"), "locks", 1000)).isEqualTo("abc");
+
+    assertThat(mongoTemplate.findAll(LockDocument.class, "locks"))
+      .extracting(LockDocument::getId, LockDocument::getToken)
+      .containsExactlyInAnyOrder(tuple("1", "abc"), tuple("2", "abc"));
+    assertThat(mongoTemplate.findById("1", LockDocument.class, "locks").getExpireAt()).isCloseTo(expectedExpiration, new TemporalUnitWithinOffset(100, ChronoUnit.MILLIS));
+  }
+
+  @Test
+  public void shouldTakeOverExpiredKeys() {
+    mongoTemplate.insert(new LockDocument("1", LocalDateTime.now().minusSeconds(1), "def"), "locks");
+
+    assertThat(lock.acquire(Arrays.asList("1", "2"), "locks", 1000)).isEqualTo("abc");
+    assertThat(mongoTemplate.findById("1", LockDocument.class, "locks").getToken()).isEqualTo("abc");
+  }
+
+  @Test
+  public void shouldNotLockAnyKeyIfOneIsHeld() {
+    final LocalDateTime expireAt = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+    mongoTemplate.insert(new LockDocument("2", expireAt, "def"), "locks");
+    mongoTemplate.insert(new LockDocument("1", LocalDateTime.now().minusSeconds(1), "ghi"), "locks");
+
+    assertThat(lock.acquire(Arrays.asList("1", "2", "3"), "locks", 1000)).isNull();
+
+    // the key locked before the held one is rolled back, the key after it is never locked
+    assertThat(mongoTemplate.findById("1", LockDocument.class, "locks")).isNull();
+    assertThat(mongoTemplate.findById("2", LockDocument.class, "locks")).isEqualTo(new LockDocument("2", expireAt, "def"));
+    assertThat(mongoTemplate.findById("3", LockDocument.class, "locks")).isNull();
+  }
+
+  @Test
+  public void shouldReleaseAllKeys() {
+    lock.acquire(Arrays.asList("1", "2"), "locks", 1000);
+
+    assertThat(lock.release(Arrays.asList("1", "2"), "locks", "abc")).isTrue();
+    assertThat(mongoTemplate.findAll(LockDocument.class, "locks")).isEmpty();
+  }
+
+  @Test
+  public void shouldNotReleaseKeysLockedByOthers() {
+    lock.acquire(Arrays.asList("1", "2"), "locks", 1000);
+
+    assertThat(lock.release(Arrays.asList("1", "2"), "locks", "def")).isFalse();
+    assertThat(mongoTemplate.findAll(LockDocument.class, "locks")).hasSize(2);
+  }
+
+  @Test
+  public void shouldRefreshAllKeys() {
+    lock.acquire(Arrays.asList("1", "2"), "locks", 100);
+    final LocalDateTime expectedExpiration = LocalDateTime.now().plus(1000, ChronoUnit.MILLIS);
+
+    assertThat(lock.refresh(Arrays.asList("1", "2"), "locks", "abc", 1000)).isTrue();
+    assertThat(mongoTemplate.findAll(LockDocument.class, "locks"))
+      .allSatisfy(document -> assertThat(document.getExpireAt()).isCloseTo(expectedExpiration, new TemporalUnitWithinOffset(100, ChronoUnit.MILLIS)));
+  }
+
+  @Test
+  public void shouldNotRefreshPartiallyHeldKeys() {
+    lock.acquire(Arrays.asList("1", "2"), "locks", 1000);
+    mongoTemplate.remove(new LockDocument("2", null, "abc"), "locks");
+
+    assertThat(lock.refresh(Arrays.asList("1", "2"), "locks", "abc", 1000)).isFalse();
+  }
+
+  @SpringBootApplication
+  static class TestApplication {}
+}
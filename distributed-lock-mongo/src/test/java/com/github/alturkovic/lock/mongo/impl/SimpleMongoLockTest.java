@@ -24,11 +24,14 @@
 
 package com.github.alturkovic.lock.mongo.impl;
 
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
 import com.github.alturkovic.lock.Lock;
 import com.github.alturkovic.lock.mongo.model.LockDocument;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.List;
 import org.assertj.core.data.TemporalUnitWithinOffset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -91,6 +94,28 @@ public class SimpleMongoLockTest implements InitializingBean {
     assertThat(mongoTemplate.findById("1", LockDocument.class, "locks").getToken()).isEqualTo("def");
   }
 
+  @Test
+  public void shouldTakeOverExpiredLock() {
+    mongoTemplate.insert(new LockDocument("1", LocalDateTime.now().minusSeconds(1), "def"), "locks");
+    final LocalDateTime expectedExpiration = LocalDateTime.now().plus(1000, ChronoUnit.MILLIS);
+
+    final String token = lock.acquire(Collections.singletonList("1"), "locks", 1000);
+    assertThat(token).isEqualTo("abc");
+
+    final LockDocument document = mongoTemplate.findById("1", LockDocument.class, "locks");
+    assertThat(document.getToken()).isEqualTo("abc");
+    assertThat(document.getExpireAt()).isCloseTo(expectedExpiration, new TemporalUnitWithinOffset(100, ChronoUnit.MILLIS));
+  }
+
+  @Test
+  public void shouldNotChangeHeldLock() {
+    final LocalDateTime expireAt = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+    mongoTemplate.insert(new LockDocument("1", expireAt, "def"), "locks");
+
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isNull();
+    assertThat(mongoTemplate.findById("1", LockDocument.class, "locks")).isEqualTo(new LockDocument("1", expireAt, "def"));
+  }
+
   @Test
   public void shouldRelease() {
     mongoTemplate.insert(new LockDocument("1", LocalDateTime.now().plusMinutes(1), "abc"), "locks");
@@ -138,6 +163,22 @@ public class SimpleMongoLockTest implements InitializingBean {
     assertThat(mongoTemplate.findAll(LockDocument.class)).isNullOrEmpty();
   }
 
+  @Test
+  public void shouldRefreshInBatchAndReportLostLeases() {
+    lock.acquire(Collections.singletonList("1"), "locks", 100);
+    mongoTemplate.insert(new LockDocument("2", LocalDateTime.now().plusMinutes(1), "def"), "locks");
+
+    final Lease held = new Lease(Collections.singletonList("1"), "locks", "abc", 1000);
+    final Lease taken = new Lease(Collections.singletonList("2"), "locks", "abc", 1000);
+    final Lease expired = new Lease(Collections.singletonList("3"), "locks", "abc", 1000);
+
+    final LocalDateTime expectedExpiration = LocalDateTime.now().plus(1000, ChronoUnit.MILLIS);
+    final List<Lease> lost = ((BatchRefreshingLock) lock).refresh("locks", List.of(held, taken, expired));
+    assertThat(lost).containsExactly(taken, expired);
+    assertThat(mongoTemplate.findById("1", LockDocument.class, "locks").getExpireAt()).isCloseTo(expectedExpiration, new TemporalUnitWithinOffset(100, ChronoUnit.MILLIS));
+    assertThat(mongoTemplate.findById("2", LockDocument.class, "locks").getToken()).isEqualTo("def");
+  }
+
   @SpringBootApplication
   static class TestApplication {}
 }
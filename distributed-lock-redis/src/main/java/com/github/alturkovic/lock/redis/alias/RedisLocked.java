@@ -24,6 +24,7 @@
 
 package com.github.alturkovic.lock.redis.alias;
 
+import com.github.alturkovic.lock.Backoff;
 import com.github.alturkovic.lock.Interval;
 import com.github.alturkovic.lock.Locked;
 import com.github.alturkovic.lock.redis.impl.SimpleRedisLock;
@@ -60,6 +61,9 @@ public @interface RedisLocked {
   @AliasFor(annotation = Locked.class)
   Interval retry() default @Interval(value = "50");
 
+  @AliasFor(annotation = Locked.class)
+  Backoff backoff() default @Backoff;
+
   @AliasFor(annotation = Locked.class)
   Interval refresh() default @Interval(value = "0");
 
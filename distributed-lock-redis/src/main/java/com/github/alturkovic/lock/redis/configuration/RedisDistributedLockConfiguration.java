@@ -25,23 +25,85 @@
 package com.github.alturkovic.lock.redis.configuration;
 
 import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.ReactiveLock;
 import com.github.alturkovic.lock.redis.impl.MultiRedisLock;
+import com.github.alturkovic.lock.redis.impl.ReactiveRedisLock;
+import com.github.alturkovic.lock.redis.impl.RedisClusterMode;
+import com.github.alturkovic.lock.redis.impl.RedisLockReleaseListener;
 import com.github.alturkovic.lock.redis.impl.SimpleRedisLock;
-import java.util.UUID;
+import com.github.alturkovic.lock.token.TokenSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 @Configuration
 public class RedisDistributedLockConfiguration {
 
   @Bean
-  public Lock simpleRedisLock(final StringRedisTemplate stringRedisTemplate) {
-    return new SimpleRedisLock(() -> UUID.randomUUID().toString(), stringRedisTemplate);
+  public Lock simpleRedisLock(final TokenSupplier tokenSupplier,
+                              final StringRedisTemplate stringRedisTemplate,
+                              @Autowired(required = false) final RedisLockReleaseListener redisLockReleaseListener) {
+    return new SimpleRedisLock(tokenSupplier, stringRedisTemplate, redisLockReleaseListener);
   }
 
   @Bean
-  public Lock multiRedisLock(final StringRedisTemplate stringRedisTemplate) {
-    return new MultiRedisLock(stringRedisTemplate);
+  public Lock multiRedisLock(final TokenSupplier tokenSupplier,
+                             final StringRedisTemplate stringRedisTemplate,
+                             @Autowired(required = false) final RedisLockReleaseListener redisLockReleaseListener,
+                             final RedisClusterMode redisClusterMode) {
+    return new MultiRedisLock(stringRedisTemplate, tokenSupplier, redisLockReleaseListener, redisClusterMode);
+  }
+
+  @Bean
+  public ReactiveLock reactiveRedisLock(final TokenSupplier tokenSupplier,
+                                        // resolved on first use, so applications without a reactive Redis driver can still start
+                                        @Lazy final ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                        @Autowired(required = false) final RedisLockReleaseListener redisLockReleaseListener,
+                                        final RedisClusterMode redisClusterMode) {
+    return new ReactiveRedisLock(reactiveStringRedisTemplate, tokenSupplier, redisLockReleaseListener, redisClusterMode);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.redis.cluster", name = "mode", havingValue = "none", matchIfMissing = true)
+  public RedisClusterMode noneRedisClusterMode() {
+    return RedisClusterMode.NONE;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.redis.cluster", name = "mode", havingValue = "hash-tag")
+  public RedisClusterMode hashTagRedisClusterMode() {
+    return RedisClusterMode.HASH_TAG;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.redis.cluster", name = "mode", havingValue = "slot-groups")
+  public RedisClusterMode slotGroupsRedisClusterMode() {
+    return RedisClusterMode.SLOT_GROUPS;
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.redis.release-notification", name = "enabled", havingValue = "true")
+  public RedisLockReleaseListener redisLockReleaseListener() {
+    return new RedisLockReleaseListener();
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "com.github.alturkovic.lock.redis.release-notification", name = "enabled", havingValue = "true")
+  public RedisMessageListenerContainer distributedLockMessageListenerContainer(final RedisConnectionFactory redisConnectionFactory,
+                                                                               final RedisLockReleaseListener redisLockReleaseListener) {
+    final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(redisConnectionFactory);
+    container.addMessageListener(redisLockReleaseListener, redisLockReleaseListener.getTopic());
+    return container;
   }
 }
@@ -24,13 +24,18 @@
 
 package com.github.alturkovic.lock.redis.impl;
 
-import com.github.alturkovic.lock.Lock;
+import com.github.alturkovic.lock.AwaitableLock;
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
+import com.github.alturkovic.lock.token.SequenceTokenSupplier;
 import io.lettuce.core.RedisCommandInterruptedException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.RedisSystemException;
@@ -41,9 +46,8 @@ import org.springframework.util.StringUtils;
 
 @Data
 @Slf4j
-@AllArgsConstructor
-public class MultiRedisLock implements Lock {
-  private static final String LOCK_SCRIPT = "local msetnx_keys_with_tokens = {}\n" +
+public class MultiRedisLock implements BatchRefreshingLock, AwaitableLock {
+  static final String LOCK_SCRIPT = "local msetnx_keys_with_tokens = {}\n" +
     "for _, key in ipairs(KEYS) do\n" +
     "    msetnx_keys_with_tokens[#msetnx_keys_with_tokens + 1] = key\n" +
     "    msetnx_keys_with_tokens[#msetnx_keys_with_tokens + 1] = ARGV[1]\n" +
@@ -58,7 +62,7 @@ public class MultiRedisLock implements Lock {
     "end\n" +
     "return true\n";
 
-  private static final String LOCK_RELEASE_SCRIPT = "for _, key in pairs(KEYS) do\n" +
+  static final String LOCK_RELEASE_SCRIPT = "for _, key in pairs(KEYS) do\n" +
     "    if redis.call('GET', key) ~= ARGV[1] then\n" +
     "        return false\n" +
     "    end\n" +
@@ -66,7 +70,18 @@ public class MultiRedisLock implements Lock {
     "redis.call('DEL', unpack(KEYS))\n" +
     "return true\n";
 
-  private static final String LOCK_REFRESH_SCRIPT = "for _, key in pairs(KEYS) do\n" +
+  static final String LOCK_RELEASE_AND_PUBLISH_SCRIPT = "for _, key in pairs(KEYS) do\n" +
+    "    if redis.call('GET', key) ~= ARGV[1] then\n" +
+    "        return false\n" +
+    "    end\n" +
+    "end\n" +
+    "redis.call('DEL', unpack(KEYS))\n" +
+    "for _, key in pairs(KEYS) do\n" +
+    "    redis.call('PUBLISH', ARGV[2] .. key, ARGV[1])\n" +
+    "end\n" +
+    "return true\n";
+
+  static final String LOCK_REFRESH_SCRIPT = "for _, key in pairs(KEYS) do\n" +
     "    local value = redis.call('GET', key)\n" +
     "    if (value == nil or value ~= ARGV[1]) then\n" +
     "        return false\n" +
@@ -79,34 +94,68 @@ public class MultiRedisLock implements Lock {
 
   private final RedisScript<Boolean> lockScript = new DefaultRedisScript<>(LOCK_SCRIPT, Boolean.class);
   private final RedisScript<Boolean> lockReleaseScript = new DefaultRedisScript<>(LOCK_RELEASE_SCRIPT, Boolean.class);
+  private final RedisScript<Boolean> lockReleaseAndPublishScript = new DefaultRedisScript<>(LOCK_RELEASE_AND_PUBLISH_SCRIPT, Boolean.class);
   private final RedisScript<Boolean> lockRefreshScript = new DefaultRedisScript<>(LOCK_REFRESH_SCRIPT, Boolean.class);
 
   private final StringRedisTemplate stringRedisTemplate;
   private final Supplier<String> tokenSupplier;
+  private final RedisLockReleaseListener releaseListener;
+  private final RedisClusterMode clusterMode;
+
+  /**
+   * Runs the scripts of different slots in parallel when locking keys with {@link RedisClusterMode#SLOT_GROUPS}.
+   */
+  private final Executor slotExecutor;
+
+  private final RedisBatchRefresher batchRefresher;
 
   public MultiRedisLock(final StringRedisTemplate stringRedisTemplate) {
-    this(stringRedisTemplate, () -> UUID.randomUUID().toString());
+    this(stringRedisTemplate, new SequenceTokenSupplier());
+  }
+
+  public MultiRedisLock(final StringRedisTemplate stringRedisTemplate, final Supplier<String> tokenSupplier) {
+    this(stringRedisTemplate, tokenSupplier, null);
+  }
+
+  public MultiRedisLock(final StringRedisTemplate stringRedisTemplate, final Supplier<String> tokenSupplier, final RedisLockReleaseListener releaseListener) {
+    this(stringRedisTemplate, tokenSupplier, releaseListener, RedisClusterMode.NONE);
+  }
+
+  public MultiRedisLock(final StringRedisTemplate stringRedisTemplate, final Supplier<String> tokenSupplier,
+                        final RedisLockReleaseListener releaseListener, final RedisClusterMode clusterMode) {
+    // slot scripts only wait for Redis, so a virtual thread per script is enough
+    this(stringRedisTemplate, tokenSupplier, releaseListener, clusterMode, Thread::startVirtualThread);
+  }
+
+  public MultiRedisLock(final StringRedisTemplate stringRedisTemplate, final Supplier<String> tokenSupplier,
+                        final RedisLockReleaseListener releaseListener, final RedisClusterMode clusterMode, final Executor slotExecutor) {
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.tokenSupplier = tokenSupplier;
+    this.releaseListener = releaseListener;
+    this.clusterMode = clusterMode;
+    this.slotExecutor = slotExecutor;
+    this.batchRefresher = new RedisBatchRefresher(stringRedisTemplate, clusterMode);
   }
 
   @Override
   public String acquire(final List<String> keys, final String storeId, final long expiration) {
-    final List<String> keysWithStoreIdPrefix = keys.stream().map(key -> storeId + ":" + key).collect(Collectors.toList());
     final String token = tokenSupplier.get();
 
     if (!StringUtils.hasText(token)) {
       throw new IllegalStateException("Cannot lock with empty token");
     }
 
-    final boolean locked = stringRedisTemplate.execute(lockScript, keysWithStoreIdPrefix, token, String.valueOf(expiration));
+    final List<List<String>> slots = clusterMode.groupBySlot(clusterMode.keys(storeId, keys));
+    final boolean locked = slots.size() == 1
+      ? stringRedisTemplate.execute(lockScript, slots.getFirst(), token, String.valueOf(expiration))
+      : acquireSlots(slots, token, expiration);
     log.debug("Tried to acquire lock for keys {} in store {} with token {}. Locked: {}", keys, storeId, token, locked);
     return locked ? token : null;
   }
 
   @Override
   public boolean release(final List<String> keys, final String storeId, final String token) {
-    final List<String> keysWithStoreIdPrefix = keys.stream().map(key -> storeId + ":" + key).collect(Collectors.toList());
-
-    final boolean released = stringRedisTemplate.execute(lockReleaseScript, keysWithStoreIdPrefix, token);
+    final boolean released = executeInSlots(clusterMode.groupBySlot(clusterMode.keys(storeId, keys)), slot -> release(slot, token));
     if (released) {
       log.debug("Release script deleted the record for keys {} with token {} in store {}", keys, token, storeId);
     } else {
@@ -115,13 +164,35 @@ public class MultiRedisLock implements Lock {
     return released;
   }
 
+  @Override
+  public boolean awaitRelease(final List<String> keys, final String storeId, final long timeout) throws InterruptedException {
+    if (releaseListener == null) {
+      Thread.sleep(timeout);
+      return false;
+    }
+
+    return releaseListener.awaitRelease(clusterMode.keys(storeId, keys), timeout);
+  }
+
+  @Override
+  public List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    if (clusterMode != RedisClusterMode.SLOT_GROUPS) {
+      return batchRefresher.refresh(storeId, leases);
+    }
+
+    // keys of different leases hash to different slots, so they cannot share a script
+    return leases.stream()
+      .filter(lease -> !refresh(lease.getKeys(), storeId, lease.getToken(), lease.getExpiration()))
+      .toList();
+  }
+
   @Override
   public boolean refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
-    final List<String> keysWithStoreIdPrefix = keys.stream().map(key -> storeId + ":" + key).collect(Collectors.toList());
+    final List<List<String>> slots = clusterMode.groupBySlot(clusterMode.keys(storeId, keys));
 
     boolean refreshed = false;
     try {
-      refreshed = stringRedisTemplate.execute(lockRefreshScript, keysWithStoreIdPrefix, token, String.valueOf(expiration));
+      refreshed = executeInSlots(slots, slot -> stringRedisTemplate.execute(lockRefreshScript, slot, token, String.valueOf(expiration)));
       if (refreshed) {
         log.debug("Refresh script refreshed the expiration for keys {} with token {} in store {}", keys, token, storeId);
       } else {
@@ -136,4 +207,64 @@ public class MultiRedisLock implements Lock {
     }
     return refreshed;
   }
+
+  private boolean release(final List<String> redisKeys, final String token) {
+    return releaseListener == null
+      ? stringRedisTemplate.execute(lockReleaseScript, redisKeys, token)
+      : stringRedisTemplate.execute(lockReleaseAndPublishScript, redisKeys, token, RedisLockReleaseListener.CHANNEL_PREFIX);
+  }
+
+  private boolean acquireSlots(final List<List<String>> slots, final String token, final long expiration) {
+    final List<CompletableFuture<Boolean>> results = slots.stream()
+      .map(slot -> CompletableFuture.supplyAsync(() -> stringRedisTemplate.execute(lockScript, slot, token, String.valueOf(expiration)), slotExecutor))
+      .toList();
+
+    final List<String> lockedKeys = new ArrayList<>();
+    RuntimeException failure = null;
+    for (int i = 0; i < slots.size(); i++) {
+      try {
+        if (Boolean.TRUE.equals(results.get(i).join())) {
+          lockedKeys.addAll(slots.get(i));
+        }
+      } catch (final CompletionException e) {
+        failure = unwrap(e);
+      }
+    }
+
+    final boolean locked = failure == null && lockedKeys.size() == slots.stream().mapToInt(List::size).sum();
+    if (!locked && !lockedKeys.isEmpty()) {
+      // the slots that were locked are released, so the keys are either all locked or none of them
+      final boolean released = executeInSlots(clusterMode.groupBySlot(lockedKeys), slot -> release(slot, token));
+      log.debug("Released partially acquired keys {} with token {}. Released: {}", lockedKeys, token, released);
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+    return locked;
+  }
+
+  /**
+   * Run the script for every slot, in parallel if there are multiple slots.
+   *
+   * @return {@code true} if the script succeeded for all slots
+   */
+  private boolean executeInSlots(final List<List<String>> slots, final Function<List<String>, Boolean> script) {
+    if (slots.size() == 1) {
+      return Boolean.TRUE.equals(script.apply(slots.getFirst()));
+    }
+
+    final List<CompletableFuture<Boolean>> results = slots.stream()
+      .map(slot -> CompletableFuture.supplyAsync(() -> script.apply(slot), slotExecutor))
+      .toList();
+    try {
+      return results.stream().map(CompletableFuture::join).allMatch(Boolean.TRUE::equals);
+    } catch (final CompletionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  private static RuntimeException unwrap(final CompletionException e) {
+    return e.getCause() instanceof RuntimeException cause ? cause : e;
+  }
 }
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import com.github.alturkovic.lock.AbstractSimpleLock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ * A lock held by a majority of independent Redis masters, following the Redlock algorithm.
+ * <p>
+ * Every operation is sent to all masters at once through their reactive connections and completes as soon as a majority
+ * of them succeeded, or as soon as a majority can no longer succeed, so slow or unavailable masters do not delay it.
+ * A lock is only acquired or refreshed if the majority answered before the lock expired, minus the allowed clock drift
+ * between the masters. Masters locked by an acquisition that did not reach the majority are released again.
+ */
+@Slf4j
+public class QuorumRedisLock extends AbstractSimpleLock {
+  private static final String LOCK_RELEASE_SCRIPT = "return redis.call('GET', KEYS[1]) == ARGV[1] and (redis.call('DEL', KEYS[1]) == 1) or false";
+
+  private static final String LOCK_REFRESH_SCRIPT = "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+    "    redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[2]))\n" +
+    "    return true\n" +
+    "end\n" +
+    "return false";
+
+  /**
+   * Part of the expiration by which the clocks of masters may drift apart, as suggested by Redlock.
+   */
+  private static final double CLOCK_DRIFT_FACTOR = 0.01;
+
+  /**
+   * Drift added to the expiration drift to account for the resolution of expirations in Redis.
+   */
+  private static final long MIN_CLOCK_DRIFT = 2;
+
+  private final RedisScript<Boolean> lockReleaseScript = new DefaultRedisScript<>(LOCK_RELEASE_SCRIPT, Boolean.class);
+  private final RedisScript<Boolean> lockRefreshScript = new DefaultRedisScript<>(LOCK_REFRESH_SCRIPT, Boolean.class);
+
+  private final List<ReactiveStringRedisTemplate> masters;
+  private final int quorum;
+
+  /**
+   * @param tokenSupplier       supplier of lock tokens
+   * @param connectionFactories connection factories of independent Redis masters, at least three to tolerate a failure
+   */
+  public static QuorumRedisLock of(final Supplier<String> tokenSupplier, final List<? extends ReactiveRedisConnectionFactory> connectionFactories) {
+    return new QuorumRedisLock(tokenSupplier, connectionFactories.stream().map(ReactiveStringRedisTemplate::new).toList());
+  }
+
+  /**
+   * @param tokenSupplier supplier of lock tokens
+   * @param masters       templates of independent Redis masters, at least three to tolerate a failure
+   */
+  public QuorumRedisLock(final Supplier<String> tokenSupplier, final List<ReactiveStringRedisTemplate> masters) {
+    super(tokenSupplier);
+    Assert.notEmpty(masters, "Cannot lock without Redis masters");
+    this.masters = List.copyOf(masters);
+    this.quorum = masters.size() / 2 + 1;
+  }
+
+  @Override
+  protected String acquire(final String key, final String storeId, final String token, final long expiration) {
+    final String redisKey = storeId + ":" + key;
+    final long start = System.nanoTime();
+
+    final boolean quorumLocked = awaitQuorum(master -> master.opsForValue().setIfAbsent(redisKey, token, Duration.ofMillis(expiration)), expiration);
+    final long validity = validity(start, expiration);
+    if (quorumLocked && validity > 0) {
+      log.debug("Acquired lock for key {} in store {} with token {} on a majority of {} masters, valid for {} ms", key, storeId, token, masters.size(), validity);
+      return token;
+    }
+
+    // commands on a master run in order, so masters that answer late are released after they were locked
+    final boolean released = awaitQuorum(master -> master.execute(lockReleaseScript, Collections.singletonList(redisKey), Collections.singletonList(token)).next(), expiration);
+    log.debug("Tried to acquire lock for key {} in store {} with token {}. Locked: {}, validity: {} ms, released remaining: {}", key, storeId, token, quorumLocked, validity, released);
+    return null;
+  }
+
+  @Override
+  protected boolean release(final String key, final String storeId, final String token) {
+    final String redisKey = storeId + ":" + key;
+    final boolean released = awaitQuorum(master -> master.execute(lockReleaseScript, Collections.singletonList(redisKey), Collections.singletonList(token)).next(), Long.MAX_VALUE);
+    if (released) {
+      log.debug("Release script deleted the record for key {} with token {} in store {} on a majority of masters", key, token, storeId);
+    } else {
+      log.error("Release script failed for key {} with token {} in store {} on a majority of masters", key, token, storeId);
+    }
+    return released;
+  }
+
+  @Override
+  protected boolean refresh(final String key, final String storeId, final String token, final long expiration) {
+    final String redisKey = storeId + ":" + key;
+    final long start = System.nanoTime();
+
+    final boolean quorumRefreshed = awaitQuorum(master -> master.execute(lockRefreshScript, Collections.singletonList(redisKey), List.of(token, String.valueOf(expiration))).next(), expiration);
+    final boolean refreshed = quorumRefreshed && validity(start, expiration) > 0;
+    if (refreshed) {
+      log.debug("Refresh script refreshed the expiration for key {} with token {} in store {} on a majority of masters", key, token, storeId);
+    } else {
+      log.debug("Refresh script failed to update expiration for key {} with token {} in store {} on a majority of masters", key, token, storeId);
+    }
+    return refreshed;
+  }
+
+  /**
+   * Run the command on all masters and wait until a majority of them either succeeded or can no longer succeed.
+   *
+   * @param command command to run on a master, completing with {@code true} if it succeeded
+   * @param timeout how long to wait for the majority, in millis
+   * @return {@code true} if a majority of masters succeeded within the timeout
+   */
+  private boolean awaitQuorum(final Function<ReactiveStringRedisTemplate, Mono<Boolean>> command, final long timeout) {
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    final AtomicInteger successes = new AtomicInteger();
+    final AtomicInteger failures = new AtomicInteger();
+    final int maxFailures = masters.size() - quorum;
+
+    for (final ReactiveStringRedisTemplate master : masters) {
+      command.apply(master)
+        .defaultIfEmpty(false)
+        .onErrorResume(e -> {
+          log.debug("Redis master failed to run the command", e);
+          return Mono.just(false);
+        })
+        .subscribe(succeeded -> {
+          if (Boolean.TRUE.equals(succeeded) ? successes.incrementAndGet() >= quorum : failures.incrementAndGet() > maxFailures) {
+            result.complete(succeeded);
+          }
+        });
+    }
+
+    try {
+      return result.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (final TimeoutException e) {
+      return false;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException("Unexpected failure while waiting for Redis masters", e.getCause());
+    }
+  }
+
+  // how long the lock remains valid after the majority answered, accounting for clock drift between the masters
+  private static long validity(final long start, final long expiration) {
+    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    return expiration - elapsed - (long) (expiration * CLOCK_DRIFT_FACTOR) - MIN_CLOCK_DRIFT;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import com.github.alturkovic.lock.ReactiveLock;
+import com.github.alturkovic.lock.token.SequenceTokenSupplier;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link ReactiveLock} storing keys the same way as {@link MultiRedisLock}, so both can guard the same keys
+ * when they use the same {@link RedisClusterMode}.
+ * <p>
+ * Commands are sent through a {@link ReactiveStringRedisTemplate} and never block the subscribing thread. Wrap it in a
+ * {@link com.github.alturkovic.lock.retry.ReactiveRetriableLock} to retry acquisitions without holding threads while waiting.
+ * With a release listener, releases are published like those of {@link MultiRedisLock}, waking its waiters.
+ * Locked methods of type {@link MultiRedisLock} returning reactive types are locked with this lock if it is a bean.
+ */
+@Data
+@Slf4j
+@AllArgsConstructor
+public class ReactiveRedisLock implements ReactiveLock {
+  private final RedisScript<Boolean> lockScript = new DefaultRedisScript<>(MultiRedisLock.LOCK_SCRIPT, Boolean.class);
+  private final RedisScript<Boolean> lockReleaseScript = new DefaultRedisScript<>(MultiRedisLock.LOCK_RELEASE_SCRIPT, Boolean.class);
+  private final RedisScript<Boolean> lockReleaseAndPublishScript = new DefaultRedisScript<>(MultiRedisLock.LOCK_RELEASE_AND_PUBLISH_SCRIPT, Boolean.class);
+  private final RedisScript<Boolean> lockRefreshScript = new DefaultRedisScript<>(MultiRedisLock.LOCK_REFRESH_SCRIPT, Boolean.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final Supplier<String> tokenSupplier;
+  private final RedisLockReleaseListener releaseListener;
+  private final RedisClusterMode clusterMode;
+
+  public ReactiveRedisLock(final ReactiveStringRedisTemplate redisTemplate) {
+    this(redisTemplate, new SequenceTokenSupplier());
+  }
+
+  public ReactiveRedisLock(final ReactiveStringRedisTemplate redisTemplate, final Supplier<String> tokenSupplier) {
+    this(redisTemplate, tokenSupplier, null, RedisClusterMode.NONE);
+  }
+
+  @Override
+  public Class<MultiRedisLock> getLockType() {
+    return MultiRedisLock.class;
+  }
+
+  @Override
+  public Mono<String> acquire(final List<String> keys, final String storeId, final long expiration) {
+    return Mono.defer(() -> {
+      final String token = tokenSupplier.get();
+      final List<List<String>> slots = clusterMode.groupBySlot(clusterMode.keys(storeId, keys));
+      final Mono<Boolean> locked = slots.size() == 1
+        ? execute(lockScript, slots.getFirst(), token, String.valueOf(expiration))
+        : acquireSlots(slots, token, expiration);
+
+      return locked
+        .doOnNext(acquired -> log.debug("Tried to acquire lock for keys {} in store {} with token {}. Locked: {}", keys, storeId, token, acquired))
+        .filter(Boolean::booleanValue)
+        .map(acquired -> token);
+    });
+  }
+
+  @Override
+  public Mono<Boolean> release(final List<String> keys, final String storeId, final String token) {
+    return Mono.defer(() -> releaseSlots(clusterMode.groupBySlot(clusterMode.keys(storeId, keys)), token))
+      .doOnNext(released -> {
+        if (released) {
+          log.debug("Release script deleted the record for keys {} with token {} in store {}", keys, token, storeId);
+        } else {
+          log.error("Release script failed for keys {} with token {} in store {}", keys, token, storeId);
+        }
+      });
+  }
+
+  @Override
+  public Mono<Boolean> refresh(final List<String> keys, final String storeId, final String token, final long expiration) {
+    return Mono.defer(() -> Flux.fromIterable(clusterMode.groupBySlot(clusterMode.keys(storeId, keys)))
+        .flatMap(slot -> execute(lockRefreshScript, slot, token, String.valueOf(expiration)))
+        .reduce(true, Boolean::logicalAnd))
+      .doOnNext(refreshed -> log.debug("Refresh script for keys {} with token {} in store {} with expiration {}. Refreshed: {}", keys, token, storeId, expiration, refreshed));
+  }
+
+  /**
+   * Lock every slot with its own script, releasing the slots that were locked if any other slot was not.
+   */
+  private Mono<Boolean> acquireSlots(final List<List<String>> slots, final String token, final long expiration) {
+    return Flux.fromIterable(slots)
+      .flatMap(slot -> execute(lockScript, slot, token, String.valueOf(expiration))
+        .map(locked -> new SlotResult(slot, locked, null))
+        .onErrorResume(e -> Mono.just(new SlotResult(slot, false, e))))
+      .collectList()
+      .flatMap(results -> {
+        final boolean locked = results.stream().allMatch(SlotResult::isLocked);
+        final List<String> lockedKeys = results.stream().filter(SlotResult::isLocked).flatMap(result -> result.getKeys().stream()).toList();
+        final Optional<Throwable> failure = results.stream().map(SlotResult::getFailure).filter(Objects::nonNull).findFirst();
+
+        // the slots that were locked are released, so the keys are either all locked or none of them
+        final Mono<Boolean> rollback = locked || lockedKeys.isEmpty()
+          ? Mono.just(true)
+          : releaseSlots(clusterMode.groupBySlot(lockedKeys), token)
+          .doOnNext(released -> log.debug("Released partially acquired keys {} with token {}. Released: {}", lockedKeys, token, released));
+
+        return rollback.then(failure.<Mono<Boolean>>map(Mono::error).orElseGet(() -> Mono.just(locked)));
+      });
+  }
+
+  private Mono<Boolean> releaseSlots(final List<List<String>> slots, final String token) {
+    return Flux.fromIterable(slots)
+      .flatMap(slot -> releaseListener == null
+        ? execute(lockReleaseScript, slot, token)
+        : execute(lockReleaseAndPublishScript, slot, token, RedisLockReleaseListener.CHANNEL_PREFIX))
+      .reduce(true, Boolean::logicalAnd);
+  }
+
+  private Mono<Boolean> execute(final RedisScript<Boolean> script, final List<String> redisKeys, final String... args) {
+    return redisTemplate.execute(script, redisKeys, List.of(args))
+      .next()
+      .defaultIfEmpty(false);
+  }
+
+  @Data
+  private static class SlotResult {
+    private final List<String> keys;
+    private final boolean locked;
+    private final Throwable failure;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import com.github.alturkovic.lock.Lease;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * Refreshes multiple leases held in the same store with a single script execution.
+ * <p>
+ * Keys of all leases are passed flattened, each lease is described by a triple of (key count, token, expiration)
+ * arguments and the script returns 1-based indices of the leases it could not refresh.
+ * <p>
+ * On Redis Cluster, unless all keys of a store share a hash tag, leases are grouped by the slot of their keys
+ * and every group is refreshed with its own script.
+ */
+@Slf4j
+class RedisBatchRefresher {
+  private static final String BATCH_REFRESH_SCRIPT = "local lost = {}\n" +
+    "local offset = 0\n" +
+    "for lease = 1, #ARGV / 3 do\n" +
+    "    local count = tonumber(ARGV[lease * 3 - 2])\n" +
+    "    local token = ARGV[lease * 3 - 1]\n" +
+    "    local held = true\n" +
+    "    for i = offset + 1, offset + count do\n" +
+    "        if redis.call('GET', KEYS[i]) ~= token then\n" +
+    "            held = false\n" +
+    "            break\n" +
+    "        end\n" +
+    "    end\n" +
+    "    if held then\n" +
+    "        for i = offset + 1, offset + count do\n" +
+    "            redis.call('PEXPIRE', KEYS[i], tonumber(ARGV[lease * 3]))\n" +
+    "        end\n" +
+    "    else\n" +
+    "        lost[#lost + 1] = lease\n" +
+    "    end\n" +
+    "    offset = offset + count\n" +
+    "end\n" +
+    "return lost";
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static final RedisScript<List<Long>> BATCH_REFRESH = (RedisScript) new DefaultRedisScript<>(BATCH_REFRESH_SCRIPT, List.class);
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisClusterMode clusterMode;
+  private volatile Boolean clusterConnection;
+
+  RedisBatchRefresher(final StringRedisTemplate stringRedisTemplate) {
+    this(stringRedisTemplate, RedisClusterMode.NONE);
+  }
+
+  RedisBatchRefresher(final StringRedisTemplate stringRedisTemplate, final RedisClusterMode clusterMode) {
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.clusterMode = clusterMode;
+  }
+
+  List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    if (!isGroupedBySlot()) {
+      return refreshInScript(storeId, leases);
+    }
+
+    // Redis Cluster rejects scripts with keys from different slots, so every slot gets its own script
+    final Map<Integer, List<Lease>> slots = new LinkedHashMap<>();
+    final List<List<Lease>> groups = new ArrayList<>();
+    for (final Lease lease : leases) {
+      final int slot = slotOf(clusterMode.keys(storeId, lease.getKeys()));
+      if (slot < 0) {
+        groups.add(Collections.singletonList(lease));
+      } else {
+        slots.computeIfAbsent(slot, ignored -> new ArrayList<>()).add(lease);
+      }
+    }
+    groups.addAll(slots.values());
+
+    final List<Lease> lost = new ArrayList<>();
+    for (final List<Lease> group : groups) {
+      try {
+        lost.addAll(refreshInScript(storeId, group));
+      } catch (final RuntimeException e) {
+        // the leases might still be held, the other slots are refreshed anyway and these are retried in the next period
+        log.error("Failed to refresh {} leases in store {}", group.size(), storeId, e);
+      }
+    }
+    return lost;
+  }
+
+  private List<Lease> refreshInScript(final String storeId, final List<Lease> leases) {
+    final List<String> keys = new ArrayList<>();
+    final List<String> args = new ArrayList<>(leases.size() * 3);
+    for (final Lease lease : leases) {
+      keys.addAll(clusterMode.keys(storeId, lease.getKeys()));
+      args.add(String.valueOf(lease.getKeys().size()));
+      args.add(lease.getToken());
+      args.add(String.valueOf(lease.getExpiration()));
+    }
+
+    final List<Long> lostIndices = stringRedisTemplate.execute(BATCH_REFRESH, keys, args.toArray());
+    if (lostIndices == null || lostIndices.isEmpty()) {
+      log.debug("Batch refresh script refreshed all {} leases in store {}", leases.size(), storeId);
+      return Collections.emptyList();
+    }
+
+    final List<Lease> lost = lostIndices.stream().map(index -> leases.get(index.intValue() - 1)).toList();
+    log.debug("Batch refresh script failed to refresh {} out of {} leases in store {}: {}", lost.size(), leases.size(), storeId, lost);
+    return lost;
+  }
+
+  private boolean isGroupedBySlot() {
+    if (clusterMode == RedisClusterMode.HASH_TAG) {
+      return false;
+    }
+
+    if (clusterMode == RedisClusterMode.SLOT_GROUPS) {
+      return true;
+    }
+
+    Boolean cluster = clusterConnection;
+    if (cluster == null) {
+      cluster = Boolean.TRUE.equals(stringRedisTemplate.execute((RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection));
+      clusterConnection = cluster;
+    }
+    return cluster;
+  }
+
+  private static int slotOf(final List<String> keys) {
+    final int slot = ClusterSlotHashUtil.calculateSlot(keys.getFirst());
+    for (final String key : keys) {
+      if (ClusterSlotHashUtil.calculateSlot(key) != slot) {
+        return -1;
+      }
+    }
+    return slot;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+/**
+ * How {@link MultiRedisLock} and {@link ReactiveRedisLock} place their keys, since Redis Cluster only runs scripts whose keys all hash to the same slot.
+ */
+public enum RedisClusterMode {
+
+  /**
+   * Keys are named {@code storeId:key} and passed to a single script, which only works on standalone Redis
+   * or when all keys share a hash tag.
+   */
+  NONE,
+
+  /**
+   * Keys are named {@code {storeId}:key}, so all keys of a store hash to the same slot and are passed to a single script.
+   * Every store is then held by a single shard.
+   */
+  HASH_TAG {
+    @Override
+    public String key(final String storeId, final String key) {
+      return "{" + storeId + "}:" + key;
+    }
+  },
+
+  /**
+   * Keys are named {@code storeId:key} and grouped by their slot, running one script per slot in parallel.
+   * Slots locked before another slot failed are released again.
+   */
+  SLOT_GROUPS {
+    @Override
+    public List<List<String>> groupBySlot(final List<String> keys) {
+      final Map<Integer, List<String>> slots = new TreeMap<>();
+      for (final String key : keys) {
+        slots.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(key), slot -> new ArrayList<>()).add(key);
+      }
+      return slots.size() == 1 ? Collections.singletonList(keys) : new ArrayList<>(slots.values());
+    }
+  };
+
+  /**
+   * @param storeId lock store id
+   * @param key     lock key
+   * @return name of the Redis key holding the lock
+   */
+  public String key(final String storeId, final String key) {
+    return storeId + ":" + key;
+  }
+
+  /**
+   * @param keys Redis keys
+   * @return keys grouped so every group can be passed to a single script
+   */
+  public List<List<String>> groupBySlot(final List<String> keys) {
+    return Collections.singletonList(keys);
+  }
+
+  /**
+   * @param storeId lock store id
+   * @param keys    lock keys
+   * @return names of the Redis keys holding the locks
+   */
+  public List<String> keys(final String storeId, final Collection<String> keys) {
+    final List<String> redisKeys = new ArrayList<>(keys.size());
+    for (final String key : keys) {
+      redisKeys.add(key(storeId, key));
+    }
+    return redisKeys;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.Topic;
+
+/**
+ * Wakes up threads waiting for a Redis lock to be released.
+ * <p>
+ * Release scripts publish a message on a channel per released key. A single pattern subscription, registered with
+ * a {@link org.springframework.data.redis.listener.RedisMessageListenerContainer} using {@link #getTopic()}, receives
+ * all of them and wakes up the thread that has been waiting for that key the longest.
+ * <p>
+ * Notifications are best effort: keys that simply expire are never published and messages published before
+ * a waiter subscribed are lost, so waiters still wait for at most their retry interval.
+ */
+@Slf4j
+public class RedisLockReleaseListener implements MessageListener {
+  public static final String CHANNEL_PREFIX = "distributed-lock:released:";
+
+  private final Map<String, Deque<Waiter>> waiters = new ConcurrentHashMap<>();
+
+  /**
+   * @return pattern topic matching release channels of all keys in all stores
+   */
+  public Topic getTopic() {
+    return new PatternTopic(CHANNEL_PREFIX + "*");
+  }
+
+  /**
+   * Block until any of the given keys is released or the timeout elapses.
+   *
+   * @param keys    keys prefixed with their store id, exactly as stored in Redis
+   * @param timeout maximum time to wait, in millis
+   * @return {@code true} if woken up by a release, {@code false} if the timeout elapsed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitRelease(final List<String> keys, final long timeout) throws InterruptedException {
+    final Waiter waiter = new Waiter();
+    keys.forEach(key -> waiters.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>()).add(waiter));
+    try {
+      // a release can take the waiter between the timeout and its removal below, it then counts as woken
+      return waiter.latch.await(timeout, TimeUnit.MILLISECONDS) || !waiter.giveUp();
+    } catch (final InterruptedException e) {
+      if (!waiter.giveUp()) {
+        // the release was meant for this waiter, pass it on so the next waiter does not sleep through it
+        wakeNext(waiter.getWokenBy());
+      }
+      throw e;
+    } finally {
+      keys.forEach(key -> waiters.computeIfPresent(key, (k, queue) -> {
+        queue.remove(waiter);
+        return queue.isEmpty() ? null : queue;
+      }));
+    }
+  }
+
+  @Override
+  public void onMessage(final Message message, final byte[] pattern) {
+    final String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+    wakeNext(channel.substring(CHANNEL_PREFIX.length()));
+  }
+
+  private void wakeNext(final String key) {
+    final Deque<Waiter> queue = waiters.get(key);
+    if (queue == null) {
+      return;
+    }
+
+    // a waiter for multiple keys might have already been woken up by another one of its keys or given up waiting
+    Waiter waiter;
+    while ((waiter = queue.poll()) != null) {
+      if (waiter.wake(key)) {
+        log.debug("Woke up a waiter for released key {}", key);
+        return;
+      }
+    }
+  }
+
+  private static class Waiter {
+    private static final String GAVE_UP = "";
+
+    /**
+     * {@code null} while waiting, then either the released key that woke the waiter up or {@link #GAVE_UP}.
+     */
+    private final AtomicReference<String> outcome = new AtomicReference<>();
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    private boolean wake(final String key) {
+      if (!outcome.compareAndSet(null, key)) {
+        return false;
+      }
+
+      latch.countDown();
+      return true;
+    }
+
+    /**
+     * @return {@code false} if a release already woke this waiter up
+     */
+    private boolean giveUp() {
+      return outcome.compareAndSet(null, GAVE_UP);
+    }
+
+    private String getWokenBy() {
+      return outcome.get();
+    }
+  }
+}
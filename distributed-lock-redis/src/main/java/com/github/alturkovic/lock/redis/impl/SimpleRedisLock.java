@@ -25,6 +25,9 @@
 package com.github.alturkovic.lock.redis.impl;
 
 import com.github.alturkovic.lock.AbstractSimpleLock;
+import com.github.alturkovic.lock.AwaitableLock;
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
 import io.lettuce.core.RedisCommandInterruptedException;
 import java.util.Collections;
 import java.util.List;
@@ -34,16 +37,23 @@ import org.springframework.data.redis.RedisSystemException;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.Assert;
 
 /**
  * Works the same way as {@link MultiRedisLock} but is optimized better to work with a single key.
  */
 @Slf4j
-public class SimpleRedisLock extends AbstractSimpleLock {
+public class SimpleRedisLock extends AbstractSimpleLock implements BatchRefreshingLock, AwaitableLock {
   private static final String LOCK_SCRIPT = "return redis.call('SET', KEYS[1], ARGV[1], 'PX', tonumber(ARGV[2]), 'NX') and true or false";
 
   private static final String LOCK_RELEASE_SCRIPT = "return redis.call('GET', KEYS[1]) == ARGV[1] and (redis.call('DEL', KEYS[1]) == 1) or false";
 
+  private static final String LOCK_RELEASE_AND_PUBLISH_SCRIPT = "if redis.call('GET', KEYS[1]) == ARGV[1] and redis.call('DEL', KEYS[1]) == 1 then\n" +
+    "    redis.call('PUBLISH', ARGV[2] .. KEYS[1], ARGV[1])\n" +
+    "    return true\n" +
+    "end\n" +
+    "return false";
+
   private static final String LOCK_REFRESH_SCRIPT = "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
     "    redis.call('PEXPIRE', KEYS[1], tonumber(ARGV[2]))\n" +
     "    return true\n" +
@@ -51,14 +61,44 @@ public class SimpleRedisLock extends AbstractSimpleLock {
     "return false";
 
   private final RedisScript<Boolean> lockScript = new DefaultRedisScript<>(LOCK_SCRIPT, Boolean.class);
-  private final RedisScript<Boolean> lockReleaseScript = new DefaultRedisScript<>(LOCK_RELEASE_SCRIPT, Boolean.class);
+  private final RedisScript<Boolean> lockReleaseScript;
   private final RedisScript<Boolean> lockRefreshScript = new DefaultRedisScript<>(LOCK_REFRESH_SCRIPT, Boolean.class);
 
   private final StringRedisTemplate stringRedisTemplate;
+  private final RedisBatchRefresher batchRefresher;
+  private final RedisLockReleaseListener releaseListener;
 
   public SimpleRedisLock(final Supplier<String> tokenSupplier, final StringRedisTemplate stringRedisTemplate) {
+    this(tokenSupplier, stringRedisTemplate, null);
+  }
+
+  /**
+   * @param releaseListener listener used to wake up waiters once the lock is released, waiters simply poll if {@code null}
+   */
+  public SimpleRedisLock(final Supplier<String> tokenSupplier, final StringRedisTemplate stringRedisTemplate, final RedisLockReleaseListener releaseListener) {
     super(tokenSupplier);
     this.stringRedisTemplate = stringRedisTemplate;
+    this.batchRefresher = new RedisBatchRefresher(stringRedisTemplate);
+    this.releaseListener = releaseListener;
+    this.lockReleaseScript = releaseListener == null
+      ? new DefaultRedisScript<>(LOCK_RELEASE_SCRIPT, Boolean.class)
+      : new DefaultRedisScript<>(LOCK_RELEASE_AND_PUBLISH_SCRIPT, Boolean.class);
+  }
+
+  @Override
+  public boolean awaitRelease(final List<String> keys, final String storeId, final long timeout) throws InterruptedException {
+    Assert.isTrue(keys.size() == 1, "Cannot await lock for multiple keys with this lock");
+    if (releaseListener == null) {
+      Thread.sleep(timeout);
+      return false;
+    }
+
+    return releaseListener.awaitRelease(Collections.singletonList(storeId + ":" + keys.getFirst()), timeout);
+  }
+
+  @Override
+  public List<Lease> refresh(final String storeId, final List<Lease> leases) {
+    return batchRefresher.refresh(storeId, leases);
   }
 
   @Override
@@ -73,7 +113,7 @@ public class SimpleRedisLock extends AbstractSimpleLock {
   protected boolean release(final String key, final String storeId, final String token) {
     final List<String> singletonKeyList = Collections.singletonList(storeId + ":" + key);
 
-    final boolean released = stringRedisTemplate.execute(lockReleaseScript, singletonKeyList, token);
+    final boolean released = stringRedisTemplate.execute(lockReleaseScript, singletonKeyList, token, RedisLockReleaseListener.CHANNEL_PREFIX);
     if (released) {
       log.debug("Release script deleted the record for key {} with token {} in store {}", key, token, storeId);
     } else {
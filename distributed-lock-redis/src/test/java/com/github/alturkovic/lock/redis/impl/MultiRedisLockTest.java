@@ -24,6 +24,8 @@
 
 package com.github.alturkovic.lock.redis.impl;
 
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
 import com.github.alturkovic.lock.Lock;
 import java.util.Arrays;
 import java.util.Collections;
@@ -204,6 +206,72 @@ public class MultiRedisLockTest implements InitializingBean {
     assertThat(redisTemplate.opsForValue().get("locks:2")).isNull();
   }
 
+  @Test
+  public void shouldRefreshInBatchAndReportLostLeases() {
+    lock.acquire(Arrays.asList("1", "2"), "locks", 100);
+    lock.acquire(Arrays.asList("3", "4"), "locks", 100);
+    redisTemplate.opsForValue().set("locks:4", "def");
+
+    final Lease held = new Lease(Arrays.asList("1", "2"), "locks", "abc", 1000);
+    final Lease partiallyTaken = new Lease(Arrays.asList("3", "4"), "locks", "abc", 1000);
+
+    final List<Lease> lost = ((BatchRefreshingLock) lock).refresh("locks", List.of(held, partiallyTaken));
+    assertThat(lost).containsExactly(partiallyTaken);
+    assertThat(redisTemplate.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+    assertThat(redisTemplate.getExpire("locks:2", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+    assertThat(redisTemplate.getExpire("locks:3", TimeUnit.MILLISECONDS)).isCloseTo(100, Offset.offset(100L));
+  }
+
+  @Test
+  public void shouldLockAllKeysOfStoreInSameSlotWithHashTag() {
+    final Lock hashTagLock = new MultiRedisLock(redisTemplate, () -> "abc", null, RedisClusterMode.HASH_TAG);
+
+    assertThat(hashTagLock.acquire(Arrays.asList("1", "2"), "locks", 1000)).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("{locks}:1")).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("{locks}:2")).isEqualTo("abc");
+
+    assertThat(hashTagLock.refresh(Arrays.asList("1", "2"), "locks", "abc", 1000)).isTrue();
+    assertThat(hashTagLock.release(Arrays.asList("1", "2"), "locks", "abc")).isTrue();
+    assertThat(redisTemplate.hasKey("{locks}:1")).isFalse();
+  }
+
+  @Test
+  public void shouldLockKeysOfDifferentSlotsWithSlotGroups() {
+    final Lock slotLock = new MultiRedisLock(redisTemplate, () -> "abc", null, RedisClusterMode.SLOT_GROUPS);
+    final List<String> keys = Arrays.asList("1", "2", "3", "4");
+
+    assertThat(slotLock.acquire(keys, "locks", 1000)).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().multiGet(Arrays.asList("locks:1", "locks:2", "locks:3", "locks:4"))).containsOnly("abc");
+
+    assertThat(slotLock.refresh(keys, "locks", "abc", 1000)).isTrue();
+    assertThat(slotLock.release(keys, "locks", "abc")).isTrue();
+    assertThat(redisTemplate.keys("locks:*")).isEmpty();
+  }
+
+  @Test
+  public void shouldReleaseLockedSlotsWhenOtherSlotIsTakenWithSlotGroups() {
+    final Lock slotLock = new MultiRedisLock(redisTemplate, () -> "abc", null, RedisClusterMode.SLOT_GROUPS);
+    redisTemplate.opsForValue().set("locks:3", "def");
+
+    assertThat(slotLock.acquire(Arrays.asList("1", "2", "3", "4"), "locks", 1000)).isNull();
+    assertThat(redisTemplate.keys("locks:*")).containsExactly("locks:3");
+    assertThat(redisTemplate.opsForValue().get("locks:3")).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldRefreshLeasesPerSlotGroupAndReportLostLeases() {
+    final Lock slotLock = new MultiRedisLock(redisTemplate, () -> "abc", null, RedisClusterMode.SLOT_GROUPS);
+    slotLock.acquire(Arrays.asList("1", "2"), "locks", 100);
+    slotLock.acquire(Arrays.asList("3", "4"), "locks", 100);
+    redisTemplate.opsForValue().set("locks:4", "def");
+
+    final Lease held = new Lease(Arrays.asList("1", "2"), "locks", "abc", 1000);
+    final Lease partiallyTaken = new Lease(Arrays.asList("3", "4"), "locks", "abc", 1000);
+
+    assertThat(((BatchRefreshingLock) slotLock).refresh("locks", List.of(held, partiallyTaken))).containsExactly(partiallyTaken);
+    assertThat(redisTemplate.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+  }
+
   @SpringBootApplication
   static class TestApplication {}
 }
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import com.github.alturkovic.lock.Lock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+public class QuorumRedisLockTest {
+
+  @Container
+  private static final GenericContainer<?> redis1 = new GenericContainer<>(DockerImageName.parse("redis:alpine")).withExposedPorts(6379);
+
+  @Container
+  private static final GenericContainer<?> redis2 = new GenericContainer<>(DockerImageName.parse("redis:alpine")).withExposedPorts(6379);
+
+  @Container
+  private static final GenericContainer<?> redis3 = new GenericContainer<>(DockerImageName.parse("redis:alpine")).withExposedPorts(6379);
+
+  private static final List<LettuceConnectionFactory> connectionFactories = new ArrayList<>();
+  private static final List<StringRedisTemplate> templates = new ArrayList<>();
+
+  private final Lock lock = QuorumRedisLock.of(() -> "abc", connectionFactories);
+
+  @BeforeAll
+  public static void connect() {
+    for (final GenericContainer<?> redis : List.of(redis1, redis2, redis3)) {
+      final LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+      connectionFactory.start();
+      connectionFactories.add(connectionFactory);
+      templates.add(new StringRedisTemplate(connectionFactory));
+    }
+  }
+
+  @AfterAll
+  public static void disconnect() {
+    connectionFactories.forEach(LettuceConnectionFactory::destroy);
+  }
+
+  @BeforeEach
+  public void cleanRedis() {
+    templates.forEach(template -> template.execute((RedisCallback<?>) connection -> {
+      connection.serverCommands().flushDb();
+      return null;
+    }));
+  }
+
+  @Test
+  public void shouldLockOnAllMasters() {
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isEqualTo("abc");
+
+    // the lock is acquired once a majority answered, so wait for the last master
+    await(() -> templates.stream().allMatch(template -> "abc".equals(template.opsForValue().get("locks:1"))));
+    templates.forEach(template -> assertThat(template.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L)));
+  }
+
+  @Test
+  public void shouldLockOnMajorityOfMasters() {
+    templates.getFirst().opsForValue().set("locks:1", "def");
+
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isEqualTo("abc");
+    assertThat(templates.getFirst().opsForValue().get("locks:1")).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldNotLockWithoutMajorityAndReleaseLockedMasters() {
+    templates.get(0).opsForValue().set("locks:1", "def");
+    templates.get(1).opsForValue().set("locks:1", "ghi");
+
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 1000)).isNull();
+
+    await(() -> templates.get(2).opsForValue().get("locks:1") == null);
+    assertThat(templates.get(0).opsForValue().get("locks:1")).isEqualTo("def");
+    assertThat(templates.get(1).opsForValue().get("locks:1")).isEqualTo("ghi");
+  }
+
+  @Test
+  public void shouldNotWaitForSlowMaster() throws Exception {
+    redis3.execInContainer("redis-cli", "CLIENT", "PAUSE", "3000", "ALL");
+
+    final long start = System.currentTimeMillis();
+    assertThat(lock.acquire(Collections.singletonList("1"), "locks", 10000)).isEqualTo("abc");
+    assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+  }
+
+  @Test
+  public void shouldReleaseOnMajorityOfMasters() {
+    lock.acquire(Collections.singletonList("1"), "locks", 1000);
+    templates.getFirst().opsForValue().set("locks:1", "def");
+
+    assertThat(lock.release(Collections.singletonList("1"), "locks", "abc")).isTrue();
+    assertThat(templates.getFirst().opsForValue().get("locks:1")).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldNotReleaseWithoutMajority() {
+    templates.forEach(template -> template.opsForValue().set("locks:1", "def"));
+
+    assertThat(lock.release(Collections.singletonList("1"), "locks", "abc")).isFalse();
+    templates.forEach(template -> assertThat(template.opsForValue().get("locks:1")).isEqualTo("def"));
+  }
+
+  @Test
+  public void shouldRefreshOnMajorityOfMasters() {
+    lock.acquire(Collections.singletonList("1"), "locks", 100);
+    await(() -> templates.stream().allMatch(template -> template.hasKey("locks:1")));
+    templates.getFirst().delete("locks:1");
+
+    assertThat(lock.refresh(Collections.singletonList("1"), "locks", "abc", 1000)).isTrue();
+    assertThat(templates.get(1).getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+  }
+
+  @Test
+  public void shouldNotRefreshWithoutMajority() {
+    lock.acquire(Collections.singletonList("1"), "locks", 1000);
+    await(() -> templates.stream().allMatch(template -> template.hasKey("locks:1")));
+    templates.get(0).delete("locks:1");
+    templates.get(1).delete("locks:1");
+
+    assertThat(lock.refresh(Collections.singletonList("1"), "locks", "abc", 1000)).isFalse();
+  }
+
+  private static void await(final BooleanSupplier condition) {
+    final long deadline = System.currentTimeMillis() + 1000;
+    while (!condition.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).as("condition met in time").isLessThan(deadline);
+      Thread.onSpinWait();
+    }
+  }
+}
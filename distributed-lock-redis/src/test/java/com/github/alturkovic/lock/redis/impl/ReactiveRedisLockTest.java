@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import com.github.alturkovic.lock.ReactiveLock;
+import com.github.alturkovic.lock.retry.ReactiveRetriableLock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.backoff.FixedBackOff;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+public class ReactiveRedisLockTest implements InitializingBean {
+
+  @Container
+  @ServiceConnection
+  private static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:alpine")).withExposedPorts(6379);
+
+  @Autowired
+  private StringRedisTemplate redisTemplate;
+
+  @Autowired
+  private ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+  private ReactiveLock lock;
+
+  @Override
+  public void afterPropertiesSet() {
+    lock = new ReactiveRedisLock(reactiveRedisTemplate, () -> "abc");
+  }
+
+  @BeforeEach
+  public void cleanRedis() {
+    redisTemplate.execute((RedisCallback<?>) connection -> {
+      connection.flushDb();
+      return null;
+    });
+  }
+
+  @Test
+  public void shouldLock() {
+    final String token = lock.acquire(Collections.singletonList("1"), "locks", 1000).block();
+    assertThat(token).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isEqualTo("abc");
+    assertThat(redisTemplate.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+  }
+
+  @Test
+  public void shouldLockMultipleKeys() {
+    final String token = lock.acquire(Arrays.asList("1", "2"), "locks", 1000).block();
+    assertThat(token).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("locks:2")).isEqualTo("abc");
+  }
+
+  @Test
+  public void shouldNotLockBeforeSubscription() {
+    lock.acquire(Collections.singletonList("1"), "locks", 1000);
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isNull();
+  }
+
+  @Test
+  public void shouldNotLock() {
+    redisTemplate.opsForValue().set("locks:2", "def");
+    final String token = lock.acquire(Arrays.asList("1", "2"), "locks", 1000).block();
+    assertThat(token).isNull();
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isNull();
+    assertThat(redisTemplate.opsForValue().get("locks:2")).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldLockKeysOfClusterMode() {
+    final ReactiveLock hashTagLock = new ReactiveRedisLock(reactiveRedisTemplate, () -> "abc", null, RedisClusterMode.HASH_TAG);
+    assertThat(hashTagLock.acquire(Arrays.asList("1", "2"), "locks", 1000).block()).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("{locks}:1")).isEqualTo("abc");
+    assertThat(redisTemplate.opsForValue().get("{locks}:2")).isEqualTo("abc");
+    assertThat(hashTagLock.release(Arrays.asList("1", "2"), "locks", "abc").block()).isTrue();
+  }
+
+  @Test
+  public void shouldReleaseLockedSlotsWhenAnotherSlotIsNotLocked() {
+    final ReactiveLock slotGroupsLock = new ReactiveRedisLock(reactiveRedisTemplate, () -> "abc", null, RedisClusterMode.SLOT_GROUPS);
+    redisTemplate.opsForValue().set("locks:2", "def");
+
+    assertThat(slotGroupsLock.acquire(Arrays.asList("1", "2"), "locks", 1000).block()).isNull();
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isNull();
+    assertThat(redisTemplate.opsForValue().get("locks:2")).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldRelease() {
+    redisTemplate.opsForValue().set("locks:1", "abc");
+    assertThat(lock.release(Collections.singletonList("1"), "locks", "abc").block()).isTrue();
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isNull();
+  }
+
+  @Test
+  public void shouldNotRelease() {
+    redisTemplate.opsForValue().set("locks:1", "def");
+    assertThat(lock.release(Collections.singletonList("1"), "locks", "abc").block()).isFalse();
+    assertThat(redisTemplate.opsForValue().get("locks:1")).isEqualTo("def");
+  }
+
+  @Test
+  public void shouldRefresh() throws InterruptedException {
+    final String token = lock.acquire(Collections.singletonList("1"), "locks", 1000).block();
+    Thread.sleep(500);
+    assertThat(redisTemplate.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(500, Offset.offset(100L));
+    assertThat(lock.refresh(Collections.singletonList("1"), "locks", token, 1000).block()).isTrue();
+    assertThat(redisTemplate.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+  }
+
+  @Test
+  public void shouldNotRefreshBecauseTokenDoesNotMatch() {
+    redisTemplate.opsForValue().set("locks:1", "def");
+    assertThat(lock.refresh(Collections.singletonList("1"), "locks", "abc", 1000).block()).isFalse();
+  }
+
+  @Test
+  public void shouldAcquireOnceReleasedWhenRetrying() {
+    redisTemplate.opsForValue().set("locks:1", "def", Duration.ofMillis(300));
+    final ReactiveLock retriableLock = new ReactiveRetriableLock(lock, new FixedBackOff(50), 2000);
+
+    final String token = retriableLock.acquire(Collections.singletonList("1"), "locks", 1000).block();
+    assertThat(token).isEqualTo("abc");
+  }
+
+  @Test
+  public void shouldQueueManyAcquisitionsWithoutThreads() {
+    final ReactiveLock retriableLock = new ReactiveRetriableLock(new ReactiveRedisLock(reactiveRedisTemplate), new FixedBackOff(20), 30000);
+    final int threadsBefore = Thread.activeCount();
+
+    final List<Mono<Boolean>> acquisitions = IntStream.range(0, 200)
+      .mapToObj(i -> retriableLock.acquire(Collections.singletonList("1"), "locks", 1000)
+        .flatMap(token -> lock.release(Collections.singletonList("1"), "locks", token))
+        .cache())
+      .toList();
+    acquisitions.forEach(Mono::subscribe);
+
+    assertThat(Thread.activeCount() - threadsBefore).isLessThan(Runtime.getRuntime().availableProcessors() + 10);
+    assertThat(Flux.merge(acquisitions).collectList().block(Duration.ofSeconds(30))).hasSize(200).containsOnly(true);
+  }
+
+  @SpringBootApplication
+  static class TestApplication {}
+}
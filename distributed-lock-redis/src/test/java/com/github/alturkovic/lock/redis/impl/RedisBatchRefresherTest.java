@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import com.github.alturkovic.lock.Lease;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RedisBatchRefresherTest {
+  // locks:a, locks:b and locks:x hash to three different slots
+  private final Lease first = new Lease(Collections.singletonList("a"), "locks", "abc", 1000);
+  private final Lease second = new Lease(Collections.singletonList("b"), "locks", "def", 1000);
+  private final Lease third = new Lease(Collections.singletonList("x"), "locks", "ghi", 1000);
+
+  @Mock
+  private StringRedisTemplate stringRedisTemplate;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldRefreshAllLeasesInSingleScriptOnStandaloneRedis() {
+    when(stringRedisTemplate.execute(any(RedisCallback.class))).thenReturn(false);
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(2L));
+
+    final List<Lease> lost = new RedisBatchRefresher(stringRedisTemplate).refresh("locks", List.of(first, second, third));
+
+    assertThat(lost).containsExactly(second);
+    verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldDetectClusterOnceForAllBatchRefreshesOfLock() {
+    when(stringRedisTemplate.execute(any(RedisCallback.class))).thenReturn(false);
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(Collections.emptyList());
+
+    final MultiRedisLock lock = new MultiRedisLock(stringRedisTemplate, () -> "abc");
+    lock.refresh("locks", List.of(first));
+    lock.refresh("locks", List.of(second));
+
+    verify(stringRedisTemplate).execute(any(RedisCallback.class));
+    verify(stringRedisTemplate, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldRefreshEverySlotInItsOwnScriptOnRedisCluster() {
+    when(stringRedisTemplate.execute(any(RedisCallback.class))).thenReturn(true);
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(Collections.emptyList());
+
+    final List<Lease> lost = new RedisBatchRefresher(stringRedisTemplate).refresh("locks", List.of(first, second, third));
+
+    assertThat(lost).isEmpty();
+    final ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+    verify(stringRedisTemplate, times(3)).execute(any(RedisScript.class), keys.capture(), any(Object[].class));
+    assertThat(keys.getAllValues()).flatMap(slot -> slot).containsExactlyInAnyOrder("locks:a", "locks:b", "locks:x");
+    assertThat(keys.getAllValues()).allSatisfy(slot -> assertThat(slot.stream().mapToInt(ClusterSlotHashUtil::calculateSlot).distinct()).hasSize(1));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldKeepLeasesOfTheSameSlotInOneScript() {
+    final Lease tagged = new Lease(Collections.singletonList("x"), "{locks}", "jkl", 1000);
+    final List<Lease> leases = List.of(tagged, new Lease(Collections.singletonList("y"), "{locks}", "mno", 1000));
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(1L));
+
+    final List<Lease> lost = new RedisBatchRefresher(stringRedisTemplate, RedisClusterMode.SLOT_GROUPS).refresh("{locks}", leases);
+
+    assertThat(lost).containsExactly(tagged);
+    verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldKeepRefreshingOtherSlotsWhenOneFails() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+      .thenThrow(new IllegalStateException("connection reset"))
+      .thenReturn(List.of(1L));
+
+    final List<Lease> lost = new RedisBatchRefresher(stringRedisTemplate, RedisClusterMode.SLOT_GROUPS).refresh("locks", List.of(first, second));
+
+    assertThat(lost).hasSize(1).isSubsetOf(first, second);
+    verify(stringRedisTemplate, times(2)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+  }
+}
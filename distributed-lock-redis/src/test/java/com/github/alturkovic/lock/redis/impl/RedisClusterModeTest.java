@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisClusterModeTest {
+  private static final List<String> KEYS = Arrays.asList("1", "2", "3", "4", "5");
+
+  @Test
+  public void shouldNameKeysWithStoreId() {
+    assertThat(RedisClusterMode.NONE.keys("locks", KEYS)).containsExactly("locks:1", "locks:2", "locks:3", "locks:4", "locks:5");
+    assertThat(RedisClusterMode.SLOT_GROUPS.key("locks", "1")).isEqualTo("locks:1");
+  }
+
+  @Test
+  public void shouldNameKeysWithStoreIdHashTag() {
+    final List<String> keys = RedisClusterMode.HASH_TAG.keys("locks", KEYS);
+
+    assertThat(keys).containsExactly("{locks}:1", "{locks}:2", "{locks}:3", "{locks}:4", "{locks}:5");
+    assertThat(keys.stream().mapToInt(ClusterSlotHashUtil::calculateSlot).distinct()).hasSize(1);
+    assertThat(RedisClusterMode.HASH_TAG.groupBySlot(keys)).containsExactly(keys);
+  }
+
+  @Test
+  public void shouldNotGroupKeysWithoutSlotGroups() {
+    final List<String> keys = RedisClusterMode.NONE.keys("locks", KEYS);
+    assertThat(RedisClusterMode.NONE.groupBySlot(keys)).containsExactly(keys);
+  }
+
+  @Test
+  public void shouldGroupKeysBySlot() {
+    final List<String> keys = RedisClusterMode.SLOT_GROUPS.keys("locks", KEYS);
+    final List<List<String>> slots = RedisClusterMode.SLOT_GROUPS.groupBySlot(keys);
+
+    assertThat(slots).hasSizeGreaterThan(1);
+    assertThat(slots).flatMap(slot -> slot).containsExactlyInAnyOrderElementsOf(keys);
+    assertThat(slots).allSatisfy(slot -> assertThat(slot.stream().mapToInt(ClusterSlotHashUtil::calculateSlot).distinct()).hasSize(1));
+  }
+
+  @Test
+  public void shouldKeepKeysOfSingleSlotTogether() {
+    final List<String> keys = Arrays.asList("{locks}:1", "{locks}:2");
+    assertThat(RedisClusterMode.SLOT_GROUPS.groupBySlot(keys)).containsExactly(keys);
+  }
+}
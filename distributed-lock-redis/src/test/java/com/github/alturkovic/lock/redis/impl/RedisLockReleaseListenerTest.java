@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Alen Turkovic
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.alturkovic.lock.redis.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedisLockReleaseListenerTest {
+  private static final List<String> KEYS = Collections.singletonList("locks:1");
+
+  private final RedisLockReleaseListener listener = new RedisLockReleaseListener();
+
+  @Test
+  public void shouldReturnFalseWhenTimeoutElapses() throws InterruptedException {
+    assertThat(listener.awaitRelease(KEYS, 50)).isFalse();
+  }
+
+  @Test
+  public void shouldWakeUpOnlyTheLongestWaitingThread() throws Exception {
+    final CompletableFuture<Boolean> first = await(KEYS, 5000);
+    final CompletableFuture<Boolean> second = await(KEYS, 500);
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    release("locks:1");
+
+    assertThat(first.get(1, TimeUnit.SECONDS)).isTrue();
+    assertThat(second.get(1, TimeUnit.SECONDS)).isFalse();
+  }
+
+  @Test
+  public void shouldWakeUpNextThreadWhenLongestWaitingThreadWasInterrupted() throws Exception {
+    final Thread interrupted = Thread.ofPlatform().start(() -> {
+      try {
+        listener.awaitRelease(KEYS, 5000);
+      } catch (final InterruptedException e) {
+        // expected
+      }
+    });
+    TimeUnit.MILLISECONDS.sleep(100);
+    final CompletableFuture<Boolean> next = await(KEYS, 5000);
+    TimeUnit.MILLISECONDS.sleep(100);
+
+    interrupted.interrupt();
+    interrupted.join();
+    release("locks:1");
+
+    assertThat(next.get(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private CompletableFuture<Boolean> await(final List<String> keys, final long timeout) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return listener.awaitRelease(keys, timeout);
+      } catch (final InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }, runnable -> Thread.ofPlatform().start(runnable));
+  }
+
+  private void release(final String key) {
+    listener.onMessage(new DefaultMessage((RedisLockReleaseListener.CHANNEL_PREFIX + key).getBytes(StandardCharsets.UTF_8), new byte[0]), null);
+  }
+}
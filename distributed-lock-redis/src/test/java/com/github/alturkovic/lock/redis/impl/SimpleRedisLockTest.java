@@ -24,8 +24,12 @@
 
 package com.github.alturkovic.lock.redis.impl;
 
+import com.github.alturkovic.lock.BatchRefreshingLock;
+import com.github.alturkovic.lock.Lease;
 import com.github.alturkovic.lock.Lock;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +41,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.test.annotation.DirtiesContext;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -135,6 +140,50 @@ public class SimpleRedisLockTest implements InitializingBean {
     assertThat(redisTemplate.opsForValue().get("locks:1")).isNull();
   }
 
+  @Test
+  public void shouldRefreshInBatchAndReportLostLeases() {
+    lock.acquire(Collections.singletonList("1"), "locks", 100);
+    redisTemplate.opsForValue().set("locks:2", "def");
+
+    final Lease held = new Lease(Collections.singletonList("1"), "locks", "abc", 1000);
+    final Lease taken = new Lease(Collections.singletonList("2"), "locks", "abc", 1000);
+    final Lease expired = new Lease(Collections.singletonList("3"), "locks", "abc", 1000);
+
+    final List<Lease> lost = ((BatchRefreshingLock) lock).refresh("locks", List.of(held, taken, expired));
+    assertThat(lost).containsExactly(taken, expired);
+    assertThat(redisTemplate.getExpire("locks:1", TimeUnit.MILLISECONDS)).isCloseTo(1000, Offset.offset(100L));
+    assertThat(redisTemplate.getExpire("locks:2", TimeUnit.MILLISECONDS)).isEqualTo(-1);
+  }
+
+  @Test
+  public void shouldWakeUpWaiterWhenLockIsReleased() throws Exception {
+    final RedisLockReleaseListener releaseListener = new RedisLockReleaseListener();
+    final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(redisTemplate.getConnectionFactory());
+    container.addMessageListener(releaseListener, releaseListener.getTopic());
+    container.afterPropertiesSet();
+    container.start();
+
+    try {
+      final SimpleRedisLock notifyingLock = new SimpleRedisLock(() -> "abc", redisTemplate, releaseListener);
+      final String token = notifyingLock.acquire(Collections.singletonList("1"), "locks", 10000);
+
+      final CompletableFuture<Boolean> woken = CompletableFuture.supplyAsync(() -> {
+        try {
+          return notifyingLock.awaitRelease(Collections.singletonList("1"), "locks", 5000);
+        } catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+
+      Thread.sleep(200);
+      assertThat(notifyingLock.release(Collections.singletonList("1"), "locks", token)).isTrue();
+      assertThat(woken.get(1, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      container.destroy();
+    }
+  }
+
   @SpringBootApplication
   static class TestApplication {}
 }